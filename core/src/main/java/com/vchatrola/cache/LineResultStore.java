@@ -0,0 +1,222 @@
+package com.vchatrola.cache;
+
+import com.vchatrola.gherkin.GherkinDocument;
+import com.vchatrola.gherkin.GherkinLexer;
+import com.vchatrola.gherkin.GherkinLine;
+import com.vchatrola.gherkin.GherkinLine.StepKeyword;
+import com.vchatrola.result.LineLocator;
+import com.vchatrola.result.ValidationResult;
+import com.vchatrola.util.Constants;
+import com.vchatrola.util.HashUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Per-line store of validation results used by incremental validation.
+ *
+ * <p>Lines are taken from the {@link GherkinDocument} of the selection. Each reportable line is
+ * keyed by its normalized text plus the keyword context it belongs to (the preceding
+ * Given/When/Then for And/But/* steps), the step keyword sequence of its scenario, the model and
+ * the configuration identity. The sequence makes verdicts that depend on the rest of the scenario
+ * (step order, repeated keywords, the number of And steps) stale once steps are added, removed or
+ * reordered. Only lines without a stored verdict are sent to Gemini; fresh verdicts are stored and
+ * merged back with the cached ones in selection order.
+ */
+public class LineResultStore {
+  private final ValidationResultCache<ValidationResult> results;
+
+  public LineResultStore(int maxEntries, long ttlMillis) {
+    this.results = new ValidationResultCache<>(maxEntries, ttlMillis);
+  }
+
+  /** Parses {@code selectedText} and looks up stored verdicts for each of its lines. */
+  public Plan plan(String selectedText, String model, String configIdentity) {
+    return plan(GherkinLexer.parse(selectedText), model, configIdentity);
+  }
+
+  /** Looks up stored verdicts for each reportable line of {@code document}. */
+  public Plan plan(GherkinDocument document, String model, String configIdentity) {
+    List<TrackedLine> lines = trackLines(document, model, configIdentity);
+    List<TrackedLine> pending = new ArrayList<>();
+    Map<Integer, ValidationResult> cached = new LinkedHashMap<>();
+    for (TrackedLine line : lines) {
+      ValidationResult result = results.get(line.key());
+      if (result != null) {
+        cached.put(line.index(), result);
+      } else {
+        pending.add(line);
+      }
+    }
+    return new Plan(document, lines, cached, withContextLines(lines, pending));
+  }
+
+  /**
+   * Stores the verdicts in {@code freshResults} (the results for the plan's pending text) and
+   * returns the results for the whole selection in selection order, with their lines set to the
+   * selection's line numbers. Fresh results that match no pending line are appended at the end.
+   */
+  public List<ValidationResult> merge(Plan plan, List<ValidationResult> freshResults) {
+    Map<Integer, ValidationResult> fresh = new LinkedHashMap<>();
+    List<ValidationResult> unmatched = new ArrayList<>();
+    for (ValidationResult result : freshResults) {
+      TrackedLine line = findPendingLine(plan, result, fresh);
+      if (line == null) {
+        unmatched.add(result.withLine(ValidationResult.UNKNOWN_LINE));
+        continue;
+      }
+      fresh.put(line.index(), result);
+      results.put(line.key(), result);
+    }
+
+    List<ValidationResult> merged = new ArrayList<>();
+    for (TrackedLine line : plan.lines()) {
+      ValidationResult result = fresh.getOrDefault(line.index(), plan.cached().get(line.index()));
+      if (result != null) {
+        merged.add(result.withLine(line.lineNumber()));
+      }
+    }
+    merged.addAll(unmatched);
+    return merged;
+  }
+
+  public void invalidateAll() {
+    results.invalidateAll();
+  }
+
+  static String normalize(String line) {
+    return LineLocator.normalize(line);
+  }
+
+  private static List<TrackedLine> trackLines(
+      GherkinDocument document, String model, String configIdentity) {
+    String[] structures = scenarioStructures(document);
+    List<TrackedLine> lines = new ArrayList<>();
+    String context = "";
+    for (GherkinLine line : document.lines()) {
+      if (!line.isReportable()) {
+        continue;
+      }
+      StepKeyword keyword = line.keyword();
+      if (line.type() == GherkinLine.Type.SCENARIO) {
+        context = Constants.SCENARIO_KEYWORD;
+      } else if (keyword != null && keyword.isPrimary()) {
+        context = keyword.text();
+      }
+      String text = normalize(document.text(line));
+      String structure = structures[line.index()];
+      String key = HashUtils.sha256Hex(model, configIdentity, context, structure, text);
+      lines.add(new TrackedLine(lines.size(), line.index(), text, keyword, key));
+    }
+    return lines;
+  }
+
+  /**
+   * The step keyword sequence (such as {@code "Given When Then And"}) of the scenario each line
+   * belongs to, by line index; empty for lines outside of a scenario.
+   */
+  private static String[] scenarioStructures(GherkinDocument document) {
+    String[] structures = new String[document.lines().size()];
+    Arrays.fill(structures, "");
+    for (GherkinDocument.Scenario scenario : document.scenarios()) {
+      StringJoiner keywords = new StringJoiner(" ");
+      scenario.steps().forEach(step -> keywords.add(step.keyword().text()));
+      String structure = keywords.toString();
+      if (scenario.header() != null) {
+        structures[scenario.header().index()] = structure;
+      }
+      scenario.tags().forEach(tag -> structures[tag.index()] = structure);
+      scenario.steps().forEach(step -> structures[step.line().index()] = structure);
+    }
+    return structures;
+  }
+
+  /**
+   * Adds the nearest preceding Given/When/Then line in front of every pending And/But/* line so
+   * that Gemini sees the step in context.
+   */
+  private static List<TrackedLine> withContextLines(
+      List<TrackedLine> lines, List<TrackedLine> pending) {
+    if (pending.isEmpty()) {
+      return pending;
+    }
+    boolean[] include = new boolean[lines.size()];
+    for (TrackedLine line : pending) {
+      include[line.index()] = true;
+      if (line.keyword() != null && line.keyword().isContinuation()) {
+        for (int i = line.index() - 1; i >= 0; i--) {
+          StepKeyword keyword = lines.get(i).keyword();
+          if (keyword != null && keyword.isPrimary()) {
+            include[i] = true;
+            break;
+          }
+        }
+      }
+    }
+    List<TrackedLine> withContext = new ArrayList<>();
+    for (TrackedLine line : lines) {
+      if (include[line.index()]) {
+        withContext.add(line);
+      }
+    }
+    return withContext;
+  }
+
+  private static TrackedLine findPendingLine(
+      Plan plan, ValidationResult result, Map<Integer, ValidationResult> alreadyMatched) {
+    String title = normalize(result.title());
+    for (TrackedLine line : plan.pending()) {
+      if (!alreadyMatched.containsKey(line.index()) && line.text().equals(title)) {
+        return line;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * A reportable line of the selection together with its result key. {@code index} is the
+   * position among tracked lines, {@code lineNumber} the position in the selection and {@code
+   * keyword} the step keyword, or {@code null} for headers and tags.
+   */
+  public record TrackedLine(
+      int index, int lineNumber, String text, StepKeyword keyword, String key) {}
+
+  /**
+   * The outcome of looking up a selection: all tracked lines, the verdicts already stored (by line
+   * index) and the lines that still have to be sent to Gemini.
+   */
+  public record Plan(
+      GherkinDocument document,
+      List<TrackedLine> lines,
+      Map<Integer, ValidationResult> cached,
+      List<TrackedLine> pending) {
+
+    public boolean isComplete() {
+      return pending.isEmpty();
+    }
+
+    /**
+     * The text to validate: the pending lines plus the structural lines that are not tracked
+     * (such as {@code Examples:} and table rows) in their original order.
+     */
+    public String pendingText() {
+      Set<Integer> included = new HashSet<>();
+      for (TrackedLine line : pending) {
+        included.add(line.lineNumber());
+      }
+      StringBuilder text = new StringBuilder();
+      for (GherkinLine line : document.lines()) {
+        boolean untracked = !line.isReportable() && line.type() != GherkinLine.Type.EMPTY;
+        if (untracked || included.contains(line.index())) {
+          text.append(document.text(line)).append("\n");
+        }
+      }
+      return text.toString().stripTrailing();
+    }
+  }
+}
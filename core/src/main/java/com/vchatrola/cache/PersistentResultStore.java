@@ -0,0 +1,288 @@
+package com.vchatrola.cache;
+
+import com.vchatrola.util.GherkinLintLogger;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Disk-backed store of parsed validation results that survives IDE restarts.
+ *
+ * <p>Entries are kept in a compact append-only log. Every record carries a CRC32 checksum; a
+ * corrupt or truncated tail is dropped on load. The in-memory index is bounded to {@code
+ * maxEntries} in LRU order, and the log is compacted (rewritten with the live entries only) once
+ * it holds twice as many records as the index.
+ *
+ * <p>The log is written in LRU order (eldest first) whenever it is compacted, and {@link #close()}
+ * compacts it when entries were read since the last compaction, so the recency ranking survives a
+ * restart. Access is guarded by a {@link ReentrantLock} rather than {@code synchronized}, because
+ * callers may block on disk I/O from virtual threads.
+ */
+public class PersistentResultStore implements Closeable {
+  private static final int MAGIC = 0x474C5253; // "GLRS"
+  private static final int FORMAT_VERSION = 1;
+  private static final int MAX_RECORD_BYTES = 256 * 1024;
+  private static final int COMPACTION_FACTOR = 2;
+
+  private final Path file;
+  private final int maxEntries;
+  private final LinkedHashMap<String, String> index = new LinkedHashMap<>(16, 0.75f, true);
+  private final ReentrantLock lock = new ReentrantLock();
+  private DataOutputStream out;
+  private int recordCount;
+  private boolean reordered;
+  private boolean disabled;
+
+  private PersistentResultStore(Path file, int maxEntries) {
+    this.file = file;
+    this.maxEntries = maxEntries;
+  }
+
+  /** Opens (or creates) the store at {@code file}. I/O failures disable the store. */
+  public static PersistentResultStore open(Path file, int maxEntries) {
+    PersistentResultStore store = new PersistentResultStore(file, maxEntries);
+    try {
+      store.load();
+    } catch (IOException e) {
+      GherkinLintLogger.debug("Failed to open persistent result store; caching disabled.", e);
+      store.disabled = true;
+    }
+    return store;
+  }
+
+  public String get(String key) {
+    if (key == null) {
+      return null;
+    }
+    lock.lock();
+    try {
+      String value = index.get(key);
+      if (value != null) {
+        reordered = true;
+      }
+      return value;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void put(String key, String value) {
+    if (key == null || value == null) {
+      return;
+    }
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+    if (keyBytes.length + valueBytes.length > MAX_RECORD_BYTES) {
+      GherkinLintLogger.debug("Validation result too large for persistent store; skipping.");
+      return;
+    }
+    lock.lock();
+    try {
+      if (disabled || value.equals(index.get(key))) {
+        return;
+      }
+      index.put(key, value);
+      trimIndex();
+      writeRecord(out, keyBytes, valueBytes);
+      out.flush();
+      recordCount++;
+      if (recordCount > maxEntries * COMPACTION_FACTOR) {
+        rewriteLog();
+      }
+    } catch (IOException e) {
+      GherkinLintLogger.debug("Failed to append to persistent result store; caching disabled.", e);
+      disable();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int size() {
+    lock.lock();
+    try {
+      return index.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Rewrites the log so that it only contains live entries, eldest first. */
+  public void compact() throws IOException {
+    lock.lock();
+    try {
+      if (!disabled) {
+        rewriteLog();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      if (!disabled && reordered) {
+        rewriteLog();
+      }
+      closeOutput();
+    } catch (IOException e) {
+      GherkinLintLogger.debug("Failed to close persistent result store.", e);
+    } finally {
+      disabled = true;
+      lock.unlock();
+    }
+  }
+
+  private void rewriteLog() throws IOException {
+    closeOutput();
+    Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream tempOut = newOutput(tempFile, StandardOpenOption.TRUNCATE_EXISTING)) {
+      writeHeader(tempOut);
+      for (Map.Entry<String, String> entry : index.entrySet()) {
+        writeRecord(
+            tempOut,
+            entry.getKey().getBytes(StandardCharsets.UTF_8),
+            entry.getValue().getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    Files.move(
+        tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    recordCount = index.size();
+    reordered = false;
+    out = newOutput(file, StandardOpenOption.APPEND);
+    GherkinLintLogger.debug("Persistent result store compacted to " + recordCount + " entries.");
+  }
+
+  private void load() throws IOException {
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    boolean needsCompaction = false;
+    if (Files.exists(file)) {
+      needsCompaction = !readLog();
+    }
+    if (!Files.exists(file) || needsCompaction) {
+      writeFreshLog();
+    } else {
+      out = newOutput(file, StandardOpenOption.APPEND);
+    }
+  }
+
+  /** Reads all valid records. Returns {@code false} when the log is corrupt or truncated. */
+  private boolean readLog() throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        GherkinLintLogger.debug("Unknown persistent result store format; starting empty.");
+        index.clear();
+        return false;
+      }
+      while (true) {
+        int keyLength;
+        try {
+          keyLength = in.readInt();
+        } catch (EOFException e) {
+          return true;
+        }
+        byte[] keyBytes = readBytes(in, keyLength);
+        byte[] valueBytes = readBytes(in, in.readInt());
+        long checksum = in.readLong();
+        if (checksum != checksum(keyBytes, valueBytes)) {
+          GherkinLintLogger.debug("Checksum mismatch in persistent result store; dropping tail.");
+          return false;
+        }
+        index.put(
+            new String(keyBytes, StandardCharsets.UTF_8),
+            new String(valueBytes, StandardCharsets.UTF_8));
+        recordCount++;
+        trimIndex();
+      }
+    } catch (EOFException | IllegalArgumentException e) {
+      GherkinLintLogger.debug("Truncated persistent result store; dropping tail.");
+      return false;
+    }
+  }
+
+  private void writeFreshLog() throws IOException {
+    if (index.isEmpty()) {
+      out = newOutput(file, StandardOpenOption.TRUNCATE_EXISTING);
+      writeHeader(out);
+      out.flush();
+      recordCount = 0;
+      return;
+    }
+    rewriteLog();
+  }
+
+  private void trimIndex() {
+    while (index.size() > maxEntries) {
+      String eldest = index.keySet().iterator().next();
+      index.remove(eldest);
+    }
+  }
+
+  private void disable() {
+    disabled = true;
+    try {
+      closeOutput();
+    } catch (IOException ignored) {
+      // Already failing; nothing more to do.
+    }
+  }
+
+  private void closeOutput() throws IOException {
+    if (out != null) {
+      out.close();
+      out = null;
+    }
+  }
+
+  private static DataOutputStream newOutput(Path path, StandardOpenOption mode) throws IOException {
+    return new DataOutputStream(
+        new BufferedOutputStream(
+            Files.newOutputStream(
+                path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)));
+  }
+
+  private static void writeHeader(DataOutputStream output) throws IOException {
+    output.writeInt(MAGIC);
+    output.writeInt(FORMAT_VERSION);
+  }
+
+  private static void writeRecord(DataOutputStream output, byte[] keyBytes, byte[] valueBytes)
+      throws IOException {
+    output.writeInt(keyBytes.length);
+    output.write(keyBytes);
+    output.writeInt(valueBytes.length);
+    output.write(valueBytes);
+    output.writeLong(checksum(keyBytes, valueBytes));
+  }
+
+  private static byte[] readBytes(DataInputStream in, int length) throws IOException {
+    if (length < 0 || length > MAX_RECORD_BYTES) {
+      throw new IllegalArgumentException("Invalid record length: " + length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static long checksum(byte[] keyBytes, byte[] valueBytes) {
+    CRC32 crc = new CRC32();
+    crc.update(keyBytes);
+    crc.update(valueBytes);
+    return crc.getValue();
+  }
+}
@@ -0,0 +1,82 @@
+package com.vchatrola.cache;
+
+import com.vchatrola.util.HashUtils;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory LRU cache for validation results keyed by a hash of the final prompt, the model name
+ * and the merged configuration identity. Entries are evicted when the cache grows beyond {@code
+ * maxEntries} or when they are older than {@code ttlMillis}.
+ */
+public class ValidationResultCache<V> {
+  private final int maxEntries;
+  private final long ttlMillis;
+  private final LongSupplier clock;
+  private final LinkedHashMap<String, CacheEntry<V>> entries;
+
+  public ValidationResultCache(int maxEntries, long ttlMillis) {
+    this(maxEntries, ttlMillis, System::currentTimeMillis);
+  }
+
+  ValidationResultCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be positive.");
+    }
+    this.maxEntries = maxEntries;
+    this.ttlMillis = ttlMillis;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  public static String keyFor(String prompt, String model, String configIdentity) {
+    return HashUtils.sha256Hex(model, configIdentity, prompt);
+  }
+
+  public synchronized V get(String key) {
+    CacheEntry<V> entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (isExpired(entry, clock.getAsLong())) {
+      entries.remove(key);
+      return null;
+    }
+    return entry.value();
+  }
+
+  public synchronized void put(String key, V value) {
+    if (key == null || value == null) {
+      return;
+    }
+    long now = clock.getAsLong();
+    entries.put(key, new CacheEntry<>(value, now));
+    evict(now);
+  }
+
+  public synchronized void invalidateAll() {
+    entries.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private void evict(long now) {
+    Iterator<Map.Entry<String, CacheEntry<V>>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, CacheEntry<V>> eldest = iterator.next();
+      if (entries.size() > maxEntries || isExpired(eldest.getValue(), now)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private boolean isExpired(CacheEntry<V> entry, long now) {
+    return ttlMillis > 0 && now - entry.createdAt() >= ttlMillis;
+  }
+
+  private record CacheEntry<V>(V value, long createdAt) {}
+}
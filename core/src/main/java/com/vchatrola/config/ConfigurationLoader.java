@@ -11,8 +11,30 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 
 public class ConfigurationLoader {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final Object DEFAULT_LOCK = new Object();
+  private static volatile JsonNode defaultConfiguration;
+
+  /**
+   * Returns the bundled default rules. They are parsed on first use and the same tree is returned
+   * for the rest of the session, so callers must not modify it; {@link ConfigurationMerger} builds
+   * merged configurations without touching it.
+   */
   public JsonNode loadDefaultConfiguration() throws IOException {
-    ObjectMapper mapper = new ObjectMapper();
+    JsonNode loaded = defaultConfiguration;
+    if (loaded == null) {
+      synchronized (DEFAULT_LOCK) {
+        loaded = defaultConfiguration;
+        if (loaded == null) {
+          loaded = readDefaultConfiguration();
+          defaultConfiguration = loaded;
+        }
+      }
+    }
+    return loaded;
+  }
+
+  private JsonNode readDefaultConfiguration() throws IOException {
     try (InputStream inputStream =
         getClass().getClassLoader().getResourceAsStream("default-rules.json")) {
       if (inputStream == null) {
@@ -20,7 +42,7 @@ public class ConfigurationLoader {
             "Failed to load default configuration file from classpath: " + "default-rules.json");
         throw new FileNotFoundException("Default configuration file not found in classpath");
       }
-      return mapper.readTree(inputStream);
+      return MAPPER.readTree(inputStream);
     }
   }
 
@@ -29,14 +51,13 @@ public class ConfigurationLoader {
       GherkinLintLogger.debug("Custom configuration path is empty or null. Returning null.");
       return null;
     }
-    ObjectMapper mapper = new ObjectMapper();
     Path path = Paths.get(customConfigPath);
     String fileName = path.getFileName() != null ? path.getFileName().toString() : "custom rules";
     try {
       if (!Files.exists(path)) {
         throw new FileNotFoundException("Custom configuration file not found.");
       }
-      return mapper.readTree(path.toFile());
+      return MAPPER.readTree(path.toFile());
     } catch (FileNotFoundException e) {
       GherkinLintLogger.info("Custom configuration file not found: " + fileName);
       return null;
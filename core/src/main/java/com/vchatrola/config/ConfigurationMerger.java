@@ -1,10 +1,18 @@
 package com.vchatrola.config;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.vchatrola.util.GherkinLintLogger;
 
+/**
+ * Applies a custom configuration on top of the default one.
+ *
+ * <p>Objects are merged key by key, arrays and scalar values are replaced, and keys that the
+ * default configuration does not know are ignored. The merge is copy-on-write: neither input is
+ * modified, and subtrees the custom configuration does not touch are shared with the default tree
+ * instead of copied, so the merged tree must be treated as read-only.
+ */
 public class ConfigurationMerger {
   public JsonNode mergeConfigurations(JsonNode defaultConfig, JsonNode customConfig) {
     if (customConfig == null) {
@@ -12,49 +20,27 @@ public class ConfigurationMerger {
       return defaultConfig;
     }
 
-    merge(defaultConfig, customConfig);
-    return defaultConfig;
+    return merge(defaultConfig, customConfig);
   }
 
-  private void merge(JsonNode defaultNode, JsonNode customNode) {
-    customNode
+  private ObjectNode merge(JsonNode defaultNode, JsonNode customNode) {
+    ObjectNode merged = JsonNodeFactory.instance.objectNode();
+    defaultNode
         .fields()
         .forEachRemaining(
             entry -> {
               String key = entry.getKey();
-              JsonNode customValue = entry.getValue();
-
-              if (defaultNode.has(key)) {
-                JsonNode defaultValue = defaultNode.get(key);
-
-                if (defaultValue.isObject() && customValue.isObject()) {
-                  merge(defaultValue, customValue);
-                } else if (defaultValue.isArray() && customValue.isArray()) {
-                  mergeArrays((ArrayNode) defaultValue, (ArrayNode) customValue);
-                } else {
-                  ((ObjectNode) defaultNode).replace(key, customValue);
-                }
+              JsonNode defaultValue = entry.getValue();
+              JsonNode customValue = customNode.get(key);
+
+              if (customValue == null) {
+                merged.set(key, defaultValue);
+              } else if (defaultValue.isObject() && customValue.isObject()) {
+                merged.set(key, merge(defaultValue, customValue));
+              } else {
+                merged.set(key, customValue);
               }
             });
-  }
-
-  private void mergeArrays(ArrayNode defaultArray, ArrayNode customArray) {
-    defaultArray.removeAll();
-
-    for (int i = 0; i < customArray.size(); i++) {
-      JsonNode customElement = customArray.get(i);
-
-      if (i < defaultArray.size()) {
-        JsonNode defaultElement = defaultArray.get(i);
-
-        if (defaultElement.isObject() && customElement.isObject()) {
-          merge(defaultElement, customElement);
-        } else {
-          defaultArray.set(i, customElement);
-        }
-      } else {
-        defaultArray.add(customElement);
-      }
-    }
+    return merged;
   }
 }
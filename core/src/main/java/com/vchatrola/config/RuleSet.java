@@ -0,0 +1,149 @@
+package com.vchatrola.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The validation rules of a merged configuration, compiled once from its JSON tree.
+ *
+ * <p>All fields are plain strings and immutable lists, so a rule set can be shared between threads
+ * and read without navigating the JSON again. Missing sections and non-array values compile to
+ * empty lists and missing texts to empty strings.
+ */
+public record RuleSet(
+    String context,
+    List<String> tasks,
+    List<String> entities,
+    List<String> requirements,
+    String perspective,
+    KeywordRules scenario,
+    KeywordRules given,
+    KeywordRules when,
+    KeywordRules then,
+    KeywordRules tag) {
+
+  public RuleSet {
+    tasks = List.copyOf(tasks);
+    entities = List.copyOf(entities);
+    requirements = List.copyOf(requirements);
+  }
+
+  public static RuleSet compile(JsonNode config) {
+    return new RuleSet(
+        text(config, "CONTEXT"),
+        texts(config, "TASKS"),
+        texts(config, "ENTITIES"),
+        texts(config, "REQUIREMENTS"),
+        text(config, "PERSPECTIVE"),
+        KeywordRules.compile(config.get("SCENARIO")),
+        KeywordRules.compile(config.get("GIVEN")),
+        KeywordRules.compile(config.get("WHEN")),
+        KeywordRules.compile(config.get("THEN")),
+        KeywordRules.compile(config.get("TAG")));
+  }
+
+  public boolean hasPerspective() {
+    return !perspective.isBlank();
+  }
+
+  /** Returns this rule set without the general and tag requirements in {@code removed}. */
+  public RuleSet withoutRequirements(Set<String> removed) {
+    if (removed.isEmpty()) {
+      return this;
+    }
+    return new RuleSet(
+        context,
+        tasks,
+        entities,
+        without(requirements, removed),
+        perspective,
+        scenario,
+        given,
+        when,
+        then,
+        new KeywordRules(
+            tag.structure(),
+            without(tag.requirements(), removed),
+            tag.tense(),
+            tag.validExamples(),
+            tag.invalidExamples(),
+            tag.feedback()));
+  }
+
+  /** The rules for one Gherkin keyword; for tags only {@code requirements} is used. */
+  public record KeywordRules(
+      List<String> structure,
+      List<String> requirements,
+      String tense,
+      List<String> validExamples,
+      List<InvalidExample> invalidExamples,
+      List<String> feedback) {
+
+    public KeywordRules {
+      structure = List.copyOf(structure);
+      requirements = List.copyOf(requirements);
+      validExamples = List.copyOf(validExamples);
+      invalidExamples = List.copyOf(invalidExamples);
+      feedback = List.copyOf(feedback);
+    }
+
+    static KeywordRules compile(JsonNode node) {
+      JsonNode examples = node != null ? node.get("examples") : null;
+      return new KeywordRules(
+          texts(node, "structure"),
+          texts(node, "requirements"),
+          text(node, "tense"),
+          texts(examples, "valid"),
+          invalidExamples(examples),
+          texts(node, "feedback"));
+    }
+
+    public boolean hasTense() {
+      return !tense.isBlank();
+    }
+
+    public boolean hasExamples() {
+      return !validExamples.isEmpty() || !invalidExamples.isEmpty();
+    }
+
+    private static List<InvalidExample> invalidExamples(JsonNode examples) {
+      JsonNode array = examples != null ? examples.get("invalid") : null;
+      if (array == null || !array.isArray()) {
+        return List.of();
+      }
+      List<InvalidExample> result = new ArrayList<>(array.size());
+      for (JsonNode element : array) {
+        result.add(
+            new InvalidExample(
+                text(element, "example"), text(element, "reason"), text(element, "suggestion")));
+      }
+      return result;
+    }
+  }
+
+  /** A counter-example with the reason it is wrong and how to fix it. */
+  public record InvalidExample(String example, String reason, String suggestion) {}
+
+  private static List<String> without(List<String> texts, Set<String> removed) {
+    return texts.stream().filter(text -> !removed.contains(text)).toList();
+  }
+
+  private static String text(JsonNode node, String field) {
+    JsonNode value = node != null ? node.get(field) : null;
+    return value != null && !value.isNull() ? value.asText() : "";
+  }
+
+  private static List<String> texts(JsonNode node, String field) {
+    JsonNode array = node != null ? node.get(field) : null;
+    if (array == null || !array.isArray()) {
+      return List.of();
+    }
+    List<String> result = new ArrayList<>(array.size());
+    for (JsonNode element : array) {
+      result.add(element.asText());
+    }
+    return result;
+  }
+}
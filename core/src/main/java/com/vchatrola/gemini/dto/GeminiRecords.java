@@ -1,11 +1,75 @@
 package com.vchatrola.gemini.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class GeminiRecords {
 
-  public record GeminiRequest(List<Content> contents) {}
+  /**
+   * {@code cachedContent} names a context cache (see {@link CachedContent}) whose contents precede
+   * {@code contents}; it and {@code generationConfig} are omitted from the JSON when {@code null}.
+   */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public record GeminiRequest(
+      List<Content> contents, String cachedContent, GenerationConfig generationConfig) {
+    public GeminiRequest(List<Content> contents) {
+      this(contents, null, null);
+    }
+
+    public GeminiRequest(List<Content> contents, String cachedContent) {
+      this(contents, cachedContent, null);
+    }
+  }
+
+  /** Asks Gemini to answer with JSON matching {@code responseSchema}. */
+  public record GenerationConfig(String responseMimeType, Schema responseSchema) {
+    public static GenerationConfig json(Schema responseSchema) {
+      return new GenerationConfig("application/json", responseSchema);
+    }
+  }
+
+  /** The OpenAPI subset Gemini accepts as a response schema. */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public record Schema(
+      String type,
+      String description,
+      @JsonProperty("enum") List<String> enumValues,
+      Map<String, Schema> properties,
+      List<String> required,
+      List<String> propertyOrdering,
+      Schema items) {
+
+    public static Schema string(String description) {
+      return new Schema("STRING", description, null, null, null, null, null);
+    }
+
+    public static Schema enumeration(String description, List<String> values) {
+      return new Schema("STRING", description, values, null, null, null, null);
+    }
+
+    public static Schema integer(String description) {
+      return new Schema("INTEGER", description, null, null, null, null, null);
+    }
+
+    public static Schema array(String description, Schema items) {
+      return new Schema("ARRAY", description, null, null, null, null, items);
+    }
+
+    /**
+     * An object whose properties are all required and kept in the order of {@code properties}, so
+     * Gemini emits them in that order.
+     */
+    public static Schema object(Map<String, Schema> properties) {
+      Map<String, Schema> ordered = Collections.unmodifiableMap(new LinkedHashMap<>(properties));
+      List<String> names = List.copyOf(ordered.keySet());
+      return new Schema("OBJECT", null, null, ordered, names, names, null);
+    }
+  }
 
   public record Content(List<Part> parts) {}
 
@@ -38,6 +102,13 @@ public class GeminiRecords {
   // Returned from "count" endpoint
   public record GeminiCountResponse(int totalTokens) {}
 
+  // Context caching ("cachedContents" endpoint)
+  public record CachedContentRequest(
+      String model, String displayName, Content systemInstruction, String ttl) {}
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public record CachedContent(String name, String model, String expireTime) {}
+
   // Models
   public record ModelList(List<Model> models) {}
 
@@ -0,0 +1,219 @@
+package com.vchatrola.gherkin;
+
+import com.vchatrola.gherkin.GherkinLine.StepKeyword;
+import com.vchatrola.gherkin.GherkinLine.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The result of {@link GherkinLexer#parse}: every line of the text plus the scenarios, steps,
+ * tables and examples built from them.
+ *
+ * <p>Steps outside of any header (a selection that starts with steps) belong to an implicit
+ * scenario without a header; backgrounds are scenarios whose header is a {@link Type#BACKGROUND}
+ * line. The document also records which keywords, tags and placeholders occur, so callers can
+ * decide what to do without scanning the text again.
+ */
+public final class GherkinDocument {
+  private final CharSequence text;
+  private final List<GherkinLine> lines = new ArrayList<>();
+  private final List<Scenario> scenarios = new ArrayList<>();
+  private final Set<StepKeyword> stepKeywords = EnumSet.noneOf(StepKeyword.class);
+  private final Set<StepKeyword> primaryKeywords = EnumSet.noneOf(StepKeyword.class);
+  private GherkinLine feature;
+  private boolean hasScenarioHeader;
+  private boolean hasTags;
+  private boolean hasPlaceholders;
+
+  GherkinDocument(CharSequence text) {
+    this.text = text;
+  }
+
+  public CharSequence text() {
+    return text;
+  }
+
+  public List<GherkinLine> lines() {
+    return Collections.unmodifiableList(lines);
+  }
+
+  public List<Scenario> scenarios() {
+    return Collections.unmodifiableList(scenarios);
+  }
+
+  /** The {@code Feature:} line, or {@code null}. */
+  public GherkinLine feature() {
+    return feature;
+  }
+
+  public String text(GherkinLine line) {
+    return line.text(text);
+  }
+
+  public String title(GherkinLine line) {
+    return line.title(text);
+  }
+
+  /** Whether a step is written with {@code keyword}. */
+  public boolean hasStep(StepKeyword keyword) {
+    return stepKeywords.contains(keyword);
+  }
+
+  /**
+   * Whether a step belongs to the Given, When or Then part {@code keyword}, either directly or as
+   * an And/But/* step following it.
+   */
+  public boolean hasPart(StepKeyword keyword) {
+    return primaryKeywords.contains(keyword);
+  }
+
+  public boolean hasScenarioHeader() {
+    return hasScenarioHeader;
+  }
+
+  /** Whether the text has tag lines or a JBehave {@code Meta:} section. */
+  public boolean hasTags() {
+    return hasTags;
+  }
+
+  /** Whether a step or scenario title contains a {@code <placeholder>}. */
+  public boolean hasPlaceholders() {
+    return hasPlaceholders;
+  }
+
+  void addLine(GherkinLine line) {
+    lines.add(line);
+    switch (line.type()) {
+      case FEATURE -> feature = feature == null ? line : feature;
+      case SCENARIO -> hasScenarioHeader = true;
+      case TAG, META -> hasTags = true;
+      case STEP -> stepKeywords.add(line.keyword());
+      default -> {}
+    }
+  }
+
+  void addScenario(Scenario scenario) {
+    scenarios.add(scenario);
+  }
+
+  void addPart(StepKeyword primary) {
+    primaryKeywords.add(primary);
+  }
+
+  void markPlaceholder() {
+    hasPlaceholders = true;
+  }
+
+  /** A scenario (or background) with its tags, steps and examples. */
+  public static final class Scenario {
+    private final GherkinLine header;
+    private final List<GherkinLine> tags;
+    private final List<Step> steps = new ArrayList<>();
+    private final List<Examples> examples = new ArrayList<>();
+
+    Scenario(GherkinLine header, List<GherkinLine> tags) {
+      this.header = header;
+      this.tags = tags;
+    }
+
+    /** The header line, or {@code null} for steps that precede any header. */
+    public GherkinLine header() {
+      return header;
+    }
+
+    public boolean isBackground() {
+      return header != null && header.type() == Type.BACKGROUND;
+    }
+
+    public List<GherkinLine> tags() {
+      return Collections.unmodifiableList(tags);
+    }
+
+    public List<Step> steps() {
+      return Collections.unmodifiableList(steps);
+    }
+
+    public List<Examples> examples() {
+      return Collections.unmodifiableList(examples);
+    }
+
+    void addStep(Step step) {
+      steps.add(step);
+    }
+
+    void addExamples(Examples table) {
+      examples.add(table);
+    }
+  }
+
+  /**
+   * A step with its data table rows or doc string lines. {@code part} is the Given/When/Then
+   * keyword the step belongs to, or {@code null} for a continuation without a preceding step.
+   */
+  public static final class Step {
+    private final GherkinLine line;
+    private final StepKeyword part;
+    private final List<GherkinLine> argument = new ArrayList<>();
+
+    Step(GherkinLine line, StepKeyword part) {
+      this.line = line;
+      this.part = part;
+    }
+
+    public GherkinLine line() {
+      return line;
+    }
+
+    public StepKeyword keyword() {
+      return line.keyword();
+    }
+
+    public StepKeyword part() {
+      return part;
+    }
+
+    /** The data table rows or doc string lines (delimiters included) below the step. */
+    public List<GherkinLine> argument() {
+      return Collections.unmodifiableList(argument);
+    }
+
+    public boolean hasArgument() {
+      return !argument.isEmpty();
+    }
+
+    void addArgument(GherkinLine row) {
+      argument.add(row);
+    }
+  }
+
+  /** An {@code Examples:} table of a scenario outline. */
+  public static final class Examples {
+    private final GherkinLine header;
+    private final List<GherkinLine> tags;
+    private final List<GherkinLine> rows = new ArrayList<>();
+
+    Examples(GherkinLine header, List<GherkinLine> tags) {
+      this.header = header;
+      this.tags = tags;
+    }
+
+    public GherkinLine header() {
+      return header;
+    }
+
+    public List<GherkinLine> tags() {
+      return Collections.unmodifiableList(tags);
+    }
+
+    public List<GherkinLine> rows() {
+      return Collections.unmodifiableList(rows);
+    }
+
+    void addRow(GherkinLine row) {
+      rows.add(row);
+    }
+  }
+}
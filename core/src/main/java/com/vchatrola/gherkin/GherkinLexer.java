@@ -0,0 +1,376 @@
+package com.vchatrola.gherkin;
+
+import com.vchatrola.gherkin.GherkinDocument.Examples;
+import com.vchatrola.gherkin.GherkinDocument.Scenario;
+import com.vchatrola.gherkin.GherkinDocument.Step;
+import com.vchatrola.gherkin.GherkinLine.StepKeyword;
+import com.vchatrola.gherkin.GherkinLine.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass lexer for Gherkin ({@code .feature}) and JBehave ({@code .story}) text.
+ *
+ * <p>Lines are classified by their leading keyword on the {@link CharSequence} itself: no regular
+ * expressions, no line splitting and no substrings, so the only allocations are the {@link
+ * GherkinLine}s and the document structure. {@link #classify} and {@link #startsWithKeyword} look
+ * at a single line and allocate nothing.
+ */
+public final class GherkinLexer {
+  private static final String DOC_STRING_QUOTES = "\"\"\"";
+  private static final String DOC_STRING_BACKTICKS = "```";
+
+  private static final Header[] HEADERS = {
+    new Header("Feature:", Type.FEATURE),
+    new Header("Rule:", Type.RULE),
+    new Header("Background:", Type.BACKGROUND),
+    new Header("Scenario:", Type.SCENARIO),
+    new Header("Scenario Outline:", Type.SCENARIO),
+    new Header("Scenario Template:", Type.SCENARIO),
+    new Header("Example:", Type.SCENARIO),
+    new Header("Examples:", Type.EXAMPLES),
+    new Header("Scenarios:", Type.EXAMPLES),
+    new Header("Meta:", Type.META)
+  };
+
+  private static final StepKeyword[] STEP_KEYWORDS = StepKeyword.values();
+
+  /** Characters needed to classify a line: the longest header, or a step keyword and a blank. */
+  private static final int KEYWORD_LOOKAHEAD = keywordLookahead();
+
+  private GherkinLexer() {
+    // Private constructor to prevent instantiation
+  }
+
+  public static GherkinDocument parse(CharSequence text) {
+    GherkinDocument document = new GherkinDocument(text);
+    Builder builder = new Builder(document);
+    int length = text.length();
+    int lineStart = 0;
+    int index = 0;
+    boolean inDocString = false;
+    while (true) {
+      int lineEnd = lineEnd(text, lineStart, length);
+      GherkinLine line;
+      if (inDocString) {
+        int start = skipBlanks(text, lineStart, lineEnd);
+        int end = trimEnd(text, start, lineEnd);
+        inDocString = !isDocStringDelimiter(text, start, end);
+        line = new GherkinLine(index, Type.DOC_STRING, null, start, end, start);
+      } else {
+        line = lex(text, index, lineStart, lineEnd);
+        inDocString = line.type() == Type.DOC_STRING;
+      }
+      builder.accept(line);
+      index++;
+      if (lineEnd == length) {
+        break;
+      }
+      lineStart = nextLineStart(text, lineEnd, length);
+    }
+    return document;
+  }
+
+  /** Returns the first line of {@code text} that is neither blank nor a comment, or null. */
+  public static GherkinLine firstLine(CharSequence text) {
+    int length = text.length();
+    int lineStart = 0;
+    for (int index = 0; ; index++) {
+      int lineEnd = lineEnd(text, lineStart, length);
+      GherkinLine line = lex(text, index, lineStart, lineEnd);
+      if (line.type() != Type.EMPTY && line.type() != Type.COMMENT) {
+        return line;
+      }
+      if (lineEnd == length) {
+        return null;
+      }
+      lineStart = nextLineStart(text, lineEnd, length);
+    }
+  }
+
+  /**
+   * Whether the first line of {@code text[from, to)} that is neither blank nor a comment starts
+   * with a scenario header, a tag, {@code Meta:} or a step keyword, that is, whether the range
+   * can be validated. Only the leading blank and comment lines and the first characters of that
+   * line are read, so the cost does not depend on the size of the range.
+   */
+  public static boolean startsWithKeyword(CharSequence text, int from, int to) {
+    int lineStart = from;
+    while (lineStart < to) {
+      int start = skipBlanks(text, lineStart, to);
+      if (start == to) {
+        return false;
+      }
+      char first = text.charAt(start);
+      if (first == '#') {
+        int commentEnd = lineEnd(text, start, to);
+        if (commentEnd == to) {
+          return false;
+        }
+        lineStart = nextLineStart(text, commentEnd, to);
+      } else if (first == '\n' || first == '\r') {
+        lineStart = nextLineStart(text, start, to);
+      } else {
+        int lookaheadEnd = lineEnd(text, start, Math.min(to, start + KEYWORD_LOOKAHEAD));
+        int end = trimEnd(text, start, lookaheadEnd);
+        return switch (typeOf(text, start, end)) {
+          case SCENARIO, TAG, META -> true;
+          case STEP -> stepKeywordAt(text, start, end) != StepKeyword.OR;
+          default -> false;
+        };
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Classifies the line {@code text[lineStart, lineEnd)} outside of a doc string without
+   * allocating. Step lines are reported as {@link Type#STEP}; use {@link #stepKeyword} for the
+   * keyword.
+   */
+  public static Type classify(CharSequence text, int lineStart, int lineEnd) {
+    int start = skipBlanks(text, lineStart, lineEnd);
+    int end = trimEnd(text, start, lineEnd);
+    return typeOf(text, start, end);
+  }
+
+  /** The step keyword the line {@code text[lineStart, lineEnd)} starts with, or {@code null}. */
+  public static StepKeyword stepKeyword(CharSequence text, int lineStart, int lineEnd) {
+    int start = skipBlanks(text, lineStart, lineEnd);
+    return stepKeywordAt(text, start, trimEnd(text, start, lineEnd));
+  }
+
+  private static GherkinLine lex(CharSequence text, int index, int lineStart, int lineEnd) {
+    int start = skipBlanks(text, lineStart, lineEnd);
+    int end = trimEnd(text, start, lineEnd);
+    Type type = typeOf(text, start, end);
+    StepKeyword keyword = null;
+    int titleStart = start;
+    if (type == Type.STEP) {
+      keyword = stepKeywordAt(text, start, end);
+      titleStart = start + keyword.text().length();
+    } else {
+      Header header = headerAt(text, start, end);
+      if (header != null) {
+        titleStart = start + header.prefix.length();
+      }
+    }
+    return new GherkinLine(index, type, keyword, start, end, titleStart);
+  }
+
+  private static Type typeOf(CharSequence text, int start, int end) {
+    if (start == end) {
+      return Type.EMPTY;
+    }
+    char first = text.charAt(start);
+    switch (first) {
+      case '#':
+        return Type.COMMENT;
+      case '@':
+        return Type.TAG;
+      case '|':
+        return Type.TABLE_ROW;
+      default:
+        break;
+    }
+    if (isDocStringDelimiter(text, start, end)) {
+      return Type.DOC_STRING;
+    }
+    Header header = headerAt(text, start, end);
+    if (header != null) {
+      return header.type;
+    }
+    return stepKeywordAt(text, start, end) != null ? Type.STEP : Type.TEXT;
+  }
+
+  private static Header headerAt(CharSequence text, int start, int end) {
+    for (Header header : HEADERS) {
+      if (regionMatches(text, start, end, header.prefix)) {
+        return header;
+      }
+    }
+    return null;
+  }
+
+  /** A step keyword followed by a blank and more text. */
+  private static StepKeyword stepKeywordAt(CharSequence text, int start, int end) {
+    for (StepKeyword keyword : STEP_KEYWORDS) {
+      String word = keyword.text();
+      int after = start + word.length();
+      if (after < end && regionMatches(text, start, end, word) && isBlank(text.charAt(after))) {
+        return keyword;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isDocStringDelimiter(CharSequence text, int start, int end) {
+    return regionMatches(text, start, end, DOC_STRING_QUOTES)
+        || regionMatches(text, start, end, DOC_STRING_BACKTICKS);
+  }
+
+  private static boolean regionMatches(CharSequence text, int start, int end, String prefix) {
+    if (end - start < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (text.charAt(start + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static boolean hasPlaceholder(CharSequence text, int start, int end) {
+    int open = -1;
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      if (c == '<') {
+        open = i;
+      } else if (c == '>' && open >= 0 && i > open + 1) {
+        return true;
+      } else if (isBlank(c)) {
+        open = -1;
+      }
+    }
+    return false;
+  }
+
+  private static int lineEnd(CharSequence text, int lineStart, int limit) {
+    int end = lineStart;
+    while (end < limit && text.charAt(end) != '\n' && text.charAt(end) != '\r') {
+      end++;
+    }
+    return end;
+  }
+
+  /** The start of the line after the line break at {@code lineEnd}. */
+  private static int nextLineStart(CharSequence text, int lineEnd, int limit) {
+    int next = lineEnd + 1;
+    if (text.charAt(lineEnd) == '\r' && next < limit && text.charAt(next) == '\n') {
+      next++;
+    }
+    return next;
+  }
+
+  private static int skipBlanks(CharSequence text, int from, int to) {
+    while (from < to && isBlank(text.charAt(from))) {
+      from++;
+    }
+    return from;
+  }
+
+  private static int trimEnd(CharSequence text, int from, int to) {
+    while (to > from && isBlank(text.charAt(to - 1))) {
+      to--;
+    }
+    return to;
+  }
+
+  private static boolean isBlank(char c) {
+    return c == ' ' || c == '\t' || c == '\f' || c == '\u00A0';
+  }
+
+  private static int keywordLookahead() {
+    int longest = 0;
+    for (Header header : HEADERS) {
+      longest = Math.max(longest, header.prefix.length());
+    }
+    for (StepKeyword keyword : STEP_KEYWORDS) {
+      longest = Math.max(longest, keyword.text().length() + 2);
+    }
+    return longest;
+  }
+
+  private record Header(String prefix, Type type) {}
+
+  /** Builds the scenarios of a document from its lines in order. */
+  private static final class Builder {
+    private final GherkinDocument document;
+    private List<GherkinLine> pendingTags = new ArrayList<>();
+    private Scenario scenario;
+    private Examples examples;
+    private Step step;
+    private StepKeyword part;
+
+    Builder(GherkinDocument document) {
+      this.document = document;
+    }
+
+    void accept(GherkinLine line) {
+      document.addLine(line);
+      switch (line.type()) {
+        case TAG -> pendingTags.add(line);
+        case FEATURE, RULE -> {
+          pendingTags = new ArrayList<>();
+          endScenario();
+        }
+        case SCENARIO, BACKGROUND -> {
+          scenario = new Scenario(line, takeTags());
+          document.addScenario(scenario);
+          examples = null;
+          step = null;
+          part = null;
+          markPlaceholder(line);
+        }
+        case EXAMPLES -> {
+          examples = new Examples(line, takeTags());
+          currentScenario().addExamples(examples);
+          step = null;
+        }
+        case STEP -> {
+          if (line.keyword().isPrimary()) {
+            part = line.keyword();
+          }
+          step = new Step(line, part);
+          currentScenario().addStep(step);
+          examples = null;
+          if (part != null) {
+            document.addPart(part);
+          }
+          markPlaceholder(line);
+        }
+        case TABLE_ROW -> {
+          if (examples != null) {
+            examples.addRow(line);
+          } else if (step != null) {
+            step.addArgument(line);
+          }
+        }
+        case DOC_STRING -> {
+          if (step != null) {
+            step.addArgument(line);
+          }
+        }
+        default -> {}
+      }
+    }
+
+    private void markPlaceholder(GherkinLine line) {
+      if (hasPlaceholder(document.text(), line.titleStart(), line.end())) {
+        document.markPlaceholder();
+      }
+    }
+
+    private Scenario currentScenario() {
+      if (scenario == null) {
+        scenario = new Scenario(null, takeTags());
+        document.addScenario(scenario);
+      }
+      return scenario;
+    }
+
+    private List<GherkinLine> takeTags() {
+      List<GherkinLine> tags = pendingTags;
+      pendingTags = new ArrayList<>();
+      return tags;
+    }
+
+    private void endScenario() {
+      scenario = null;
+      examples = null;
+      step = null;
+      part = null;
+    }
+  }
+}
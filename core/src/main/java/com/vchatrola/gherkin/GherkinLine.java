@@ -0,0 +1,100 @@
+package com.vchatrola.gherkin;
+
+/**
+ * One classified line of Gherkin text. Offsets point into the lexed text, so a line carries no
+ * copy of its content.
+ *
+ * @param index zero-based line number
+ * @param start offset of the first non-blank character
+ * @param end offset after the last non-blank character ({@code start} for empty lines)
+ * @param titleStart offset of the text after the keyword (and colon, for headers); {@code start}
+ *     for lines without a keyword
+ * @param keyword the step keyword for {@link Type#STEP} lines, otherwise {@code null}
+ */
+public record GherkinLine(
+    int index, Type type, StepKeyword keyword, int start, int end, int titleStart) {
+
+  public String text(CharSequence source) {
+    return source.subSequence(start, end).toString();
+  }
+
+  /** The text after the keyword, without leading blanks. */
+  public String title(CharSequence source) {
+    int from = titleStart;
+    while (from < end && Character.isWhitespace(source.charAt(from))) {
+      from++;
+    }
+    return source.subSequence(from, end).toString();
+  }
+
+  public boolean isStep() {
+    return type == Type.STEP;
+  }
+
+  /** Whether a result for this line is expected, that is, it is neither blank nor structural. */
+  public boolean isReportable() {
+    return switch (type) {
+      case STEP, TAG, SCENARIO, BACKGROUND, META -> true;
+      default -> false;
+    };
+  }
+
+  /** Whether a selection starting with this line can be validated on its own. */
+  public boolean startsValidation() {
+    return switch (type) {
+      case SCENARIO, TAG, META -> true;
+      case STEP -> keyword.isPrimary();
+      default -> false;
+    };
+  }
+
+  public enum Type {
+    EMPTY,
+    COMMENT,
+    TAG,
+    FEATURE,
+    RULE,
+    BACKGROUND,
+    /** {@code Scenario:}, {@code Example:} and the outline/template variants. */
+    SCENARIO,
+    /** {@code Examples:} or JBehave's {@code Scenarios:} */
+    EXAMPLES,
+    /** JBehave's {@code Meta:} header; its properties follow as {@link #TAG} lines. */
+    META,
+    STEP,
+    TABLE_ROW,
+    /** A doc string delimiter or content line. */
+    DOC_STRING,
+    /** Free text, such as a description below a header. */
+    TEXT
+  }
+
+  public enum StepKeyword {
+    GIVEN("Given"),
+    WHEN("When"),
+    THEN("Then"),
+    AND("And"),
+    BUT("But"),
+    ASTERISK("*"),
+    /** Not a Gherkin keyword; recognized so that it can be reported. */
+    OR("Or");
+
+    private final String text;
+
+    StepKeyword(String text) {
+      this.text = text;
+    }
+
+    public String text() {
+      return text;
+    }
+
+    public boolean isPrimary() {
+      return this == GIVEN || this == WHEN || this == THEN;
+    }
+
+    public boolean isContinuation() {
+      return this == AND || this == BUT || this == ASTERISK;
+    }
+  }
+}
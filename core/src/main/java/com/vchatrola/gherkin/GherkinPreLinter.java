@@ -0,0 +1,341 @@
+package com.vchatrola.gherkin;
+
+import com.vchatrola.config.RuleSet;
+import com.vchatrola.gherkin.GherkinLine.StepKeyword;
+import com.vchatrola.result.ValidationResult;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Checks the mechanical rules of the default configuration locally, before anything is sent to
+ * Gemini.
+ *
+ * <p>Each {@link Rule} implements one requirement (or task) of {@code default-rules.json} and is
+ * only active while the merged configuration still contains that text verbatim, so a custom
+ * configuration that rewords or removes a requirement leaves it to Gemini. Active requirements are
+ * dropped from the prompt by {@link #promptRules()}; tasks that cover more than the mechanical
+ * check stay in it. The placeholder check is a Gherkin syntax check and is always active.
+ *
+ * <p>{@link #lint(GherkinDocument)} walks the scenarios and steps of a parsed document and reports
+ * one invalid {@link ValidationResult} per offending line, with all of its problems. Gemini still
+ * checks the text against the remaining rules; {@link #merge} combines both reports.
+ */
+public final class GherkinPreLinter {
+  static final int MAX_CONTINUATION_STEPS = 3;
+
+  private final Set<Rule> rules;
+  private final RuleSet promptRules;
+
+  private GherkinPreLinter(Set<Rule> rules, RuleSet promptRules) {
+    this.rules = rules;
+    this.promptRules = promptRules;
+  }
+
+  /** Returns a linter with the rules whose requirement texts are part of {@code config}. */
+  public static GherkinPreLinter forRules(RuleSet config) {
+    Set<Rule> active = EnumSet.noneOf(Rule.class);
+    Set<String> enforced = new HashSet<>();
+    for (Rule rule : Rule.values()) {
+      if (rule.text == null) {
+        active.add(rule);
+      } else if (config.requirements().contains(rule.text)
+          || config.tag().requirements().contains(rule.text)) {
+        active.add(rule);
+        enforced.add(rule.text);
+      } else if (config.tasks().contains(rule.text)) {
+        active.add(rule);
+      }
+    }
+    return new GherkinPreLinter(active, config.withoutRequirements(enforced));
+  }
+
+  /** The configured rules without the requirements this linter enforces. */
+  public RuleSet promptRules() {
+    return promptRules;
+  }
+
+  /** Returns the problems found in {@code text}, in line order; empty when there are none. */
+  public List<ValidationResult> lint(String text) {
+    return lint(GherkinLexer.parse(text));
+  }
+
+  /** Returns the problems found in {@code document}, in line order; empty when there are none. */
+  public List<ValidationResult> lint(GherkinDocument document) {
+    Map<Integer, Finding> findings = new TreeMap<>();
+    for (GherkinLine line : document.lines()) {
+      if (line.type() == GherkinLine.Type.TAG) {
+        checkTags(document, line, findings);
+      }
+    }
+    for (GherkinDocument.Scenario scenario : document.scenarios()) {
+      lintScenario(document, scenario, findings);
+    }
+
+    List<ValidationResult> results = new ArrayList<>(findings.size());
+    for (Map.Entry<Integer, Finding> entry : findings.entrySet()) {
+      results.add(entry.getValue().toResult(entry.getKey()));
+    }
+    return results;
+  }
+
+  /**
+   * Merges the pre-lint {@code findings} into Gemini's {@code results} by line. A finding replaces
+   * Gemini's verdict for its line, findings for lines Gemini did not report are inserted in line
+   * order, and results without a line keep their place.
+   */
+  public static List<ValidationResult> merge(
+      List<ValidationResult> findings, List<ValidationResult> results) {
+    if (findings.isEmpty()) {
+      return results;
+    }
+    Set<Integer> lintedLines = new HashSet<>();
+    findings.forEach(finding -> lintedLines.add(finding.line()));
+    List<ValidationResult> merged = new ArrayList<>(results.size() + findings.size());
+    int next = 0;
+    for (ValidationResult result : results) {
+      int line = result.line();
+      if (line != ValidationResult.UNKNOWN_LINE) {
+        while (next < findings.size() && findings.get(next).line() <= line) {
+          merged.add(findings.get(next++));
+        }
+        if (lintedLines.contains(line)) {
+          continue;
+        }
+      }
+      merged.add(result);
+    }
+    merged.addAll(findings.subList(next, findings.size()));
+    return merged;
+  }
+
+  private void lintScenario(
+      GherkinDocument document, GherkinDocument.Scenario scenario, Map<Integer, Finding> findings) {
+    StepKeyword phase = null;
+    StepKeyword previousPrimary = null;
+    int continuations = 0;
+    boolean hasExamples = !scenario.examples().isEmpty();
+    for (GherkinDocument.Step step : scenario.steps()) {
+      GherkinLine line = step.line();
+      StepKeyword keyword = step.keyword();
+      if (keyword == StepKeyword.OR) {
+        report(document, findings, line, Rule.NO_OR_STEPS, null);
+      } else if (keyword.isPrimary()) {
+        if (phase != null && keyword.ordinal() < phase.ordinal()) {
+          report(document, findings, line, Rule.STEP_ORDER, null);
+        } else if (keyword == previousPrimary) {
+          report(
+              document,
+              findings,
+              line,
+              Rule.AND_INSTEAD_OF_REPEATS,
+              StepKeyword.AND.text() + document.text().subSequence(line.titleStart(), line.end()));
+        }
+        phase = phase == null || keyword.ordinal() > phase.ordinal() ? keyword : phase;
+        previousPrimary = keyword;
+        continuations = 0;
+      } else if (++continuations == MAX_CONTINUATION_STEPS + 1) {
+        report(document, findings, line, Rule.CONTINUATION_LIMIT, null);
+      }
+
+      if (endsWithPunctuation(document.text(), line, step.hasArgument())) {
+        report(document, findings, line, Rule.TRAILING_PUNCTUATION, null);
+      }
+      if (!hasExamples
+          && GherkinLexer.hasPlaceholder(document.text(), line.titleStart(), line.end())) {
+        report(document, findings, line, Rule.PLACEHOLDER_WITHOUT_EXAMPLES, null);
+      }
+    }
+  }
+
+  private void report(
+      GherkinDocument document,
+      Map<Integer, Finding> findings,
+      GherkinLine line,
+      Rule rule,
+      String corrected) {
+    if (!rules.contains(rule)) {
+      return;
+    }
+    Finding finding =
+        findings.computeIfAbsent(line.index(), ignored -> new Finding(document.text(line)));
+    finding.add(rule, corrected);
+  }
+
+  private void checkTags(
+      GherkinDocument document, GherkinLine tagLine, Map<Integer, Finding> findings) {
+    if (!rules.contains(Rule.TAG_FORMAT)) {
+      return;
+    }
+    String line = document.text(tagLine);
+    StringBuilder corrected = new StringBuilder(line.length());
+    boolean invalid = false;
+    for (String token : line.split(" ")) {
+      if (token.isEmpty()) {
+        continue;
+      }
+      if (!corrected.isEmpty()) {
+        corrected.append(' ');
+      }
+      if (token.startsWith("@") && !isValidTag(token)) {
+        invalid = true;
+        corrected.append(toTag(token));
+      } else {
+        corrected.append(token);
+      }
+    }
+    if (invalid) {
+      report(document, findings, tagLine, Rule.TAG_FORMAT, corrected.toString());
+    }
+  }
+
+  private static boolean isValidTag(String tag) {
+    boolean previousHyphen = true;
+    for (int i = 1; i < tag.length(); i++) {
+      char c = tag.charAt(i);
+      if (c == '-') {
+        if (previousHyphen) {
+          return false;
+        }
+        previousHyphen = true;
+      } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+        previousHyphen = false;
+      } else {
+        return false;
+      }
+    }
+    return !previousHyphen;
+  }
+
+  /** Lowercases {@code tag} and joins its words (split at case changes and separators) by '-'. */
+  private static String toTag(String tag) {
+    StringBuilder out = new StringBuilder(tag.length() + 4).append('@');
+    boolean pendingHyphen = false;
+    for (int i = 1; i < tag.length(); i++) {
+      char c = tag.charAt(i);
+      if (!Character.isLetterOrDigit(c)) {
+        pendingHyphen = out.length() > 1;
+        continue;
+      }
+      boolean wordStart =
+          Character.isUpperCase(c) && i > 1 && Character.isLowerCase(tag.charAt(i - 1));
+      if ((pendingHyphen || wordStart) && out.length() > 1) {
+        out.append('-');
+      }
+      out.append(Character.toLowerCase(c));
+      pendingHyphen = false;
+    }
+    return out.toString();
+  }
+
+  private static boolean endsWithPunctuation(
+      CharSequence text, GherkinLine line, boolean hasArgument) {
+    char last = text.charAt(line.end() - 1);
+    if (last == ':') {
+      // A colon introduces a data table or doc string.
+      return !hasArgument;
+    }
+    return last == '.' || last == ',' || last == ';' || last == '!' || last == '?';
+  }
+
+  /** The local checks and the configuration text each of them implements. */
+  enum Rule {
+    STEP_ORDER(
+        "Steps must follow Given -> When -> Then order and cannot repeat. A Given cannot follow a"
+            + " When or Then, and a When cannot follow a Then.",
+        "Steps must follow Given -> When -> Then order.",
+        "Move this step to its place in the Given -> When -> Then order or split the scenario."),
+    CONTINUATION_LIMIT(
+        "Limit scenarios to 2-3 'And' steps per Given/When/Then. Split into multiple scenarios if"
+            + " needed.",
+        "More than " + MAX_CONTINUATION_STEPS + " 'And' steps follow the same Given/When/Then.",
+        "Split the scenario into multiple scenarios."),
+    AND_INSTEAD_OF_REPEATS(
+        "Ensure that for multiple Given, When, or Then statements, the user connects them using"
+            + " 'And' instead of repeating the keywords.",
+        "Repeats the previous step keyword instead of using 'And'.",
+        null),
+    NO_OR_STEPS(
+        "Ensure steps do not include an 'Or' step. Suggest using separate scenarios to represent"
+            + " alternative actions.",
+        "'Or' is not a Gherkin step keyword.",
+        "Use separate scenarios to represent alternative actions."),
+    TAG_FORMAT(
+        "Tags must be prefixed with the \"@\" symbol and written in lowercase using hyphens (-) to"
+            + " separate words.",
+        "Tags must be lowercase with words separated by hyphens.",
+        null),
+    TRAILING_PUNCTUATION(
+        "Check for syntax errors, tense consistency, invalid keywords, missing elements, grammar"
+            + " issues, and improper punctuation (no step should end with punctuation).",
+        "Steps must not end with punctuation.",
+        null),
+    PLACEHOLDER_WITHOUT_EXAMPLES(
+        null,
+        "Uses a <placeholder> but the scenario has no Examples table.",
+        "Add an Examples table or replace the placeholder with a concrete value.");
+
+    private final String text;
+    private final String reason;
+    private final String suggestion;
+
+    Rule(String text, String reason, String suggestion) {
+      this.text = text;
+      this.reason = reason;
+      this.suggestion = suggestion;
+    }
+
+    String text() {
+      return text;
+    }
+  }
+
+  /** The problems of one line and its text with the mechanical fixes applied. */
+  private static final class Finding {
+    private final String title;
+    private final List<String> reasons = new ArrayList<>(2);
+    private final List<String> advice = new ArrayList<>(2);
+    private String corrected;
+
+    Finding(String title) {
+      this.title = title;
+      this.corrected = title;
+    }
+
+    void add(Rule rule, String correctedLine) {
+      reasons.add(rule.reason);
+      if (correctedLine != null) {
+        corrected = correctedLine;
+      }
+      if (rule == Rule.TRAILING_PUNCTUATION) {
+        corrected = stripTrailingPunctuation(corrected);
+      }
+      if (rule.suggestion != null) {
+        advice.add(rule.suggestion);
+      }
+    }
+
+    ValidationResult toResult(int line) {
+      List<String> parts = new ArrayList<>(advice.size() + 1);
+      if (!corrected.equals(title) || advice.isEmpty()) {
+        parts.add(corrected);
+      }
+      parts.addAll(advice);
+      String suggestion = String.join("\n", parts);
+      return new ValidationResult(
+          line, title, ValidationResult.Status.INVALID, String.join(" ", reasons), suggestion);
+    }
+
+    private static String stripTrailingPunctuation(String text) {
+      int end = text.length();
+      while (end > 0 && ".,;:!?".indexOf(text.charAt(end - 1)) >= 0) {
+        end--;
+      }
+      return text.substring(0, end).stripTrailing();
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package com.vchatrola.gherkin;
+
+import com.vchatrola.gherkin.GherkinLine.Type;
+import com.vchatrola.result.ValidationResult;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the text of a {@code .feature} or {@code .story} file into independent scenarios, using
+ * the lines and scenarios of {@link GherkinLexer#parse}.
+ *
+ * <p>A scenario starts at a {@code Scenario:}/{@code Scenario Outline:} line, together with the
+ * tag lines directly above it, and runs until the next scenario or a {@code Feature:}/{@code
+ * Background:}/{@code Rule:} line. Lines before the first scenario are ignored.
+ *
+ * <p>A {@code Background:} is not a scenario of its own: its text is prepended to every scenario
+ * that follows it, so that each scenario is validated with the shared Given steps. The background
+ * of a {@code Rule:} applies to the scenarios of that rule, after the background of the feature.
+ */
+public final class ScenarioSplitter {
+
+  private ScenarioSplitter() {
+    // Private constructor to prevent instantiation
+  }
+
+  public static List<Scenario> split(String text) {
+    List<Scenario> scenarios = new ArrayList<>();
+    if (text == null || text.isBlank()) {
+      return scenarios;
+    }
+    GherkinDocument document = GherkinLexer.parse(text);
+    List<GherkinLine> lines = document.lines();
+    Context featureBackground = Context.NONE;
+    Context ruleBackground = Context.NONE;
+    boolean inRule = false;
+    int scanned = 0;
+    for (GherkinDocument.Scenario parsed : document.scenarios()) {
+      GherkinLine header = parsed.header();
+      if (header == null) {
+        continue;
+      }
+      for (; scanned < header.index(); scanned++) {
+        Type type = lines.get(scanned).type();
+        if (type == Type.FEATURE) {
+          featureBackground = Context.NONE;
+          ruleBackground = Context.NONE;
+          inRule = false;
+        } else if (type == Type.RULE) {
+          ruleBackground = Context.NONE;
+          inRule = true;
+        }
+      }
+      int start = firstLine(lines, header.index());
+      int last = lastLine(lines, header.index());
+      String body = text.substring(lines.get(start).start(), lines.get(last).end());
+      Context section = new Context(body, last - start + 1);
+      if (parsed.isBackground()) {
+        if (inRule) {
+          ruleBackground = section;
+        } else {
+          featureBackground = section;
+        }
+        continue;
+      }
+      Context context = featureBackground.append(ruleBackground);
+      scenarios.add(new Scenario(start, context.append(section).text(), context.lineCount()));
+    }
+    return scenarios;
+  }
+
+  /** The first tag line directly above the header (blank and comment lines in between allowed). */
+  private static int firstLine(List<GherkinLine> lines, int headerIndex) {
+    int first = headerIndex;
+    for (int i = headerIndex - 1; i >= 0; i--) {
+      Type type = lines.get(i).type();
+      if (type == Type.TAG) {
+        first = i;
+      } else if (type != Type.EMPTY && type != Type.COMMENT) {
+        break;
+      }
+    }
+    return first;
+  }
+
+  /** The last non-blank line before the next header (or the tags above it). */
+  private static int lastLine(List<GherkinLine> lines, int headerIndex) {
+    int end = lines.size();
+    for (int i = headerIndex + 1; i < lines.size(); i++) {
+      if (isSectionStart(lines.get(i).type())) {
+        end = firstLine(lines, i);
+        break;
+      }
+    }
+    int last = end - 1;
+    while (last > headerIndex && lines.get(last).type() == Type.EMPTY) {
+      last--;
+    }
+    return last;
+  }
+
+  private static boolean isSectionStart(Type type) {
+    return switch (type) {
+      case FEATURE, RULE, BACKGROUND, SCENARIO -> true;
+      default -> false;
+    };
+  }
+
+  /** Text prepended to a scenario, and its number of lines. */
+  private record Context(String text, int lineCount) {
+    static final Context NONE = new Context("", 0);
+
+    Context append(Context next) {
+      if (lineCount == 0) {
+        return next;
+      }
+      if (next.lineCount == 0) {
+        return this;
+      }
+      return new Context(text + "\n" + next.text, lineCount + next.lineCount);
+    }
+  }
+
+  /**
+   * A scenario and the zero-based line of the file it starts at. {@code text} begins with {@code
+   * contextLines} lines of background that are not part of the scenario itself.
+   */
+  public record Scenario(int startLine, String text, int contextLines) {
+
+    /**
+     * Maps results for lines of {@link #text} to lines of the file. Results for background lines
+     * are dropped so that a background is not reported once per scenario; results without a line
+     * are placed on the first line of the scenario.
+     */
+    public List<ValidationResult> toFileLines(List<ValidationResult> results) {
+      List<ValidationResult> mapped = new ArrayList<>(results.size());
+      for (ValidationResult result : results) {
+        if (result.line() == ValidationResult.UNKNOWN_LINE) {
+          mapped.add(result.withLine(startLine));
+        } else if (result.line() >= contextLines) {
+          mapped.add(result.withLine(startLine + result.line() - contextLines));
+        }
+      }
+      return mapped;
+    }
+  }
+}
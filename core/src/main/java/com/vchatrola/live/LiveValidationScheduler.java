@@ -0,0 +1,231 @@
+package com.vchatrola.live;
+
+import com.vchatrola.cache.ValidationResultCache;
+import com.vchatrola.result.ValidationResult;
+import com.vchatrola.util.GherkinLintLogger;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debounces and runs the Gemini checks of live (as-you-type) validation.
+ *
+ * <p>Checks are keyed by a hash of the scenario they validate, so only scenarios whose text changed
+ * since their last check are sent again. Each owner (an open file) has at most one pending batch:
+ * scheduling again within the debounce delay replaces it, and checks that are already running are
+ * cancelled once their scenario is no longer part of the owner's latest batch. Completed results
+ * are kept in an LRU cache and served by {@link #results(String)}.
+ *
+ * <p>At most {@code maxConcurrentChecks} checks run at a time; the others wait for a slot, so
+ * opening a file with many unchecked scenarios does not use up the request budget at once. A check
+ * that fails (for example because it was rate-limited) is not scheduled again for {@code
+ * retryDelayMillis}, instead of being retried on every pass.
+ */
+public class LiveValidationScheduler implements AutoCloseable {
+  private final long debounceMillis;
+  private final Semaphore slots;
+  private final long retryDelayMillis;
+  private final ScheduledExecutorService timer;
+  private final ExecutorService workers;
+  private final ValidationResultCache<List<ValidationResult>> results;
+  private final Map<String, OwnerState> owners = new HashMap<>();
+  private final Map<String, Long> failedUntil = new HashMap<>();
+  private long generations;
+
+  public LiveValidationScheduler(
+      long debounceMillis,
+      int maxConcurrentChecks,
+      long retryDelayMillis,
+      int maxEntries,
+      long ttlMillis,
+      ScheduledExecutorService timer,
+      ExecutorService workers) {
+    this.debounceMillis = debounceMillis;
+    this.slots = new Semaphore(Math.max(1, maxConcurrentChecks));
+    this.retryDelayMillis = retryDelayMillis;
+    this.timer = timer;
+    this.workers = workers;
+    this.results = new ValidationResultCache<>(maxEntries, ttlMillis);
+  }
+
+  /** The results of the last completed check for {@code key}, or {@code null}. */
+  public List<ValidationResult> results(String key) {
+    return results.get(key);
+  }
+
+  /** Stores results obtained elsewhere (for example from the disk cache) for {@code key}. */
+  public void complete(String key, List<ValidationResult> checked) {
+    results.put(key, checked);
+  }
+
+  /**
+   * Replaces the checks scheduled for {@code owner} by {@code checks} (scenario key to check). The
+   * checks start after the debounce delay unless they are replaced again first; keys with results,
+   * a running check or a recently failed check are skipped. {@code onComplete} runs after each
+   * check that produced results.
+   */
+  public synchronized void schedule(
+      String owner, Map<String, Callable<List<ValidationResult>>> checks, Runnable onComplete) {
+    OwnerState state = owners.computeIfAbsent(owner, ignored -> new OwnerState());
+    state.cancelPending();
+    state.cancelRunningExcept(checks.keySet());
+    long now = System.currentTimeMillis();
+    failedUntil.values().removeIf(until -> until <= now);
+    Map<String, Callable<List<ValidationResult>>> due = new HashMap<>(checks);
+    due.keySet()
+        .removeIf(
+            key ->
+                results.get(key) != null
+                    || state.running.containsKey(key)
+                    || failedUntil.containsKey(key));
+    if (due.isEmpty()) {
+      if (state.running.isEmpty()) {
+        owners.remove(owner);
+      }
+      return;
+    }
+    long generation = ++generations;
+    state.generation = generation;
+    state.pending =
+        timer.schedule(
+            () -> start(owner, generation, due, onComplete), debounceMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Cancels everything scheduled or running for {@code owner}, such as a closed file. */
+  public synchronized void cancel(String owner) {
+    OwnerState state = owners.remove(owner);
+    if (state != null) {
+      state.cancelPending();
+      state.cancelRunningExcept(List.of());
+    }
+  }
+
+  /** Whether a check for {@code owner} is scheduled or running. */
+  public synchronized boolean isBusy(String owner) {
+    return owners.containsKey(owner);
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      for (OwnerState state : owners.values()) {
+        state.cancelPending();
+        state.cancelRunningExcept(List.of());
+      }
+      owners.clear();
+    }
+    timer.shutdownNow();
+    workers.shutdownNow();
+  }
+
+  private synchronized void start(
+      String owner,
+      long generation,
+      Map<String, Callable<List<ValidationResult>>> due,
+      Runnable onComplete) {
+    OwnerState state = owners.get(owner);
+    if (state == null || state.generation != generation) {
+      // Replaced by a later schedule() while this one was waiting for the lock.
+      return;
+    }
+    state.pending = null;
+    for (Map.Entry<String, Callable<List<ValidationResult>>> check : due.entrySet()) {
+      String key = check.getKey();
+      Object token = new Object();
+      Future<?> future =
+          workers.submit(() -> run(owner, key, token, check.getValue(), onComplete));
+      state.running.put(key, new RunningCheck(token, future));
+    }
+  }
+
+  private void run(
+      String owner,
+      String key,
+      Object token,
+      Callable<List<ValidationResult>> check,
+      Runnable onComplete) {
+    boolean completed = false;
+    try {
+      slots.acquire();
+      try {
+        List<ValidationResult> checked = check.call();
+        if (checked != null && !Thread.currentThread().isInterrupted()) {
+          results.put(key, checked);
+          completed = true;
+        }
+      } finally {
+        slots.release();
+      }
+    } catch (CancellationException | InterruptedException e) {
+      GherkinLintLogger.debugVerbose("Live validation check cancelled.");
+    } catch (Exception e) {
+      if (Thread.currentThread().isInterrupted()) {
+        GherkinLintLogger.debugVerbose("Live validation check cancelled.");
+      } else {
+        GherkinLintLogger.debug("Live validation check failed; holding it off.", e);
+        holdOff(key);
+      }
+    } finally {
+      finish(owner, key, token);
+    }
+    if (completed) {
+      onComplete.run();
+    }
+  }
+
+  private synchronized void holdOff(String key) {
+    failedUntil.put(key, System.currentTimeMillis() + retryDelayMillis);
+  }
+
+  private synchronized void finish(String owner, String key, Object token) {
+    OwnerState state = owners.get(owner);
+    if (state == null) {
+      return;
+    }
+    RunningCheck running = state.running.get(key);
+    if (running != null && running.token() == token) {
+      state.running.remove(key);
+    }
+    if (state.pending == null && state.running.isEmpty()) {
+      owners.remove(owner);
+    }
+  }
+
+  /** A submitted check; the token tells it apart from a later check of the same scenario. */
+  private record RunningCheck(Object token, Future<?> future) {}
+
+  /** The pending debounce and the running checks of one owner. */
+  private static final class OwnerState {
+    private final Map<String, RunningCheck> running = new HashMap<>();
+    private ScheduledFuture<?> pending;
+    private long generation;
+
+    void cancelPending() {
+      if (pending != null) {
+        pending.cancel(false);
+        pending = null;
+      }
+    }
+
+    void cancelRunningExcept(Collection<String> keys) {
+      Iterator<Map.Entry<String, RunningCheck>> iterator = running.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<String, RunningCheck> entry = iterator.next();
+        if (!keys.contains(entry.getKey())) {
+          entry.getValue().future().cancel(true);
+          iterator.remove();
+        }
+      }
+    }
+  }
+}
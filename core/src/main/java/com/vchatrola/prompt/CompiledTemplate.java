@@ -0,0 +1,134 @@
+package com.vchatrola.prompt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A prompt template parsed once into literal segments and {@code {NAME}} placeholder slots.
+ *
+ * <p>Rendering appends literals and slot values to a caller-supplied buffer in one pass, instead
+ * of copying the whole text once per {@code String.replace}. The indentation of a slot that stands
+ * alone on its line is recorded at compile time, so writers of nested lists need no regex lookups.
+ * Slot names consist of upper-case letters and underscores; other braces are literal text.
+ */
+public final class CompiledTemplate {
+  private final String[] literals;
+  private final String[] slots;
+  private final String[] indentations;
+  private final int literalLength;
+
+  /** Appends the value of a slot to the output buffer. */
+  @FunctionalInterface
+  public interface SlotWriter {
+    /**
+     * @param slot the slot name without braces
+     * @param indentation the whitespace before the slot when it is alone on its line, else empty
+     */
+    void write(String slot, String indentation, StringBuilder out);
+  }
+
+  private CompiledTemplate(String[] literals, String[] slots, String[] indentations) {
+    this.literals = literals;
+    this.slots = slots;
+    this.indentations = indentations;
+    int length = 0;
+    for (String literal : literals) {
+      length += literal.length();
+    }
+    this.literalLength = length;
+  }
+
+  public static CompiledTemplate compile(String template) {
+    List<String> literals = new ArrayList<>();
+    List<String> slots = new ArrayList<>();
+    List<String> indentations = new ArrayList<>();
+    int literalStart = 0;
+    int i = 0;
+    while (i < template.length()) {
+      int end = slotEnd(template, i);
+      if (end < 0) {
+        i++;
+        continue;
+      }
+      literals.add(template.substring(literalStart, i));
+      slots.add(template.substring(i + 1, end));
+      indentations.add(indentationBefore(template, i, end + 1));
+      i = end + 1;
+      literalStart = i;
+    }
+    literals.add(template.substring(literalStart));
+    return new CompiledTemplate(
+        literals.toArray(String[]::new),
+        slots.toArray(String[]::new),
+        indentations.toArray(String[]::new));
+  }
+
+  /** Renders the template into {@code out}, asking {@code writer} for every slot value. */
+  public void render(StringBuilder out, SlotWriter writer) {
+    out.ensureCapacity(out.length() + literalLength);
+    for (int i = 0; i < slots.length; i++) {
+      out.append(literals[i]);
+      writer.write(slots[i], indentations[i], out);
+    }
+    out.append(literals[slots.length]);
+  }
+
+  public boolean hasSlot(String slot) {
+    return indexOf(slot) >= 0;
+  }
+
+  /** The indentation recorded for {@code slot}; see {@link SlotWriter#write}. */
+  public String indentation(String slot) {
+    int index = indexOf(slot);
+    if (index < 0) {
+      throw new IllegalArgumentException("Template has no slot {" + slot + "}.");
+    }
+    return indentations[index];
+  }
+
+  /** Length of the template without its slots; a lower bound for the rendered size. */
+  public int literalLength() {
+    return literalLength;
+  }
+
+  private int indexOf(String slot) {
+    for (int i = 0; i < slots.length; i++) {
+      if (slots[i].equals(slot)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Returns the index of the closing brace if a slot starts at {@code start}, else -1. */
+  private static int slotEnd(String template, int start) {
+    if (template.charAt(start) != '{') {
+      return -1;
+    }
+    int i = start + 1;
+    while (i < template.length()) {
+      char c = template.charAt(i);
+      if (c == '}') {
+        return i > start + 1 ? i : -1;
+      }
+      if (!(c == '_' || (c >= 'A' && c <= 'Z'))) {
+        return -1;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  private static String indentationBefore(String template, int slotStart, int slotEnd) {
+    if (slotEnd < template.length() && template.charAt(slotEnd) != '\n') {
+      return "";
+    }
+    int lineStart = template.lastIndexOf('\n', slotStart - 1) + 1;
+    for (int i = lineStart; i < slotStart; i++) {
+      if (!Character.isWhitespace(template.charAt(i))) {
+        return "";
+      }
+    }
+    return template.substring(lineStart, slotStart);
+  }
+}
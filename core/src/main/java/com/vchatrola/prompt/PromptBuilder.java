@@ -1,84 +1,212 @@
 package com.vchatrola.prompt;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.vchatrola.config.RuleSet;
+import com.vchatrola.gherkin.GherkinDocument;
+import com.vchatrola.gherkin.GherkinLexer;
+import com.vchatrola.gherkin.GherkinLine.StepKeyword;
 import com.vchatrola.util.Constants;
-
+import java.util.List;
+
+/**
+ * Builds Gemini prompts from the {@link RuleSet} of the merged configuration.
+ *
+ * <p>The {@link PromptTemplate} texts are compiled once into {@link CompiledTemplate}s and every
+ * prompt is rendered into a single buffer sized for the instructions plus the input.
+ *
+ * <p>Everything that depends only on the configuration and the file type (the context, the keyword
+ * and tag guidelines and the static prefix) is rendered once per builder, so a builder obtained
+ * from {@link PromptSectionCache} only concatenates those sections with the input-dependent parts.
+ *
+ * <p>Which sections a prompt includes is decided from the {@link GherkinDocument} of the input: a
+ * keyword section is only added for the scenario headers, steps and tags the input actually has,
+ * not for every occurrence of the keyword in a step's text.
+ */
 public class PromptBuilder {
 
-  private static final String CONTEXT_PLACEHOLDER = "{CONTEXT}";
-  private static final String TASKS_PLACEHOLDER = "{TASKS}";
-  private static final String SECTION_SUFFIX = "_SECTION";
-  private static final String REQUIREMENTS_SECTION = "{REQUIREMENTS_SECTION}";
-  private static final String VALID_EXAMPLES_SECTION = "{VALID_EXAMPLES_SECTION}";
-  private static final String INVALID_EXAMPLES_SECTION = "{INVALID_EXAMPLES_SECTION}";
-  private static final String TENSE_SECTION = "{TENSE_SECTION}";
-  private static final String ENTITIES_PLACEHOLDER = "{ENTITIES_LIST}";
+  private static final String CONTEXT_SLOT = "CONTEXT";
+  private static final String TASKS_SLOT = "TASKS";
+  private static final String ENTITIES_SLOT = "ENTITIES_LIST";
+  private static final String REQUIREMENTS_SLOT = "REQUIREMENTS_SECTION";
+  private static final String STRUCTURE_SLOT = "STRUCTURE_SECTION";
+  private static final String TENSE_SLOT = "TENSE_SECTION";
+  private static final String EXAMPLES_HEADER_SLOT = "EXAMPLES_HEADER";
+  private static final String VALID_EXAMPLES_SLOT = "VALID_EXAMPLES_SECTION";
+  private static final String INVALID_EXAMPLES_SLOT = "INVALID_EXAMPLES_SECTION";
+  private static final String FEEDBACK_SLOT = "FEEDBACK_SECTION";
   private static final String EXAMPLES_HEADER = "* **Examples:**";
   private static final String REQUIREMENTS_HEADER = "**Requirements:**";
   private static final String ADDITIONAL_REQUIREMENTS = "**Additional Requirements:**";
   private static final String SUGGESTIONS_HEADER = "**Suggestions/Feedback:**";
-  private static final String TENSE_HEADER_FORMAT =
-      "%d. **Tense:**\n%s* Ensure that %s statements are in the %s\n";
-  private static final String STRUCTURE_FIELD = "structure";
-  private static final String REQUIREMENTS_FIELD = "requirements";
-  private static final String EXAMPLES_FIELD = "examples";
-  private static final String VALID_FIELD = "valid";
-  private static final String INVALID_FIELD = "invalid";
-  private static final String FEEDBACK_FIELD = "feedback";
-  private static final String TENSE_FIELD = "tense";
-
-  private final JsonNode config;
+  private static final String LIST_INDENT = PromptUtils.generateSpaces(4);
+  private static final String TENSE_INDENT = PromptUtils.generateSpaces(12);
+  private static final String STRUCTURE_ITEM_INDENT =
+      PromptUtils.getLastLineIndentation(PromptTemplate.getStructureInstructions()) + LIST_INDENT;
+
+  private static final CompiledTemplate CONTEXT_TEMPLATE =
+      CompiledTemplate.compile(PromptTemplate.CONTEXT_TEMPLATE);
+  private static final CompiledTemplate ENTITIES_TASK =
+      CompiledTemplate.compile(PromptTemplate.ENTITIES_TASK);
+  private static final CompiledTemplate GENERAL_REQUIREMENTS_TEMPLATE =
+      CompiledTemplate.compile(PromptTemplate.GENERAL_REQUIREMENTS_TEMPLATE);
+  private static final CompiledTemplate INPUT_REQUIREMENTS_TEMPLATE =
+      CompiledTemplate.compile(PromptTemplate.INPUT_REQUIREMENTS_TEMPLATE);
+  private static final CompiledTemplate SCENARIO_TEMPLATE =
+      CompiledTemplate.compile(PromptTemplate.SCENARIO_TEMPLATE);
+  private static final CompiledTemplate GIVEN_TEMPLATE =
+      CompiledTemplate.compile(PromptTemplate.GIVEN_TEMPLATE);
+  private static final CompiledTemplate WHEN_TEMPLATE =
+      CompiledTemplate.compile(PromptTemplate.WHEN_TEMPLATE);
+  private static final CompiledTemplate THEN_TEMPLATE =
+      CompiledTemplate.compile(PromptTemplate.THEN_TEMPLATE);
+  private static final CompiledTemplate TAG_TEMPLATE =
+      CompiledTemplate.compile(PromptTemplate.TAG_TEMPLATE);
+
+  /** Template text of a full prompt; configured rules and the input come on top. */
+  private static final int BASE_CAPACITY =
+      CONTEXT_TEMPLATE.literalLength()
+          + GENERAL_REQUIREMENTS_TEMPLATE.literalLength()
+          + SCENARIO_TEMPLATE.literalLength()
+          + GIVEN_TEMPLATE.literalLength()
+          + WHEN_TEMPLATE.literalLength()
+          + THEN_TEMPLATE.literalLength()
+          + TAG_TEMPLATE.literalLength()
+          + PromptTemplate.OUTPUT_FORMAT.length()
+          + PromptTemplate.PACKED_OUTPUT_FORMAT.length();
+  private static final int RULES_CAPACITY = 8 * 1024;
+
+  private final RuleSet rules;
   private final boolean isStory;
   private final boolean isFeature;
+  private volatile Sections sections;
 
   public PromptBuilder(JsonNode config, String fileType) {
-    this.config = config;
+    this(RuleSet.compile(config), fileType);
+  }
+
+  public PromptBuilder(RuleSet rules, String fileType) {
+    this.rules = rules;
     this.isStory = equalsAnyIgnoreCase(fileType, "story");
     this.isFeature = equalsAnyIgnoreCase(fileType, "feature");
   }
 
   public String buildContext(boolean isDefaultValidation) {
-    String context = PromptTemplate.CONTEXT_TEMPLATE;
-    context = context.replace(CONTEXT_PLACEHOLDER, config.get("CONTEXT").asText());
+    return sections().context(isDefaultValidation);
+  }
+
+  /**
+   * Returns the sections that depend only on the configuration and the file type. They are
+   * rendered on first use and reused by every later prompt of this builder.
+   */
+  private Sections sections() {
+    Sections rendered = sections;
+    if (rendered == null) {
+      synchronized (this) {
+        rendered = sections;
+        if (rendered == null) {
+          rendered = renderSections();
+          sections = rendered;
+        }
+      }
+    }
+    return rendered;
+  }
+
+  private Sections renderSections() {
+    StringBuilder out = new StringBuilder(BASE_CAPACITY + RULES_CAPACITY);
+    appendContext(out, false);
+    String context = cut(out);
+    appendContext(out, true);
+    String defaultContext = cut(out);
+    int nextRequirementNumber = appendStaticRequirements(out);
+    String staticRequirements = cut(out);
+    appendScenarioContext(out);
+    String scenario = cut(out);
+    appendGivenContext(out);
+    String given = cut(out);
+    appendWhenContext(out);
+    String when = cut(out);
+    appendThenContext(out);
+    String then = cut(out);
+    appendTagContext(out);
+    String tag = cut(out);
+
+    appendGeneralRequirements(out, staticRequirements, nextRequirementNumber, null);
+    out.append("\n");
+    for (String section : List.of(scenario, given, when, then, tag)) {
+      out.append(section).append("\n");
+    }
+    out.append(PromptTemplate.OUTPUT_FORMAT);
+    String staticBody = cut(out);
+
+    return new Sections(
+        context,
+        defaultContext,
+        staticRequirements,
+        nextRequirementNumber,
+        scenario,
+        given,
+        when,
+        then,
+        tag,
+        context + "\n" + staticBody,
+        defaultContext + "\n" + staticBody);
+  }
 
-    String tasks = buildTasks(isDefaultValidation);
-    context = context.replace(TASKS_PLACEHOLDER, tasks.trim());
+  /** Returns the buffer content and clears the buffer for the next section. */
+  private static String cut(StringBuilder out) {
+    String section = out.toString();
+    out.setLength(0);
+    return section;
+  }
 
-    return context;
+  private void appendContext(StringBuilder out, boolean isDefaultValidation) {
+    CONTEXT_TEMPLATE.render(
+        out,
+        (slot, indentation, sb) -> {
+          switch (slot) {
+            case CONTEXT_SLOT -> sb.append(rules.context());
+            case TASKS_SLOT -> {
+              int start = sb.length();
+              appendTasks(sb, isDefaultValidation);
+              PromptUtils.trim(sb, start);
+            }
+            default -> throw unknownSlot(slot);
+          }
+        });
   }
 
-  private String buildTasks(boolean isDefaultValidation) {
-    StringBuilder tasksBuilder = new StringBuilder();
+  private void appendTasks(StringBuilder out, boolean isDefaultValidation) {
     int taskNumber = 1;
 
-    for (JsonNode task : config.get("TASKS")) {
-      tasksBuilder.append(taskNumber++).append(". ").append(task.asText()).append("\n");
+    for (String task : rules.tasks()) {
+      out.append(taskNumber++).append(". ").append(task).append("\n");
     }
 
-    JsonNode entitiesNode = config.get("ENTITIES");
-    if (hasEntities(entitiesNode)) {
-      String entitiesTask = buildEntitiesTask(entitiesNode);
-      tasksBuilder.append(taskNumber++).append(". ").append(entitiesTask).append("\n");
+    if (!rules.entities().isEmpty()) {
+      out.append(taskNumber++).append(". ");
+      appendEntitiesTask(out, rules.entities());
+      out.append("\n");
     }
 
     if (isDefaultValidation) {
-      tasksBuilder.append(taskNumber++).append(". ").append(getGenericPrompt()).append("\n");
+      out.append(taskNumber).append(". ").append(getGenericPrompt()).append("\n");
     }
-
-    return tasksBuilder.toString();
-  }
-
-  private boolean hasEntities(JsonNode entitiesNode) {
-    return entitiesNode != null && entitiesNode.isArray() && !entitiesNode.isEmpty();
   }
 
-  private String buildEntitiesTask(JsonNode entitiesNode) {
-    StringBuilder entitiesListBuilder = new StringBuilder();
-    for (JsonNode entity : entitiesNode) {
-      entitiesListBuilder.append(entity.asText()).append(", ");
-    }
-    String entitiesList = entitiesListBuilder.toString().replaceAll(", $", "");
-    return PromptTemplate.ENTITIES_TASK.replace(ENTITIES_PLACEHOLDER, entitiesList);
+  private static void appendEntitiesTask(StringBuilder out, List<String> entities) {
+    ENTITIES_TASK.render(
+        out,
+        (slot, indentation, sb) -> {
+          if (!ENTITIES_SLOT.equals(slot)) {
+            throw unknownSlot(slot);
+          }
+          String separator = "";
+          for (String entity : entities) {
+            sb.append(separator).append(entity);
+            separator = ", ";
+          }
+        });
   }
 
   private String getGenericPrompt() {
@@ -91,410 +219,396 @@ public class PromptBuilder {
     }
   }
 
-  private String buildGeneralRequirements(String selectedText) {
-    String requirementsTemplate = PromptTemplate.GENERAL_REQUIREMENTS_TEMPLATE;
-    StringBuilder requirementsBuilder = new StringBuilder();
+  /**
+   * Appends the general requirements. The input-dependent requirements are included only when
+   * {@code input} is set.
+   */
+  private void appendGeneralRequirements(StringBuilder out, GherkinDocument input) {
+    Sections rendered = sections();
+    appendGeneralRequirements(
+        out, rendered.staticRequirements(), rendered.nextRequirementNumber(), input);
+  }
+
+  private static void appendGeneralRequirements(
+      StringBuilder out,
+      String staticRequirements,
+      int nextRequirementNumber,
+      GherkinDocument input) {
+    GENERAL_REQUIREMENTS_TEMPLATE.render(
+        out,
+        (slot, indentation, sb) -> {
+          if (!REQUIREMENTS_SLOT.equals(slot)) {
+            throw unknownSlot(slot);
+          }
+          int start = sb.length();
+          sb.append(staticRequirements);
+          if (input != null) {
+            appendConditionalRequirements(sb, input, nextRequirementNumber);
+          }
+          PromptUtils.trim(sb, start);
+        });
+  }
+
+  /** Appends the configured requirements and returns the next requirement number. */
+  private int appendStaticRequirements(StringBuilder out) {
     int reqNumber = 1;
 
-    for (JsonNode requirement : config.get("REQUIREMENTS")) {
-      requirementsBuilder
-          .append(reqNumber++)
-          .append(". ")
-          .append(requirement.asText())
-          .append("\n");
+    for (String requirement : rules.requirements()) {
+      out.append(reqNumber++).append(". ").append(requirement).append("\n");
     }
 
-    JsonNode perspectiveNode = config.get("PERSPECTIVE");
-    if (hasPerspective(perspectiveNode)) {
+    if (rules.hasPerspective()) {
       String perspectiveReq =
-          String.format(PromptTemplate.PERSPECTIVE_REQUIREMENT, perspectiveNode.asText());
-      requirementsBuilder.append(reqNumber++).append(". ").append(perspectiveReq).append("\n");
+          String.format(PromptTemplate.PERSPECTIVE_REQUIREMENT, rules.perspective());
+      out.append(reqNumber++).append(". ").append(perspectiveReq).append("\n");
     }
-
-    addConditionalRequirements(requirementsBuilder, selectedText, reqNumber);
-
-    return requirementsTemplate.replace(
-        REQUIREMENTS_SECTION, requirementsBuilder.toString().trim());
+    return reqNumber;
   }
 
-  private boolean hasPerspective(JsonNode perspectiveNode) {
-    return perspectiveNode != null && !perspectiveNode.asText().isBlank();
+  private static boolean hasConditionalRequirements(GherkinDocument input) {
+    return input.hasStep(StepKeyword.BUT) || input.hasPlaceholders();
   }
 
-  private void addConditionalRequirements(
-      StringBuilder requirementsBuilder, String selectedText, int reqNumber) {
-    if (selectedText.contains(Constants.BUT_KEYWORD)) {
-      requirementsBuilder
-          .append(reqNumber++)
-          .append(". ")
-          .append(PromptTemplate.BUT_REQUIREMENT)
-          .append("\n");
+  private static void appendConditionalRequirements(
+      StringBuilder out, GherkinDocument input, int reqNumber) {
+    if (input.hasStep(StepKeyword.BUT)) {
+      out.append(reqNumber++).append(". ").append(PromptTemplate.BUT_REQUIREMENT).append("\n");
     }
 
-    if (PromptUtils.hasAngleBracketPlaceholders(selectedText)) {
-      requirementsBuilder
-          .append(reqNumber++)
-          .append(". ")
-          .append(PromptTemplate.EXAMPLES_REQUIREMENT)
-          .append("\n");
+    if (input.hasPlaceholders()) {
+      out.append(reqNumber).append(". ").append(PromptTemplate.EXAMPLES_REQUIREMENT).append("\n");
     }
   }
 
   public String buildScenarioContext() {
-    String scenarioTemplate = PromptTemplate.SCENARIO_TEMPLATE;
-    JsonNode scenarioNode = config.get("SCENARIO");
-    int sectionNumber = 2; // Starting from 2 because the first requirement is fixed
-
-    String sectionHeader =
-        String.format(PromptTemplate.getStructureInstructions(), Constants.SCENARIO_KEYWORD);
-    String indentation =
-        PromptUtils.getLastLineIndentation(sectionHeader) + PromptUtils.generateSpaces(4);
-    ReplacementResult result =
-        replacePlaceholder(
-            scenarioTemplate,
-            scenarioNode,
-            STRUCTURE_FIELD,
-            sectionHeader,
-            indentation,
-            sectionNumber);
-    scenarioTemplate = result.template();
-    if (result.sectionAdded()) {
-      sectionNumber++;
-    }
-
-    indentation =
-        PromptUtils.getIndentation(scenarioTemplate, REQUIREMENTS_SECTION)
-            + PromptUtils.generateSpaces(4);
-    scenarioTemplate =
-        replacePlaceholder(
-                scenarioTemplate,
-                scenarioNode,
-                REQUIREMENTS_FIELD,
-                ADDITIONAL_REQUIREMENTS,
-                indentation,
-                sectionNumber)
-            .template();
-    scenarioTemplate = replaceExamples(scenarioTemplate, scenarioNode);
-    return PromptUtils.removeEmptyLines(scenarioTemplate);
+    return sections().scenario();
   }
 
   public String buildGivenContext() {
-    String givenTemplate = PromptTemplate.GIVEN_TEMPLATE;
-    JsonNode givenNode = config.get("GIVEN");
-    int sectionNumber = 2; // Starting from 2 because the first requirement is fixed
-
-    String sectionHeader =
-        String.format(PromptTemplate.getStructureInstructions(), Constants.GIVEN_KEYWORD);
-    String indentation =
-        PromptUtils.getLastLineIndentation(sectionHeader) + PromptUtils.generateSpaces(4);
-    ReplacementResult result =
-        replacePlaceholder(
-            givenTemplate, givenNode, STRUCTURE_FIELD, sectionHeader, indentation, sectionNumber);
-    givenTemplate = result.template();
-    if (result.sectionAdded()) {
-      sectionNumber++;
-    }
-
-    givenTemplate =
-        replaceTenseSection(givenTemplate, givenNode, Constants.GIVEN_KEYWORD, sectionNumber++);
-
-    indentation =
-        PromptUtils.getIndentation(givenTemplate, REQUIREMENTS_SECTION)
-            + PromptUtils.generateSpaces(4);
-    givenTemplate =
-        replacePlaceholder(
-                givenTemplate,
-                givenNode,
-                REQUIREMENTS_FIELD,
-                ADDITIONAL_REQUIREMENTS,
-                indentation,
-                sectionNumber)
-            .template();
-
-    givenTemplate = replaceExamples(givenTemplate, givenNode);
-
-    String header = "* " + SUGGESTIONS_HEADER;
-    givenTemplate =
-        appendSectionListWithHeader(
-            givenTemplate, givenNode, FEEDBACK_FIELD, header, PromptUtils.generateSpaces(4));
-
-    return PromptUtils.removeEmptyLines(givenTemplate);
+    return sections().given();
   }
 
   public String buildWhenContext() {
-    String whenTemplate = PromptTemplate.WHEN_TEMPLATE;
-    JsonNode whenNode = config.get("WHEN");
-    int sectionNumber = 2; // Starting from 2 because the first requirement is fixed
-
-    String sectionHeader =
-        String.format(PromptTemplate.getStructureInstructions(), Constants.WHEN_KEYWORD);
-    String indentation =
-        PromptUtils.getLastLineIndentation(sectionHeader) + PromptUtils.generateSpaces(4);
-    ReplacementResult result =
-        replacePlaceholder(
-            whenTemplate, whenNode, STRUCTURE_FIELD, sectionHeader, indentation, sectionNumber);
-    whenTemplate = result.template();
-    if (result.sectionAdded()) {
-      sectionNumber++;
-    }
-
-    whenTemplate =
-        replaceTenseSection(whenTemplate, whenNode, Constants.WHEN_KEYWORD, sectionNumber++);
-
-    indentation =
-        PromptUtils.getIndentation(whenTemplate, REQUIREMENTS_SECTION)
-            + PromptUtils.generateSpaces(4);
-    whenTemplate =
-        replacePlaceholder(
-                whenTemplate,
-                whenNode,
-                REQUIREMENTS_FIELD,
-                ADDITIONAL_REQUIREMENTS,
-                indentation,
-                sectionNumber)
-            .template();
-
-    whenTemplate = replaceExamples(whenTemplate, whenNode);
-
-    String header = "* " + SUGGESTIONS_HEADER;
-    whenTemplate =
-        appendSectionListWithHeader(
-            whenTemplate, whenNode, FEEDBACK_FIELD, header, PromptUtils.generateSpaces(4));
-
-    return PromptUtils.removeEmptyLines(whenTemplate);
+    return sections().when();
   }
 
   public String buildThenContext() {
-    String thenTemplate = PromptTemplate.THEN_TEMPLATE;
-    JsonNode thenNode = config.get("THEN");
-    int sectionNumber = 2; // // Starting from 2 because the first requirement is fixed
-
-    String sectionHeader =
-        String.format(PromptTemplate.getStructureInstructions(), Constants.THEN_KEYWORD);
-    String indentation =
-        PromptUtils.getLastLineIndentation(sectionHeader) + PromptUtils.generateSpaces(4);
-    ReplacementResult result =
-        replacePlaceholder(
-            thenTemplate, thenNode, STRUCTURE_FIELD, sectionHeader, indentation, sectionNumber);
-    thenTemplate = result.template();
-    if (result.sectionAdded()) {
-      sectionNumber++;
-    }
-
-    thenTemplate =
-        replaceTenseSection(thenTemplate, thenNode, Constants.THEN_KEYWORD, sectionNumber++);
-
-    indentation =
-        PromptUtils.getIndentation(thenTemplate, REQUIREMENTS_SECTION)
-            + PromptUtils.generateSpaces(4);
-    thenTemplate =
-        replacePlaceholder(
-                thenTemplate,
-                thenNode,
-                REQUIREMENTS_FIELD,
-                ADDITIONAL_REQUIREMENTS,
-                indentation,
-                sectionNumber)
-            .template();
-
-    thenTemplate = replaceExamples(thenTemplate, thenNode);
-
-    String header = "* " + SUGGESTIONS_HEADER;
-    thenTemplate =
-        appendSectionListWithHeader(
-            thenTemplate, thenNode, FEEDBACK_FIELD, header, PromptUtils.generateSpaces(4));
-
-    return PromptUtils.removeEmptyLines(thenTemplate);
-  }
-
-  private String buildTagContext() {
-    String tagTemplate = PromptTemplate.TAG_TEMPLATE;
-    JsonNode tagNode = config.get("TAG");
-    String header = "* " + REQUIREMENTS_HEADER;
-    tagTemplate =
-        appendSectionListWithHeader(
-            tagTemplate, tagNode, REQUIREMENTS_FIELD, header, PromptUtils.generateSpaces(4));
-    return tagTemplate;
-  }
-
-  private ReplacementResult replacePlaceholder(
-      String template,
-      JsonNode node,
-      String sectionKey,
+    return sections().then();
+  }
+
+  public String buildTagContext() {
+    return sections().tag();
+  }
+
+  private void appendScenarioContext(StringBuilder out) {
+    appendKeywordContext(out, SCENARIO_TEMPLATE, rules.scenario(), Constants.SCENARIO_KEYWORD);
+  }
+
+  private void appendGivenContext(StringBuilder out) {
+    appendKeywordContext(out, GIVEN_TEMPLATE, rules.given(), Constants.GIVEN_KEYWORD);
+  }
+
+  private void appendWhenContext(StringBuilder out) {
+    appendKeywordContext(out, WHEN_TEMPLATE, rules.when(), Constants.WHEN_KEYWORD);
+  }
+
+  private void appendThenContext(StringBuilder out) {
+    appendKeywordContext(out, THEN_TEMPLATE, rules.then(), Constants.THEN_KEYWORD);
+  }
+
+  /**
+   * Renders the guidelines for one keyword. Requirement sections are numbered from 2 because the
+   * first requirement is part of the template; step templates always reserve a number for the
+   * tense section.
+   */
+  private void appendKeywordContext(
+      StringBuilder out, CompiledTemplate template, RuleSet.KeywordRules rules, String keyword) {
+    int start = out.length();
+    int structureNumber = 2;
+    int tenseNumber = rules.structure().isEmpty() ? structureNumber : structureNumber + 1;
+    int requirementsNumber = template.hasSlot(TENSE_SLOT) ? tenseNumber + 1 : tenseNumber;
+
+    template.render(
+        out,
+        (slot, indentation, sb) -> {
+          switch (slot) {
+            case STRUCTURE_SLOT ->
+                appendNumberedSection(
+                    sb,
+                    rules.structure(),
+                    structureNumber,
+                    String.format(PromptTemplate.getStructureInstructions(), keyword),
+                    STRUCTURE_ITEM_INDENT);
+            case TENSE_SLOT -> appendTenseSection(sb, rules, keyword, tenseNumber);
+            case REQUIREMENTS_SLOT ->
+                appendNumberedSection(
+                    sb,
+                    rules.requirements(),
+                    requirementsNumber,
+                    ADDITIONAL_REQUIREMENTS,
+                    indentation + LIST_INDENT);
+            case EXAMPLES_HEADER_SLOT -> {
+              if (rules.hasExamples()) {
+                sb.append(EXAMPLES_HEADER);
+              }
+            }
+            case VALID_EXAMPLES_SLOT ->
+                appendValidExamples(sb, rules.validExamples(), indentation + LIST_INDENT);
+            case INVALID_EXAMPLES_SLOT ->
+                appendInvalidExamples(sb, rules.invalidExamples(), indentation + LIST_INDENT);
+            case FEEDBACK_SLOT ->
+                appendSectionListWithHeader(
+                    sb, rules.feedback(), "* " + SUGGESTIONS_HEADER, LIST_INDENT);
+            default -> throw unknownSlot(slot);
+          }
+        });
+    PromptUtils.removeEmptyLines(out, start);
+  }
+
+  private void appendTagContext(StringBuilder out) {
+    List<String> tagRequirements = rules.tag().requirements();
+    TAG_TEMPLATE.render(
+        out,
+        (slot, indentation, sb) -> {
+          if (!REQUIREMENTS_SLOT.equals(slot)) {
+            throw unknownSlot(slot);
+          }
+          appendSectionListWithHeader(
+              sb, tagRequirements, "* " + REQUIREMENTS_HEADER, LIST_INDENT);
+        });
+  }
+
+  private static void appendNumberedSection(
+      StringBuilder out,
+      List<String> items,
+      int sectionNumber,
       String sectionHeader,
-      String indentation,
-      int sectionNumber) {
-    if (node.hasNonNull(sectionKey)
-        && node.get(sectionKey).isArray()
-        && !node.get(sectionKey).isEmpty()) {
-      StringBuilder sectionBuilder = new StringBuilder();
-      if (!sectionHeader.isBlank()) {
-        sectionBuilder.append(sectionNumber).append(". ").append(sectionHeader).append("\n");
-      }
-      for (JsonNode element : node.get(sectionKey)) {
-        sectionBuilder.append(indentation).append("* \"").append(element.asText()).append("\"\n");
-      }
-      String updatedTemplate =
-          template.replace(
-              "{" + sectionKey.toUpperCase() + SECTION_SUFFIX + "}",
-              sectionBuilder.toString().trim());
-      return new ReplacementResult(updatedTemplate, true); // Section added
-    } else {
-      String updatedTemplate =
-          template.replace("{" + sectionKey.toUpperCase() + SECTION_SUFFIX + "}", "");
-      return new ReplacementResult(updatedTemplate, false); // No section added
-    }
-  }
-
-  private String replaceExamples(String template, JsonNode parentNode) {
-    boolean hasExample = false;
-
-    if (!parentNode.hasNonNull(EXAMPLES_FIELD)) {
-      return template.replace(EXAMPLES_HEADER, "");
-    }
-    JsonNode examplesNode = parentNode.get(EXAMPLES_FIELD);
-
-    if (examplesNode.hasNonNull(VALID_FIELD)
-        && examplesNode.get(VALID_FIELD).isArray()
-        && !examplesNode.get(VALID_FIELD).isEmpty()) {
-      StringBuilder validExamplesBuilder = new StringBuilder("* **Good Examples:**\n");
-      String indentation =
-          PromptUtils.getIndentation(template, VALID_EXAMPLES_SECTION)
-              + PromptUtils.generateSpaces(4);
-      int number = 1;
-      for (JsonNode validExample : examplesNode.get(VALID_FIELD)) {
-        validExamplesBuilder
-            .append(indentation)
-            .append(number++)
-            .append(". ")
-            .append(validExample.asText())
-            .append("\n");
-      }
-      template = template.replace(VALID_EXAMPLES_SECTION, validExamplesBuilder.toString().trim());
-      hasExample = true;
-    } else {
-      template = template.replace(VALID_EXAMPLES_SECTION, "");
-    }
-
-    if (examplesNode.hasNonNull(INVALID_FIELD)
-        && examplesNode.get(INVALID_FIELD).isArray()
-        && !examplesNode.get(INVALID_FIELD).isEmpty()) {
-      StringBuilder invalidExamplesBuilder = new StringBuilder("* **Bad Examples:**\n");
-      String indentation =
-          PromptUtils.getIndentation(template, INVALID_EXAMPLES_SECTION)
-              + PromptUtils.generateSpaces(4);
-      int number = 1;
-      for (JsonNode invalidExample : examplesNode.get(INVALID_FIELD)) {
-        String example = getOptionalText(invalidExample, "example");
-        String reason = getOptionalText(invalidExample, "reason");
-        String suggestion = getOptionalText(invalidExample, "suggestion");
-        invalidExamplesBuilder
-            .append(indentation)
-            .append(number++)
-            .append(". ")
-            .append(example)
-            .append(" [Reason: ")
-            .append(reason)
-            .append(", Suggestion: ")
-            .append(suggestion)
-            .append("]\n");
-      }
-      template =
-          template.replace(INVALID_EXAMPLES_SECTION, invalidExamplesBuilder.toString().trim());
-      hasExample = true;
-    } else {
-      template = template.replace(INVALID_EXAMPLES_SECTION, "");
+      String indentation) {
+    if (items.isEmpty()) {
+      return;
     }
-
-    if (!hasExample) {
-      template = template.replace(EXAMPLES_HEADER, "");
+    int start = out.length();
+    if (!sectionHeader.isBlank()) {
+      out.append(sectionNumber).append(". ").append(sectionHeader).append("\n");
+    }
+    for (String item : items) {
+      out.append(indentation).append("* \"").append(item).append("\"\n");
     }
+    PromptUtils.trim(out, start);
+  }
 
-    return template;
+  private static void appendValidExamples(
+      StringBuilder out, List<String> validExamples, String indentation) {
+    if (validExamples.isEmpty()) {
+      return;
+    }
+    int start = out.length();
+    out.append("* **Good Examples:**\n");
+    int number = 1;
+    for (String validExample : validExamples) {
+      out.append(indentation).append(number++).append(". ").append(validExample).append("\n");
+    }
+    PromptUtils.trim(out, start);
   }
 
-  private static String getOptionalText(JsonNode node, String field) {
-    if (node == null || field == null) {
-      return "";
+  private static void appendInvalidExamples(
+      StringBuilder out, List<RuleSet.InvalidExample> invalidExamples, String indentation) {
+    if (invalidExamples.isEmpty()) {
+      return;
+    }
+    int start = out.length();
+    out.append("* **Bad Examples:**\n");
+    int number = 1;
+    for (RuleSet.InvalidExample invalidExample : invalidExamples) {
+      out.append(indentation)
+          .append(number++)
+          .append(". ")
+          .append(invalidExample.example())
+          .append(" [Reason: ")
+          .append(invalidExample.reason())
+          .append(", Suggestion: ")
+          .append(invalidExample.suggestion())
+          .append("]\n");
     }
-    JsonNode value = node.get(field);
-    return value != null && !value.isNull() ? value.asText() : "";
+    PromptUtils.trim(out, start);
   }
 
-  private static String appendSectionListWithHeader(
-      String template,
-      JsonNode node,
-      String sectionKey,
-      String sectionHeader,
-      String listIndentation) {
-    if (node.hasNonNull(sectionKey)
-        && node.get(sectionKey).isArray()
-        && !node.get(sectionKey).isEmpty()) {
-      StringBuilder builder = new StringBuilder(sectionHeader + "\n");
-      int number = 1;
-
-      for (JsonNode feedback : node.get(sectionKey)) {
-        builder.append(String.format("%s%d. %s%n", listIndentation, number++, feedback.asText()));
-      }
-      return template.replace(
-          "{" + sectionKey.toUpperCase() + SECTION_SUFFIX + "}", builder.toString().trim());
-    } else {
-      return template.replace("{" + sectionKey.toUpperCase() + SECTION_SUFFIX + "}", "");
+  private static void appendSectionListWithHeader(
+      StringBuilder out, List<String> items, String sectionHeader, String listIndentation) {
+    if (items.isEmpty()) {
+      return;
+    }
+    int start = out.length();
+    out.append(sectionHeader).append("\n");
+    int number = 1;
+    for (String item : items) {
+      out.append(listIndentation).append(number++).append(". ").append(item);
+      out.append(System.lineSeparator());
     }
+    PromptUtils.trim(out, start);
   }
 
-  private String replaceTenseSection(
-      String template, JsonNode node, String stepKeyword, int sectionNumber) {
-    if (node.hasNonNull(TENSE_FIELD) && !node.get(TENSE_FIELD).asText().isBlank()) {
-      String tenseSection =
-          String.format(
-              TENSE_HEADER_FORMAT,
-              sectionNumber,
-              PromptUtils.generateSpaces(12),
-              stepKeyword,
-              node.get(TENSE_FIELD).asText());
-      return template.replace(TENSE_SECTION, tenseSection.trim());
-    } else {
-      return template.replace(TENSE_SECTION, "");
+  private static void appendTenseSection(
+      StringBuilder out, RuleSet.KeywordRules rules, String stepKeyword, int sectionNumber) {
+    if (!rules.hasTense()) {
+      return;
     }
+    int start = out.length();
+    out.append(sectionNumber)
+        .append(". **Tense:**\n")
+        .append(TENSE_INDENT)
+        .append("* Ensure that ")
+        .append(stepKeyword)
+        .append(" statements are in the ")
+        .append(rules.tense());
+    PromptUtils.trim(out, start);
   }
 
   public String buildPrompt(String selectedText, boolean isDefaultValidation) {
-    StringBuilder inputText = new StringBuilder(buildContext(isDefaultValidation)).append("\n");
+    return buildPrompt(GherkinLexer.parse(selectedText), isDefaultValidation);
+  }
+
+  public String buildPrompt(GherkinDocument input, boolean isDefaultValidation) {
+    CharSequence selectedText = input.text();
+    StringBuilder out = newPromptBuffer(selectedText.length());
+    appendInstructions(out, input, isDefaultValidation);
+    out.append(PromptTemplate.OUTPUT_FORMAT);
+    appendInput(out, selectedText);
+    return out.toString();
+  }
+
+  /**
+   * Builds one prompt for several independent scenarios. The instructions are emitted once for the
+   * union of the scenarios' keywords; each scenario follows under a numbered marker, and results
+   * are tagged with that number so {@link com.vchatrola.util.GherkinOutputParser#readPackedResults}
+   * can split them again.
+   */
+  public String buildPackedPrompt(List<String> scenarios, boolean isDefaultValidation) {
+    GherkinDocument combined = GherkinLexer.parse(String.join("\n", scenarios));
+    StringBuilder out = newPromptBuffer(combined.text().length());
+    appendInstructions(out, combined, isDefaultValidation);
+    out.append(PromptTemplate.OUTPUT_FORMAT).append(PromptTemplate.PACKED_OUTPUT_FORMAT);
+    appendPackedInput(out, scenarios);
+    return out.toString();
+  }
+
+  /**
+   * Builds the instructions that do not depend on the input: the context, the configured
+   * requirements, the guidelines for every keyword and the output format. The prefix is identical
+   * for every request under one configuration and file type, so Gemini can cache it; {@link
+   * #buildInputSuffix} and {@link #buildPackedInputSuffix} build the matching remainder.
+   */
+  public String buildStaticPrefix(boolean isDefaultValidation) {
+    return sections().staticPrefix(isDefaultValidation);
+  }
+
+  /** The input-dependent remainder of a single-input prompt after {@link #buildStaticPrefix}. */
+  public String buildInputSuffix(String selectedText) {
+    return buildInputSuffix(GherkinLexer.parse(selectedText));
+  }
+
+  public String buildInputSuffix(GherkinDocument input) {
+    CharSequence selectedText = input.text();
+    StringBuilder out = new StringBuilder(selectedText.length() + 1024);
+    appendInputRequirements(out, input);
+    appendInput(out, selectedText);
+    return out.toString();
+  }
+
+  /** The input-dependent remainder of a packed prompt after {@link #buildStaticPrefix}. */
+  public String buildPackedInputSuffix(List<String> scenarios) {
+    GherkinDocument combined = GherkinLexer.parse(String.join("\n", scenarios));
+    StringBuilder out =
+        new StringBuilder(
+            combined.text().length() + PromptTemplate.PACKED_OUTPUT_FORMAT.length() + 1024);
+    appendInputRequirements(out, combined);
+    out.append(PromptTemplate.PACKED_OUTPUT_FORMAT);
+    appendPackedInput(out, scenarios);
+    return out.toString();
+  }
+
+  private void appendInputRequirements(StringBuilder out, GherkinDocument input) {
+    if (!hasConditionalRequirements(input)) {
+      return;
+    }
+    INPUT_REQUIREMENTS_TEMPLATE.render(
+        out,
+        (slot, indentation, sb) -> {
+          if (!REQUIREMENTS_SLOT.equals(slot)) {
+            throw unknownSlot(slot);
+          }
+          int start = sb.length();
+          appendConditionalRequirements(sb, input, 1);
+          PromptUtils.trim(sb, start);
+        });
+  }
+
+  private static void appendInput(StringBuilder out, CharSequence input) {
+    appendFormat(out, PromptTemplate.LLM_INPUT, input);
+  }
+
+  private static void appendPackedInput(StringBuilder out, List<String> scenarios) {
+    int inputStart = out.length();
+    for (int i = 0; i < scenarios.size(); i++) {
+      appendFormat(out, PromptTemplate.PACKED_SCENARIO_INPUT, i + 1, scenarios.get(i).strip());
+    }
+    int end = out.length();
+    while (end > inputStart && Character.isWhitespace(out.charAt(end - 1))) {
+      end--;
+    }
+    String packedInput = out.substring(inputStart, end);
+    out.setLength(inputStart);
+    appendInput(out, packedInput);
+  }
+
+  /** Appends a format string whose only conversions are {@code %s} and {@code %d}. */
+  private static void appendFormat(StringBuilder out, String format, Object... args) {
+    int argIndex = 0;
+    int literalStart = 0;
+    for (int i = format.indexOf('%'); i >= 0; i = format.indexOf('%', literalStart)) {
+      out.append(format, literalStart, i).append(args[argIndex++]);
+      literalStart = i + 2;
+    }
+    out.append(format, literalStart, format.length());
+  }
+
+  private void appendInstructions(
+      StringBuilder out, GherkinDocument input, boolean isDefaultValidation) {
+    Sections rendered = sections();
+    out.append(rendered.context(isDefaultValidation)).append("\n");
 
-    boolean appendScenario = selectedText.contains(Constants.SCENARIO_KEYWORD);
-    boolean appendGiven = selectedText.contains(Constants.GIVEN_KEYWORD);
-    boolean appendWhen = selectedText.contains(Constants.WHEN_KEYWORD);
-    boolean appendThen = selectedText.contains(Constants.THEN_KEYWORD);
+    boolean appendScenario = input.hasScenarioHeader();
+    boolean appendGiven = input.hasPart(StepKeyword.GIVEN);
+    boolean appendWhen = input.hasPart(StepKeyword.WHEN);
+    boolean appendThen = input.hasPart(StepKeyword.THEN);
 
     if (appendScenario || appendGiven || appendWhen || appendThen) {
-      inputText.append(buildGeneralRequirements(selectedText)).append("\n");
+      appendGeneralRequirements(out, input);
+      out.append("\n");
     }
     if (appendScenario) {
-      inputText.append(buildScenarioContext()).append("\n");
+      out.append(rendered.scenario()).append("\n");
     }
     if (appendGiven) {
-      inputText.append(buildGivenContext()).append("\n");
+      out.append(rendered.given()).append("\n");
     }
     if (appendWhen) {
-      inputText.append(buildWhenContext()).append("\n");
+      out.append(rendered.when()).append("\n");
     }
     if (appendThen) {
-      inputText.append(buildThenContext()).append("\n");
+      out.append(rendered.then()).append("\n");
     }
-    if (hasGherkinTags(selectedText)) {
-      inputText.append(buildTagContext()).append("\n");
+    if (input.hasTags()) {
+      out.append(rendered.tag()).append("\n");
     }
+  }
 
-    inputText
-        .append(PromptTemplate.OUTPUT_FORMAT_JSON)
-        .append(String.format(PromptTemplate.LLM_INPUT, selectedText));
-
-    return inputText.toString();
+  private static StringBuilder newPromptBuffer(int inputLength) {
+    return new StringBuilder(BASE_CAPACITY + RULES_CAPACITY + inputLength);
   }
 
-  private boolean hasGherkinTags(String text) {
-    return containsAnyIgnoreCase(text, "Meta", "@");
+  private static IllegalStateException unknownSlot(String slot) {
+    return new IllegalStateException("Unexpected prompt template slot {" + slot + "}.");
   }
 
   private static boolean equalsAnyIgnoreCase(String value, String... candidates) {
@@ -509,18 +623,24 @@ public class PromptBuilder {
     return false;
   }
 
-  private static boolean containsAnyIgnoreCase(String value, String... candidates) {
-    if (value == null) {
-      return false;
+  private record Sections(
+      String context,
+      String defaultContext,
+      String staticRequirements,
+      int nextRequirementNumber,
+      String scenario,
+      String given,
+      String when,
+      String then,
+      String tag,
+      String staticPrefix,
+      String defaultStaticPrefix) {
+    String context(boolean isDefaultValidation) {
+      return isDefaultValidation ? defaultContext : context;
     }
-    String lower = value.toLowerCase();
-    for (String candidate : candidates) {
-      if (candidate != null && lower.contains(candidate.toLowerCase())) {
-        return true;
-      }
+
+    String staticPrefix(boolean isDefaultValidation) {
+      return isDefaultValidation ? defaultStaticPrefix : staticPrefix;
     }
-    return false;
   }
-
-  private record ReplacementResult(String template, boolean sectionAdded) {}
 }
@@ -0,0 +1,51 @@
+package com.vchatrola.prompt;
+
+import com.vchatrola.config.RuleSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares {@link PromptBuilder}s, and with them their rendered rule sections, between validations
+ * of the same rules and file type.
+ *
+ * <p>Builders are keyed by the {@link RuleSet} itself, compared by value, so different rules (a
+ * changed configuration, or the same configuration with requirements left out) never reuse each
+ * other's sections. {@link #invalidate()} drops every builder when the configuration is reloaded;
+ * the cache is also cleared when it grows past {@link #MAX_ENTRIES}, which only happens when the
+ * rules change without an invalidation.
+ */
+public final class PromptSectionCache {
+  static final int MAX_ENTRIES = 16;
+
+  private static final Map<Key, PromptBuilder> BUILDERS = new ConcurrentHashMap<>();
+
+  private PromptSectionCache() {}
+
+  /** Returns the builder for {@code rules} and {@code fileType}. */
+  public static PromptBuilder builderFor(RuleSet rules, String fileType) {
+    Key key = new Key(rules, normalizeFileType(fileType));
+    PromptBuilder builder = BUILDERS.get(key);
+    if (builder != null) {
+      return builder;
+    }
+    if (BUILDERS.size() >= MAX_ENTRIES) {
+      BUILDERS.clear();
+    }
+    return BUILDERS.computeIfAbsent(key, k -> new PromptBuilder(rules, fileType));
+  }
+
+  public static void invalidate() {
+    BUILDERS.clear();
+  }
+
+  static int size() {
+    return BUILDERS.size();
+  }
+
+  private static String normalizeFileType(String fileType) {
+    return fileType == null ? "" : fileType.toLowerCase(Locale.ROOT);
+  }
+
+  private record Key(RuleSet rules, String fileType) {}
+}
@@ -25,7 +25,7 @@ public class PromptTemplate {
                 1. The scenario title must clearly convey the main idea of the scenario and indicate what the scenario will test.
                 {STRUCTURE_SECTION}
                 {REQUIREMENTS_SECTION}
-            * **Examples:**
+            {EXAMPLES_HEADER}
                 {VALID_EXAMPLES_SECTION}
                 {INVALID_EXAMPLES_SECTION}
             """;
@@ -39,7 +39,7 @@ public class PromptTemplate {
                 {STRUCTURE_SECTION}
                 {TENSE_SECTION}
                 {REQUIREMENTS_SECTION}
-            * **Examples:**
+            {EXAMPLES_HEADER}
                 {VALID_EXAMPLES_SECTION}
                 {INVALID_EXAMPLES_SECTION}
             {FEEDBACK_SECTION}
@@ -54,7 +54,7 @@ public class PromptTemplate {
                 {STRUCTURE_SECTION}
                 {TENSE_SECTION}
                 {REQUIREMENTS_SECTION}
-            * **Examples:**
+            {EXAMPLES_HEADER}
                 {VALID_EXAMPLES_SECTION}
                 {INVALID_EXAMPLES_SECTION}
             {FEEDBACK_SECTION}
@@ -69,7 +69,7 @@ public class PromptTemplate {
                 {STRUCTURE_SECTION}
                 {TENSE_SECTION}
                 {REQUIREMENTS_SECTION}
-            * **Examples:**
+            {EXAMPLES_HEADER}
                 {VALID_EXAMPLES_SECTION}
                 {INVALID_EXAMPLES_SECTION}
             {FEEDBACK_SECTION}
@@ -87,35 +87,28 @@ public class PromptTemplate {
             %s
             """;
 
-  public static final String OUTPUT_FORMAT_JSON =
+  public static final String OUTPUT_FORMAT =
       """
             **VALIDATION REPORT FORMAT**
-            * The output must be a JSON array with objects for each valid Gherkin line (Scenario, step or tag) in the input, excluding empty lines and example tables, and must be compatible with standard Java JSON libraries.
-            * Each object must have the following properties:
-                1. **title (string, required):** The title of the line. For Scenario lines, it should be the scenario name; for Given, When, Then, And, But, Meta, *,  steps, it should be the actual step text.
-                2. **status (string, required):** Must be either "Valid" or "Invalid", indicating the validation result for the line.
-                3. **reason (string, required):** A brief explanation for why the line is invalid. Use "NA" for valid lines.
-                4. **suggestion (string, required):**
-                    - For invalid lines: Provide the corrected line title per the guidelines.
-                    - For valid lines: Indicate adherence to Gherkin syntax and offer any improvement suggestions (e.g., clearer wording, better keyword usage).
-            * **Example:**
-                ```json
-                [
-                  {
-                    "title": "Scenario: Search Morningstar Indexes with valid parameters",
-                    "status": "Valid",
-                    "reason": "",
-                    "suggestion": ""
-                  },
-                  {
-                    "title": "Given an user is navigated to the morningstar index page",
-                    "status": "Invalid",
-                    "reason": "Missing 'a' before 'user'",
-                    "suggestion": "Given a user is navigated to the morningstar index page"
-                  }
-                  // ... more validation results for other lines ...
-                ]
-                ```
+            * Report every Gherkin line (Scenario, step or tag) in the input, excluding empty lines and example tables, in the JSON response schema.
+            """;
+
+  public static final String PACKED_OUTPUT_FORMAT =
+      """
+            **MULTIPLE SCENARIOS**
+            * The input contains several independent scenarios, each introduced by a "### SCENARIO <number>" marker line. Validate every scenario on its own; do not report the marker lines.
+            * Set the scenario property of every result to the number of the scenario the line belongs to.
+            """;
+
+  public static final String INPUT_REQUIREMENTS_TEMPLATE =
+      """
+            **INPUT-SPECIFIC REQUIREMENTS**
+            {REQUIREMENTS_SECTION}
+            """;
+
+  public static final String PACKED_SCENARIO_INPUT = """
+            ### SCENARIO %d
+            %s
             """;
 
   public static final String ENTITIES_TASK =
@@ -149,12 +142,14 @@ public class PromptTemplate {
       "For scenarios with < > placeholders, ensure following "
           + "'Examples:' sections with matching parameter values. Suggest adding 'Examples:' if missing.";
 
+  private static final String STRUCTURE_INSTRUCTIONS =
+      "**Structure (Mandatory):**"
+          + "\n"
+          + CompiledTemplate.compile(SCENARIO_TEMPLATE).indentation("STRUCTURE_SECTION")
+          + PromptUtils.generateSpaces(5)
+          + "* The %s step must follow one of the following recommended formats:";
+
   public static String getStructureInstructions() {
-    String indentation = PromptUtils.getIndentation(SCENARIO_TEMPLATE, "{STRUCTURE_SECTION}");
-    return "**Structure (Mandatory):**"
-        + "\n"
-        + indentation
-        + PromptUtils.generateSpaces(5)
-        + "* The %s step must follow one of the following recommended formats:";
+    return STRUCTURE_INSTRUCTIONS;
   }
 }
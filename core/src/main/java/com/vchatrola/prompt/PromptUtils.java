@@ -5,29 +5,60 @@ import java.util.regex.Pattern;
 
 public class PromptUtils {
   public static String removeEmptyLines(String input) {
-    Pattern pattern = Pattern.compile("(?m)^\\s*$[\r\n]*");
-    Matcher matcher = pattern.matcher(input);
-    return matcher.replaceAll("");
+    StringBuilder builder = new StringBuilder(input);
+    removeEmptyLines(builder, 0);
+    return builder.toString();
   }
 
-  public static String generateSpaces(int numSpaces) {
-    if (numSpaces < 0) {
-      return "";
+  /** Removes whitespace-only lines from {@code builder}, starting at line start {@code from}. */
+  public static void removeEmptyLines(StringBuilder builder, int from) {
+    int write = from;
+    int lineStart = from;
+    int length = builder.length();
+    while (lineStart < length) {
+      int lineEnd = lineStart;
+      boolean blank = true;
+      while (lineEnd < length && builder.charAt(lineEnd) != '\n') {
+        blank &= isLineSpace(builder.charAt(lineEnd));
+        lineEnd++;
+      }
+      int next = lineEnd < length ? lineEnd + 1 : lineEnd;
+      if (!blank) {
+        for (int i = lineStart; i < next; i++) {
+          builder.setCharAt(write++, builder.charAt(i));
+        }
+      }
+      lineStart = next;
     }
+    builder.setLength(write);
+  }
 
-    return " ".repeat(numSpaces);
+  private static boolean isLineSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\u000B' || c == '\f' || c == '\r';
   }
 
-  public static String getIndentation(String template, String placeholder) {
-    String escapedPlaceholder = Pattern.quote(placeholder);
-    String indentationPattern = String.format("^(\\s+)(%s)$", escapedPlaceholder);
-    Matcher matcher = Pattern.compile(indentationPattern, Pattern.MULTILINE).matcher(template);
+  /** Trims leading and trailing whitespace, as {@link String#trim}, from {@code from} onwards. */
+  public static void trim(StringBuilder builder, int from) {
+    int end = builder.length();
+    while (end > from && builder.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    builder.setLength(end);
+    int start = from;
+    while (start < end && builder.charAt(start) <= ' ') {
+      start++;
+    }
+    if (start > from) {
+      builder.delete(from, start);
+    }
+  }
 
-    if (matcher.find()) {
-      return matcher.group(1);
-    } else {
+  public static String generateSpaces(int numSpaces) {
+    if (numSpaces < 0) {
       return "";
     }
+
+    return " ".repeat(numSpaces);
   }
 
   public static String getLastLineIndentation(String input) {
@@ -46,10 +77,4 @@ public class PromptUtils {
 
     return lastIndentation;
   }
-
-  public static boolean hasAngleBracketPlaceholders(String text) {
-    int openingIndex = text.indexOf('<');
-    int closingIndex = text.indexOf('>');
-    return openingIndex != -1 && closingIndex != -1 && openingIndex < closingIndex;
-  }
 }
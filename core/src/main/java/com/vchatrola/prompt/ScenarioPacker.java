@@ -0,0 +1,86 @@
+package com.vchatrola.prompt;
+
+import com.vchatrola.util.Constants;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Groups independent scenarios into packs that share one prompt.
+ *
+ * <p>Packs are filled greedily in input order. A pack is closed when adding the next scenario would
+ * push the estimated prompt size past the model's input budget, the estimated response past its
+ * output budget, or the pack past {@link Constants#MAX_SCENARIOS_PER_PACK}. A scenario that does
+ * not fit on its own still gets a pack of one.
+ */
+public class ScenarioPacker {
+  private final int maxInputTokens;
+  private final int maxOutputTokens;
+  private final ToIntFunction<List<String>> promptLength;
+
+  /**
+   * @param inputTokenLimit the model's {@code inputTokenLimit}; zero or less when unknown
+   * @param outputTokenLimit the model's {@code outputTokenLimit}; zero or less when unknown
+   * @param promptLength the length in characters of the packed prompt for a list of scenarios
+   */
+  public ScenarioPacker(
+      int inputTokenLimit, int outputTokenLimit, ToIntFunction<List<String>> promptLength) {
+    this.maxInputTokens = budget(inputTokenLimit, Constants.DEFAULT_PACK_INPUT_TOKENS);
+    this.maxOutputTokens = budget(outputTokenLimit, Constants.DEFAULT_PACK_OUTPUT_TOKENS);
+    this.promptLength = promptLength;
+  }
+
+  /** Returns the packs as lists of indices into {@code scenarios}. */
+  public List<List<Integer>> pack(List<String> scenarios) {
+    List<List<Integer>> packs = new ArrayList<>();
+    List<Integer> current = new ArrayList<>();
+    List<String> currentTexts = new ArrayList<>();
+    int currentOutputTokens = 0;
+    for (int i = 0; i < scenarios.size(); i++) {
+      String scenario = scenarios.get(i);
+      int outputTokens = estimateOutputTokens(scenario);
+      if (!current.isEmpty()
+          && (current.size() >= Constants.MAX_SCENARIOS_PER_PACK
+              || currentOutputTokens + outputTokens > maxOutputTokens
+              || !fitsInput(currentTexts, scenario))) {
+        packs.add(current);
+        current = new ArrayList<>();
+        currentTexts = new ArrayList<>();
+        currentOutputTokens = 0;
+      }
+      current.add(i);
+      currentTexts.add(scenario);
+      currentOutputTokens += outputTokens;
+    }
+    if (!current.isEmpty()) {
+      packs.add(current);
+    }
+    return packs;
+  }
+
+  /** Rough token estimate for Gemini models (about four characters per token). */
+  public static int estimateTokens(int characters) {
+    return (characters + Constants.CHARS_PER_TOKEN - 1) / Constants.CHARS_PER_TOKEN;
+  }
+
+  private boolean fitsInput(List<String> currentTexts, String scenario) {
+    List<String> candidate = new ArrayList<>(currentTexts);
+    candidate.add(scenario);
+    return estimateTokens(promptLength.applyAsInt(candidate)) <= maxInputTokens;
+  }
+
+  private static int estimateOutputTokens(String scenario) {
+    int lines = 0;
+    for (String line : scenario.split("\\R")) {
+      if (!line.isBlank()) {
+        lines++;
+      }
+    }
+    return lines * Constants.ESTIMATED_OUTPUT_TOKENS_PER_LINE;
+  }
+
+  /** Uses a fraction of the model limit so estimation errors do not overflow the context. */
+  private static int budget(int limit, int fallback) {
+    return limit > 0 ? (int) (limit * Constants.PACK_TOKEN_BUDGET_RATIO) : fallback;
+  }
+}
@@ -0,0 +1,76 @@
+package com.vchatrola.result;
+
+import com.vchatrola.gherkin.GherkinDocument;
+import com.vchatrola.gherkin.GherkinLexer;
+import com.vchatrola.gherkin.GherkinLine;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assigns validation results to the lines of the text they were produced for.
+ *
+ * <p>Gemini identifies a line only by its title, so each result is matched to the first unclaimed
+ * line with the same normalized text, searching onwards from the previous match because results
+ * arrive in line order. When no line matches exactly (for example a scenario reported by its name
+ * only) the first unclaimed line containing the title is used. A locator keeps its claims across
+ * calls, so streamed results can be located one at a time. Blank and comment lines are never
+ * matched.
+ */
+public class LineLocator {
+  /** Normalized text by line index; {@code null} for lines no result can refer to. */
+  private final String[] lines;
+  private final boolean[] claimed;
+  private int next;
+
+  public LineLocator(String text) {
+    this(GherkinLexer.parse(text));
+  }
+
+  public LineLocator(GherkinDocument document) {
+    List<GherkinLine> documentLines = document.lines();
+    this.lines = new String[documentLines.size()];
+    for (GherkinLine line : documentLines) {
+      if (line.type() != GherkinLine.Type.EMPTY && line.type() != GherkinLine.Type.COMMENT) {
+        lines[line.index()] = normalize(document.text(line));
+      }
+    }
+    this.claimed = new boolean[lines.length];
+  }
+
+  public synchronized ValidationResult locate(ValidationResult result) {
+    String title = normalize(result.title());
+    int line = title.isEmpty() ? -1 : find(title, true);
+    if (line < 0 && !title.isEmpty()) {
+      line = find(title, false);
+    }
+    if (line < 0) {
+      return result.withLine(ValidationResult.UNKNOWN_LINE);
+    }
+    claimed[line] = true;
+    next = line + 1;
+    return result.withLine(line);
+  }
+
+  public List<ValidationResult> locateAll(List<ValidationResult> results) {
+    List<ValidationResult> located = new ArrayList<>(results.size());
+    for (ValidationResult result : results) {
+      located.add(locate(result));
+    }
+    return located;
+  }
+
+  public static String normalize(String line) {
+    return line.trim().replaceAll("\\s+", " ");
+  }
+
+  private int find(String title, boolean exact) {
+    for (int offset = 0; offset < lines.length; offset++) {
+      int i = (next + offset) % lines.length;
+      String line = lines[i];
+      if (line != null && !claimed[i] && (exact ? line.equals(title) : line.contains(title))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
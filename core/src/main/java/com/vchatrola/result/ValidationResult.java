@@ -0,0 +1,42 @@
+package com.vchatrola.result;
+
+import com.vchatrola.util.Constants;
+
+/**
+ * Gemini's verdict on one Gherkin line.
+ *
+ * @param line zero-based index of the line in the validated text, or {@link #UNKNOWN_LINE} when
+ *     the result could not be matched to a line
+ */
+public record ValidationResult(
+    int line, String title, Status status, String reason, String suggestion) {
+
+  public static final int UNKNOWN_LINE = -1;
+
+  public ValidationResult withLine(int newLine) {
+    if (newLine == line) {
+      return this;
+    }
+    return new ValidationResult(newLine, title, status, reason, suggestion);
+  }
+
+  public enum Status {
+    VALID(Constants.STATUS_VALID),
+    INVALID(Constants.STATUS_INVALID);
+
+    private final String label;
+
+    Status(String label) {
+      this.label = label;
+    }
+
+    public String label() {
+      return label;
+    }
+
+    /** Maps Gemini's status text to a status; anything but "Valid" counts as invalid. */
+    public static Status of(String text) {
+      return Constants.STATUS_VALID.equalsIgnoreCase(text.strip()) ? VALID : INVALID;
+    }
+  }
+}
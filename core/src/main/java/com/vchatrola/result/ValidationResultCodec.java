@@ -0,0 +1,39 @@
+package com.vchatrola.result;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vchatrola.util.GherkinLintLogger;
+import java.util.List;
+
+/** Converts result lists to and from the JSON kept in the persistent result store. */
+public final class ValidationResultCodec {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final TypeReference<List<ValidationResult>> RESULT_LIST = new TypeReference<>() {};
+
+  private ValidationResultCodec() {}
+
+  public static String encode(List<ValidationResult> results) {
+    try {
+      return MAPPER.writeValueAsString(results);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Failed to encode validation results.", e);
+    }
+  }
+
+  /**
+   * Decodes {@code json}, or returns {@code null} when it is not an encoded result list (such as
+   * an entry written by an older plugin version).
+   */
+  public static List<ValidationResult> decode(String json) {
+    if (json == null || json.isBlank()) {
+      return null;
+    }
+    try {
+      return List.copyOf(MAPPER.readValue(json, RESULT_LIST));
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      GherkinLintLogger.debug("Ignoring undecodable stored validation result.");
+      return null;
+    }
+  }
+}
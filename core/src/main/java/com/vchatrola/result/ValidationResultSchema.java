@@ -0,0 +1,55 @@
+package com.vchatrola.result;
+
+import com.vchatrola.gemini.dto.GeminiRecords.GenerationConfig;
+import com.vchatrola.gemini.dto.GeminiRecords.Schema;
+import com.vchatrola.util.Constants;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Gemini response schemas for validation reports: a JSON array with one {@link
+ * ValidationResult} object per Gherkin line, plus the scenario number in packed reports.
+ *
+ * <p>The field descriptions replace the report format instructions that used to be part of every
+ * prompt; Gemini reads them from the schema instead.
+ */
+public final class ValidationResultSchema {
+  public static final GenerationConfig SINGLE = GenerationConfig.json(report(false));
+  public static final GenerationConfig PACKED = GenerationConfig.json(report(true));
+
+  private ValidationResultSchema() {}
+
+  private static Schema report(boolean packed) {
+    Map<String, Schema> properties = new LinkedHashMap<>();
+    if (packed) {
+      properties.put(
+          "scenario", Schema.integer("The number of the scenario the line belongs to."));
+    }
+    properties.put(
+        field(Constants.PROPERTY_TITLE),
+        Schema.string(
+            "The scenario name for Scenario lines, otherwise the full line text including its"
+                + " keyword."));
+    properties.put(
+        field(Constants.PROPERTY_STATUS),
+        Schema.enumeration(
+            "The validation result for the line.",
+            List.of(Constants.STATUS_VALID, Constants.STATUS_INVALID)));
+    properties.put(
+        field(Constants.PROPERTY_REASON),
+        Schema.string("A brief explanation why the line is invalid; \"NA\" for valid lines."));
+    properties.put(
+        field(Constants.PROPERTY_SUGGESTION),
+        Schema.string(
+            "The corrected line for invalid lines; for valid lines, optional improvements such"
+                + " as clearer wording or better keyword usage."));
+    return Schema.array(
+        "One result per Gherkin line (Scenario, step or tag) of the input, in input order.",
+        Schema.object(properties));
+  }
+
+  private static String field(String property) {
+    return property.toLowerCase();
+  }
+}
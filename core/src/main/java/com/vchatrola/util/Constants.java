@@ -7,9 +7,10 @@ public class Constants {
 
   public static final String TOOL_WINDOW_ID = "GherkinLint";
   public static final String CONTENT_DISPLAY_NAME = "Result";
+  public static final String BATCH_CONTENT_DISPLAY_NAME = "Batch";
   public static final List<String> SUPPORTED_EXTENSIONS = List.of("story", "feature", "txt");
-  public static final List<String> GHERKIN_KEYWORDS =
-      List.of("Scenario", "Meta", "Given", "When", "Then", "And", "But", "*", "@");
+  /** Extensions of files that hold only Gherkin, walked by batch and live validation. */
+  public static final List<String> GHERKIN_FILE_EXTENSIONS = List.of("story", "feature");
   public static final String SCENARIO_KEYWORD = "Scenario";
   public static final String GIVEN_KEYWORD = "Given";
   public static final String WHEN_KEYWORD = "When";
@@ -35,9 +36,32 @@ public class Constants {
       "The selected Gherkin text includes an 'And', 'But', or '*' step without context. "
           + "These steps depend on preceding 'Given', 'When', or 'Then' steps to define the scenario flow. "
           + "Please include the preceding steps for proper validation.";
-  public static final long VALIDATION_THROTTLE_MS = 5000L;
-  public static final String VALIDATION_THROTTLED_ERROR =
-      "Please wait a moment before validating again.";
+  public static final String NO_GHERKIN_FILES_FOUND =
+      "No Gherkin scenarios found in the selected files or directories.";
+  public static final int DEFAULT_RATE_LIMIT_RPM = 15;
+  public static final int DEFAULT_RATE_LIMIT_TPM = 1_000_000;
+  public static final long RATE_LIMIT_MAX_WAIT_MS = 20_000L;
+  public static final int RESULT_CACHE_MAX_ENTRIES = 200;
+  public static final long RESULT_CACHE_TTL_MS = 30L * 60L * 1000L;
+  public static final long CONTEXT_CACHE_TTL_SECONDS = 3600L;
+  public static final long CONTEXT_CACHE_REFRESH_MARGIN_MS = 60_000L;
+  public static final String CONTEXT_CACHE_DISPLAY_NAME = "GherkinLint instructions";
+  public static final int LINE_CACHE_MAX_ENTRIES = 5000;
+  public static final long LIVE_VALIDATION_DEBOUNCE_MS = 1500L;
+  public static final long LIVE_VALIDATION_RETRY_DELAY_MS = 60_000L;
+  public static final int LIVE_VALIDATION_CACHE_MAX_ENTRIES = 1000;
+  public static final String PERSISTENT_CACHE_DIR = "gherkinlint";
+  public static final String PERSISTENT_CACHE_FILE = "validation-results.bin";
+  public static final int PERSISTENT_CACHE_MAX_ENTRIES = 2000;
+  public static final int DEFAULT_BATCH_CONCURRENCY = 4;
+  public static final int MAX_BATCH_CONCURRENCY = 16;
+  public static final int MAX_SCENARIOS_PER_PACK = 20;
+  public static final long CANCELLATION_CHECK_INTERVAL_MS = 100L;
+  public static final double PACK_TOKEN_BUDGET_RATIO = 0.5;
+  public static final int DEFAULT_PACK_INPUT_TOKENS = 16000;
+  public static final int DEFAULT_PACK_OUTPUT_TOKENS = 4000;
+  public static final int CHARS_PER_TOKEN = 4;
+  public static final int ESTIMATED_OUTPUT_TOKENS_PER_LINE = 80;
   public static final String NO_GEMINI_SERVICE_RESPONSE_ERROR =
       "No response received from the Gemini service.";
   public static final String NO_GEMINI_MODELS_AVAILABLE =
@@ -46,6 +70,7 @@ public class Constants {
       "Gemini rate limit exceeded. Try again later or check your usage limits.";
   public static final String UNKNOWN_ERROR =
       "An error occurred during Gherkin text validation task execution.";
+  public static final String VALIDATION_CANCELLED = "Validation cancelled.";
   public static final String CONSOLE_OUTPUT_PRINT_FAILURE = "Failed to print console output.";
   public static final String GEMINI_SERVICE_ACCESS_ERROR =
       "Unable to access GeminiService. Please ensure the service is properly "
@@ -1,71 +1,185 @@
 package com.vchatrola.util;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonToken;
+import com.vchatrola.result.ValidationResult;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Decodes Gemini's JSON validation report into {@link ValidationResult}s.
+ *
+ * <p>The report is read with a streaming parser starting at the first {@code [} of the response.
+ * Responses requested in JSON mode start with the array; older cached responses may still be
+ * wrapped in a Markdown code fence, which is skipped without copying the response. Each result
+ * object is turned into a record as soon as its fields have been read. Results carry
+ * {@link ValidationResult#UNKNOWN_LINE}; {@link com.vchatrola.result.LineLocator} assigns lines.
+ */
 public class GherkinOutputParser {
 
-  private static final ObjectMapper objectMapper = new ObjectMapper();
-  private static final String JSON_ARRAY_OPEN = "[";
-  private static final String JSON_ARRAY_CLOSE = "]";
-  private static final String SEPARATOR = "|";
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final String TITLE_FIELD = Constants.PROPERTY_TITLE.toLowerCase();
+  private static final String STATUS_FIELD = Constants.PROPERTY_STATUS.toLowerCase();
+  private static final String REASON_FIELD = Constants.PROPERTY_REASON.toLowerCase();
+  private static final String SUGGESTION_FIELD = Constants.PROPERTY_SUGGESTION.toLowerCase();
+  private static final String SCENARIO_FIELD = "scenario";
 
-  public static String parseOutput(String jsonString) throws JsonProcessingException {
-    StringBuilder resultBuilder = new StringBuilder();
-    jsonString = extractJsonContent(jsonString);
-    if (jsonString == null || jsonString.isBlank()) {
-      throw new IllegalArgumentException("Gemini response did not contain a JSON array.");
-    }
-    JsonNode jsonArray = objectMapper.readTree(jsonString);
-    if (!jsonArray.isArray()) {
-      throw new IllegalArgumentException("Gemini response JSON must be an array.");
-    }
+  /** Reads every result of the JSON array in {@code response}. */
+  public static List<ValidationResult> readResults(String response)
+      throws JsonProcessingException {
+    List<ValidationResult> results = new ArrayList<>();
+    readArray(response, (scenario, result) -> results.add(result));
+    return results;
+  }
 
-    for (JsonNode jsonObject : jsonArray) {
-      String title = getOptionalText(jsonObject, Constants.PROPERTY_TITLE.toLowerCase());
-      String status = getOptionalText(jsonObject, Constants.PROPERTY_STATUS.toLowerCase());
-      String reason = getOptionalText(jsonObject, Constants.PROPERTY_REASON.toLowerCase());
-      String suggestion = getOptionalText(jsonObject, Constants.PROPERTY_SUGGESTION.toLowerCase());
-
-      String missingFields = getMissingFields(title, status, reason, suggestion);
-      if (!missingFields.isBlank()) {
-        title = title.isBlank() ? "Unknown" : title;
-        status = Constants.STATUS_INVALID;
-        reason = "Missing required field(s): " + missingFields;
-        suggestion = "Ensure Gemini returns title/status/reason/suggestion for each item.";
+  /** Reads a single result object. */
+  public static ValidationResult readResult(String objectJson) throws JsonProcessingException {
+    try (JsonParser parser = JSON_FACTORY.createParser(objectJson)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IllegalArgumentException("Gemini result must be a JSON object.");
       }
+      return readObject(parser).result();
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      throw e;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
 
-      resultBuilder.append(Constants.PROPERTY_TITLE).append(SEPARATOR).append(title).append("\n");
-      resultBuilder.append(Constants.PROPERTY_STATUS).append(SEPARATOR).append(status).append("\n");
-      resultBuilder.append(Constants.PROPERTY_REASON).append(SEPARATOR).append(reason).append("\n");
-      resultBuilder
-          .append(Constants.PROPERTY_SUGGESTION)
-          .append(SEPARATOR)
-          .append(suggestion)
-          .append("\n\n");
+  /**
+   * Reads a single streamed result object. An object that cannot be read is returned as an invalid
+   * result without a line, like an object with missing fields, so that it is reported rather than
+   * dropped.
+   */
+  public static ValidationResult readStreamedResult(String objectJson) {
+    try {
+      return readResult(objectJson);
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      GherkinLintLogger.debug("Unreadable streamed result.", e);
+      return new ValidationResult(
+          ValidationResult.UNKNOWN_LINE,
+          "Unknown",
+          ValidationResult.Status.INVALID,
+          "Unreadable Gemini result: " + e.getMessage(),
+          "Validate the selection again.");
     }
+  }
+
+  /**
+   * Reads the results of a packed response, grouped by their 1-based {@code scenario} number.
+   * Results without a valid number are dropped.
+   */
+  public static List<List<ValidationResult>> readPackedResults(String response, int scenarioCount)
+      throws JsonProcessingException {
+    List<List<ValidationResult>> grouped = new ArrayList<>(scenarioCount);
+    for (int i = 0; i < scenarioCount; i++) {
+      grouped.add(new ArrayList<>());
+    }
+    readArray(
+        response,
+        (scenario, result) -> {
+          if (scenario < 1 || scenario > scenarioCount) {
+            GherkinLintLogger.debug("Dropping packed result without a valid scenario number.");
+            return;
+          }
+          grouped.get(scenario - 1).add(result);
+        });
+    return grouped;
+  }
 
-    return resultBuilder.toString();
+  private static void readArray(String response, ResultSink sink)
+      throws JsonProcessingException {
+    int start = response.indexOf('[');
+    if (start < 0) {
+      throw new IllegalArgumentException("Gemini response did not contain a JSON array.");
+    }
+    StringReader reader = new StringReader(response);
+    try {
+      reader.skip(start);
+      try (JsonParser parser = JSON_FACTORY.createParser(reader)) {
+        parser.nextToken();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+          if (token == null) {
+            throw new IllegalArgumentException("Gemini response JSON array is not closed.");
+          }
+          ParsedResult parsed = readElement(parser, token);
+          sink.accept(parsed.scenario(), parsed.result());
+        }
+      }
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      throw e;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 
-  private static String extractJsonContent(String response) {
-    int startIndex = response.indexOf(JSON_ARRAY_OPEN);
-    int endIndex = response.lastIndexOf(JSON_ARRAY_CLOSE);
+  private static ParsedResult readElement(JsonParser parser, JsonToken token) throws IOException {
+    if (token == JsonToken.START_OBJECT) {
+      return readObject(parser);
+    }
+    // Non-object elements carry no fields and are reported as incomplete results.
+    parser.skipChildren();
+    return new ParsedResult(0, toResult("", "", "", ""));
+  }
 
-    if (startIndex != -1 && endIndex != -1 && startIndex < endIndex) {
-      return response.substring(startIndex, endIndex + 1);
-    } else {
-      return null;
+  private static ParsedResult readObject(JsonParser parser) throws IOException {
+    String title = "";
+    String status = "";
+    String reason = "";
+    String suggestion = "";
+    int scenario = 0;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if (TITLE_FIELD.equals(field)) {
+        title = scalarText(parser, value);
+      } else if (STATUS_FIELD.equals(field)) {
+        status = scalarText(parser, value);
+      } else if (REASON_FIELD.equals(field)) {
+        reason = scalarText(parser, value);
+      } else if (SUGGESTION_FIELD.equals(field)) {
+        suggestion = scalarText(parser, value);
+      } else if (SCENARIO_FIELD.equals(field) && value.isNumeric()) {
+        scenario = parser.getValueAsInt(0);
+      } else {
+        parser.skipChildren();
+      }
     }
+    return new ParsedResult(scenario, toResult(title, status, reason, suggestion));
   }
 
-  private static String getOptionalText(JsonNode node, String field) {
-    if (node == null || field == null) {
+  private static String scalarText(JsonParser parser, JsonToken value) throws IOException {
+    if (value.isStructStart()) {
+      parser.skipChildren();
       return "";
     }
-    JsonNode value = node.get(field);
-    return value != null && !value.isNull() ? value.asText() : "";
+    String text = parser.getValueAsString();
+    return text != null ? text : "";
+  }
+
+  private static ValidationResult toResult(
+      String title, String status, String reason, String suggestion) {
+    String missingFields = getMissingFields(title, status, reason, suggestion);
+    if (!missingFields.isBlank()) {
+      return new ValidationResult(
+          ValidationResult.UNKNOWN_LINE,
+          title.isBlank() ? "Unknown" : title,
+          ValidationResult.Status.INVALID,
+          "Missing required field(s): " + missingFields,
+          "Ensure Gemini returns title/status/reason/suggestion for each item.");
+    }
+    return new ValidationResult(
+        ValidationResult.UNKNOWN_LINE,
+        title,
+        ValidationResult.Status.of(status),
+        reason,
+        suggestion);
   }
 
   private static String getMissingFields(
@@ -92,4 +206,11 @@ public class GherkinOutputParser {
     }
     missing.append(field);
   }
+
+  @FunctionalInterface
+  private interface ResultSink {
+    void accept(int scenario, ValidationResult result);
+  }
+
+  private record ParsedResult(int scenario, ValidationResult result) {}
 }
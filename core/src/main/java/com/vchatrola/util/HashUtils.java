@@ -0,0 +1,42 @@
+package com.vchatrola.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/** Hashing helpers used to build content-addressed cache keys. */
+public final class HashUtils {
+  private static final String ALGORITHM = "SHA-256";
+  private static final byte SEPARATOR = 0;
+
+  private HashUtils() {
+    // Private constructor to prevent instantiation
+  }
+
+  /**
+   * Returns the hex encoded SHA-256 digest of the given parts. Parts are separated by a NUL byte so
+   * that {@code ("ab", "c")} and {@code ("a", "bc")} produce different hashes.
+   */
+  public static String sha256Hex(String... parts) {
+    MessageDigest digest = newDigest();
+    for (int i = 0; i < parts.length; i++) {
+      if (i > 0) {
+        digest.update(SEPARATOR);
+      }
+      String part = parts[i];
+      if (part != null) {
+        digest.update(part.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(ALGORITHM + " is not available.", e);
+    }
+  }
+}
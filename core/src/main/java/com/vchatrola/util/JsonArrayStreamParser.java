@@ -0,0 +1,80 @@
+package com.vchatrola.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Incremental scanner for a JSON array of objects that arrives in arbitrary chunks.
+ *
+ * <p>Text before the first {@code [} (such as a Markdown code fence) is skipped. Every top-level
+ * object of the array is handed to the consumer as raw JSON as soon as its closing brace has been
+ * read; anything after the closing {@code ]} is ignored. The scanner only tracks nesting and
+ * string state, so it never re-reads earlier input.
+ */
+public class JsonArrayStreamParser {
+  private final Consumer<String> onObject;
+  private final StringBuilder current = new StringBuilder();
+  private boolean inArray;
+  private boolean done;
+  private boolean inString;
+  private boolean escaped;
+  private int depth;
+  private int objectCount;
+
+  public JsonArrayStreamParser(Consumer<String> onObject) {
+    this.onObject = onObject;
+  }
+
+  public void feed(CharSequence chunk) {
+    for (int i = 0; i < chunk.length() && !done; i++) {
+      accept(chunk.charAt(i));
+    }
+  }
+
+  /** Number of complete objects emitted so far. */
+  public int objectCount() {
+    return objectCount;
+  }
+
+  private void accept(char c) {
+    if (!inArray) {
+      inArray = c == '[';
+      return;
+    }
+    if (depth == 0) {
+      if (c == '{') {
+        depth = 1;
+        current.setLength(0);
+        current.append(c);
+      } else if (c == ']') {
+        done = true;
+      }
+      return;
+    }
+
+    current.append(c);
+    if (inString) {
+      if (escaped) {
+        escaped = false;
+      } else if (c == '\\') {
+        escaped = true;
+      } else if (c == '"') {
+        inString = false;
+      }
+      return;
+    }
+    switch (c) {
+      case '"' -> inString = true;
+      case '{', '[' -> depth++;
+      case '}', ']' -> {
+        depth--;
+        if (depth == 0) {
+          objectCount++;
+          onObject.accept(current.toString());
+        }
+      }
+      default -> {
+        // Other characters only extend the current object.
+      }
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.vchatrola.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vchatrola.result.ValidationResult;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LineResultStoreTest {
+
+  private static final String SCENARIO =
+      """
+      Scenario: User logs in
+        Given the user is on the login page
+        When the user submits valid credentials
+        Then the dashboard is shown
+        And a welcome message is shown
+      """;
+
+  @Test
+  void plan_sendsOnlyChangedLinesAfterFirstValidation() {
+    LineResultStore store = new LineResultStore(100, 0L);
+    LineResultStore.Plan first = store.plan(SCENARIO, "model", "config");
+    assertEquals(5, first.pending().size());
+    store.merge(first, outputFor(first.pendingText()));
+
+    String edited = SCENARIO.replace("valid credentials", "correct credentials");
+    LineResultStore.Plan second = store.plan(edited, "model", "config");
+
+    assertEquals(1, second.pending().size());
+    assertEquals("When the user submits correct credentials", second.pendingText().trim());
+  }
+
+  @Test
+  void plan_includesPrecedingStepForChangedAndStep() {
+    LineResultStore store = new LineResultStore(100, 0L);
+    LineResultStore.Plan first = store.plan(SCENARIO, "model", "config");
+    store.merge(first, outputFor(first.pendingText()));
+
+    String edited = SCENARIO.replace("welcome message", "greeting");
+    LineResultStore.Plan second = store.plan(edited, "model", "config");
+
+    assertEquals(2, second.pending().size());
+    assertTrue(second.pendingText().contains("Then the dashboard is shown"));
+    assertTrue(second.pendingText().contains("And a greeting is shown"));
+  }
+
+  @Test
+  void plan_revalidatesScenarioWhoseStepsWereReordered() {
+    LineResultStore store = new LineResultStore(100, 0L);
+    LineResultStore.Plan first = store.plan(SCENARIO, "model", "config");
+    store.merge(first, outputFor(first.pendingText()));
+
+    String reordered =
+        """
+        Scenario: User logs in
+          Given the user is on the login page
+          Then the dashboard is shown
+          And a welcome message is shown
+          When the user submits valid credentials
+        """;
+    LineResultStore.Plan second = store.plan(reordered, "model", "config");
+
+    assertEquals(5, second.pending().size());
+    assertFalse(second.isComplete());
+  }
+
+  @Test
+  void merge_keepsSelectionOrder() {
+    LineResultStore store = new LineResultStore(100, 0L);
+    LineResultStore.Plan first = store.plan(SCENARIO, "model", "config");
+    store.merge(first, outputFor(first.pendingText()));
+
+    String edited = SCENARIO.replace("login page", "sign-in page");
+    LineResultStore.Plan second = store.plan(edited, "model", "config");
+    List<ValidationResult> merged = store.merge(second, outputFor(second.pendingText()));
+
+    assertEquals(5, merged.size());
+    assertEquals("Scenario: User logs in", merged.get(0).title());
+    assertEquals("Given the user is on the sign-in page", merged.get(1).title());
+    assertEquals("Then the dashboard is shown", merged.get(3).title());
+    assertFalse(merged.stream().anyMatch(result -> result.title().contains("login page")));
+  }
+
+  @Test
+  void merge_setsSelectionLineNumbers() {
+    LineResultStore store = new LineResultStore(100, 0L);
+    LineResultStore.Plan first = store.plan(SCENARIO, "model", "config");
+    store.merge(first, outputFor(first.pendingText()));
+
+    String edited = SCENARIO.replace("dashboard", "home page");
+    LineResultStore.Plan second = store.plan(edited, "model", "config");
+    List<ValidationResult> merged = store.merge(second, outputFor(second.pendingText()));
+
+    for (int i = 0; i < merged.size(); i++) {
+      assertEquals(i, merged.get(i).line());
+    }
+  }
+
+  @Test
+  void plan_isCompleteWhenAllLinesAreCached() {
+    LineResultStore store = new LineResultStore(100, 0L);
+    LineResultStore.Plan first = store.plan(SCENARIO, "model", "config");
+    store.merge(first, outputFor(first.pendingText()));
+
+    assertTrue(store.plan(SCENARIO, "model", "config").isComplete());
+    assertFalse(store.plan(SCENARIO, "model", "other-config").isComplete());
+  }
+
+  @Test
+  void pendingText_keepsExamplesTables() {
+    LineResultStore store = new LineResultStore(100, 0L);
+    String outline =
+        """
+        Scenario Outline: User searches
+          Given the user searches for <term>
+          Examples:
+            | term |
+            | shoes |
+        """;
+
+    String pendingText = store.plan(outline, "model", "config").pendingText();
+
+    assertTrue(pendingText.contains("Examples:"));
+    assertTrue(pendingText.contains("| shoes |"));
+  }
+
+  private static List<ValidationResult> outputFor(String text) {
+    List<ValidationResult> output = new ArrayList<>();
+    for (String line : text.split("\\R")) {
+      output.add(
+          new ValidationResult(
+              ValidationResult.UNKNOWN_LINE,
+              line.trim(),
+              ValidationResult.Status.VALID,
+              "NA",
+              "OK"));
+    }
+    return output;
+  }
+}
@@ -0,0 +1,108 @@
+package com.vchatrola.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PersistentResultStoreTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void open_restoresEntriesWrittenBeforeClose() {
+    Path file = tempDir.resolve("results.bin");
+    try (PersistentResultStore store = PersistentResultStore.open(file, 10)) {
+      store.put("a", "result a");
+      store.put("b", "result b");
+    }
+
+    try (PersistentResultStore reopened = PersistentResultStore.open(file, 10)) {
+      assertEquals("result a", reopened.get("a"));
+      assertEquals("result b", reopened.get("b"));
+    }
+  }
+
+  @Test
+  void put_evictsLeastRecentlyUsedEntries() {
+    try (PersistentResultStore store =
+        PersistentResultStore.open(tempDir.resolve("results.bin"), 2)) {
+      store.put("a", "1");
+      store.put("b", "2");
+      store.get("a");
+      store.put("c", "3");
+
+      assertEquals("1", store.get("a"));
+      assertNull(store.get("b"));
+      assertEquals(2, store.size());
+    }
+  }
+
+  @Test
+  void open_keepsLeastRecentlyUsedOrderAcrossRestarts() {
+    Path file = tempDir.resolve("results.bin");
+    try (PersistentResultStore store = PersistentResultStore.open(file, 2)) {
+      store.put("a", "1");
+      store.put("b", "2");
+      store.get("a");
+    }
+
+    try (PersistentResultStore reopened = PersistentResultStore.open(file, 2)) {
+      reopened.put("c", "3");
+
+      assertEquals("1", reopened.get("a"));
+      assertNull(reopened.get("b"));
+    }
+  }
+
+  @Test
+  void put_compactsLogWhenItGrowsBeyondBound() throws Exception {
+    Path file = tempDir.resolve("results.bin");
+    try (PersistentResultStore store = PersistentResultStore.open(file, 2)) {
+      store.put("a", "1");
+      long sizeAfterOneRecord = Files.size(file);
+      for (int i = 0; i < 10; i++) {
+        store.put("k" + i, "value " + i);
+      }
+      assertTrue(Files.size(file) < sizeAfterOneRecord * 4);
+    }
+    try (PersistentResultStore reopened = PersistentResultStore.open(file, 2)) {
+      assertEquals("value 9", reopened.get("k9"));
+      assertEquals(2, reopened.size());
+    }
+  }
+
+  @Test
+  void open_dropsCorruptTail() throws Exception {
+    Path file = tempDir.resolve("results.bin");
+    try (PersistentResultStore store = PersistentResultStore.open(file, 10)) {
+      store.put("a", "1");
+    }
+    Files.write(file, new byte[] {0, 0, 0, 1, 'x', 0, 0}, StandardOpenOption.APPEND);
+
+    try (PersistentResultStore reopened = PersistentResultStore.open(file, 10)) {
+      assertEquals("1", reopened.get("a"));
+      reopened.put("b", "2");
+    }
+    try (PersistentResultStore reopened = PersistentResultStore.open(file, 10)) {
+      assertEquals("2", reopened.get("b"));
+    }
+  }
+
+  @Test
+  void open_ignoresFileWithUnknownFormat() throws Exception {
+    Path file = tempDir.resolve("results.bin");
+    Files.writeString(file, "not a result store");
+
+    try (PersistentResultStore store = PersistentResultStore.open(file, 10)) {
+      assertEquals(0, store.size());
+      store.put("a", "1");
+      assertEquals("1", store.get("a"));
+    }
+  }
+}
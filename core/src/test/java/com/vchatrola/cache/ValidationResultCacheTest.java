@@ -0,0 +1,56 @@
+package com.vchatrola.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ValidationResultCacheTest {
+
+  @Test
+  void get_returnsStoredValue() {
+    ValidationResultCache<String> cache = new ValidationResultCache<>(10, 1000L);
+    cache.put("key", "value");
+
+    assertEquals("value", cache.get("key"));
+  }
+
+  @Test
+  void put_evictsLeastRecentlyUsedEntryWhenFull() {
+    ValidationResultCache<String> cache = new ValidationResultCache<>(2, 0L);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    cache.get("a");
+    cache.put("c", "3");
+
+    assertEquals("1", cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals("3", cache.get("c"));
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  void get_dropsExpiredEntries() {
+    AtomicLong now = new AtomicLong(0L);
+    ValidationResultCache<String> cache = new ValidationResultCache<>(10, 100L, now::get);
+    cache.put("key", "value");
+
+    now.set(99L);
+    assertEquals("value", cache.get("key"));
+    now.set(100L);
+    assertNull(cache.get("key"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void keyFor_dependsOnModelAndConfigIdentity() {
+    String key = ValidationResultCache.keyFor("prompt", "model-a", "config-1");
+
+    assertEquals(key, ValidationResultCache.keyFor("prompt", "model-a", "config-1"));
+    assertNotEquals(key, ValidationResultCache.keyFor("prompt", "model-b", "config-1"));
+    assertNotEquals(key, ValidationResultCache.keyFor("prompt", "model-a", "config-2"));
+    assertNotEquals(key, ValidationResultCache.keyFor("prompt!", "model-a", "config-1"));
+  }
+}
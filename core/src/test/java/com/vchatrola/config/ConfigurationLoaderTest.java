@@ -3,6 +3,7 @@ package com.vchatrola.config;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -23,6 +24,12 @@ class ConfigurationLoaderTest {
     assertEquals("Test context", node.get("CONTEXT").asText());
   }
 
+  @Test
+  void loadDefaultConfiguration_parsesOncePerSession() throws Exception {
+    JsonNode first = new ConfigurationLoader().loadDefaultConfiguration();
+    assertSame(first, new ConfigurationLoader().loadDefaultConfiguration());
+  }
+
   @Test
   void loadCustomConfiguration_returnsNullForMissingFile() {
     ConfigurationLoader loader = new ConfigurationLoader();
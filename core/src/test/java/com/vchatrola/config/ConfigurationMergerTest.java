@@ -2,6 +2,7 @@ package com.vchatrola.config;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -64,4 +65,28 @@ class ConfigurationMergerTest {
 
     assertEquals(0, merged.get("ARR").size());
   }
+
+  @Test
+  void mergeConfigurations_leavesInputsUnchangedAndSharesUntouchedSubtrees() throws Exception {
+    JsonNode defaultConfig =
+        mapper.readTree(
+            """
+                {
+                  "A": { "B": 1 },
+                  "KEEP": { "K": [1, 2] },
+                  "ARR": [1, 2]
+                }
+                """);
+    JsonNode customConfig = mapper.readTree("{ \"A\": { \"B\": 2 }, \"ARR\": [3] }");
+    String defaultsBefore = defaultConfig.toString();
+    String customBefore = customConfig.toString();
+
+    JsonNode merged = new ConfigurationMerger().mergeConfigurations(defaultConfig, customConfig);
+
+    assertEquals(defaultsBefore, defaultConfig.toString());
+    assertEquals(customBefore, customConfig.toString());
+    assertEquals(2, merged.get("A").get("B").asInt());
+    assertEquals("[3]", merged.get("ARR").toString());
+    assertSame(defaultConfig.get("KEEP"), merged.get("KEEP"));
+  }
 }
@@ -0,0 +1,81 @@
+package com.vchatrola.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RuleSetTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  void compile_readsAllRuleSections() throws Exception {
+    RuleSet rules =
+        RuleSet.compile(
+            mapper.readTree(
+                """
+                {
+                  "CONTEXT": "Context",
+                  "TASKS": ["Task"],
+                  "ENTITIES": ["User"],
+                  "REQUIREMENTS": ["Requirement"],
+                  "PERSPECTIVE": "tester",
+                  "GIVEN": {
+                    "structure": ["Given structure"],
+                    "requirements": ["Given requirement"],
+                    "tense": "past tense",
+                    "examples": {
+                      "valid": ["Given valid"],
+                      "invalid": [{ "example": "Given bad", "reason": "Reason" }]
+                    },
+                    "feedback": ["Given feedback"]
+                  },
+                  "TAG": { "requirements": ["Tag requirement"] }
+                }
+                """));
+
+    assertEquals("Context", rules.context());
+    assertEquals(List.of("Task"), rules.tasks());
+    assertEquals(List.of("User"), rules.entities());
+    assertEquals(List.of("Requirement"), rules.requirements());
+    assertTrue(rules.hasPerspective());
+    RuleSet.KeywordRules given = rules.given();
+    assertEquals(List.of("Given structure"), given.structure());
+    assertEquals(List.of("Given requirement"), given.requirements());
+    assertEquals("past tense", given.tense());
+    assertEquals(List.of("Given valid"), given.validExamples());
+    assertEquals(
+        List.of(new RuleSet.InvalidExample("Given bad", "Reason", "")), given.invalidExamples());
+    assertEquals(List.of("Given feedback"), given.feedback());
+    assertEquals(List.of("Tag requirement"), rules.tag().requirements());
+  }
+
+  @Test
+  void compile_treatsMissingAndMalformedSectionsAsEmpty() throws Exception {
+    RuleSet rules =
+        RuleSet.compile(
+            mapper.readTree(
+                """
+                { "ENTITIES": "User", "PERSPECTIVE": "  ", "WHEN": { "examples": {} } }
+                """));
+
+    assertEquals("", rules.context());
+    assertTrue(rules.entities().isEmpty());
+    assertFalse(rules.hasPerspective());
+    assertFalse(rules.when().hasExamples());
+    assertFalse(rules.then().hasTense());
+    assertTrue(rules.scenario().structure().isEmpty());
+  }
+
+  @Test
+  void compile_returnsImmutableLists() throws Exception {
+    RuleSet rules = RuleSet.compile(mapper.readTree("{\"TASKS\": [\"Task\"]}"));
+
+    assertThrows(UnsupportedOperationException.class, () -> rules.tasks().add("Other"));
+  }
+}
@@ -0,0 +1,169 @@
+package com.vchatrola.gherkin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vchatrola.gherkin.GherkinLine.StepKeyword;
+import com.vchatrola.gherkin.GherkinLine.Type;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GherkinLexerTest {
+
+  @Test
+  void parse_buildsScenariosWithTagsStepsTablesAndExamples() {
+    String feature =
+        """
+        Feature: Search
+
+          # Searching by term
+          @search @smoke
+          Scenario Outline: User searches
+            Given the catalog contains:
+              | name  |
+              | shoes |
+            When the user searches for <term>
+            Then the results are shown
+            Examples:
+              | term  |
+              | shoes |
+        """;
+
+    GherkinDocument document = GherkinLexer.parse(feature);
+
+    assertEquals(Type.FEATURE, document.feature().type());
+    assertEquals("Search", document.title(document.feature()));
+    assertEquals(Type.COMMENT, document.lines().get(2).type());
+    assertEquals(1, document.scenarios().size());
+
+    GherkinDocument.Scenario scenario = document.scenarios().getFirst();
+    assertEquals("User searches", document.title(scenario.header()));
+    assertEquals(1, scenario.tags().size());
+    assertEquals("@search @smoke", document.text(scenario.tags().getFirst()));
+    assertEquals(3, scenario.steps().size());
+
+    GherkinDocument.Step given = scenario.steps().getFirst();
+    assertEquals(StepKeyword.GIVEN, given.keyword());
+    assertEquals("the catalog contains:", document.title(given.line()));
+    assertEquals(2, given.argument().size());
+    assertFalse(scenario.steps().get(1).hasArgument());
+
+    assertEquals(1, scenario.examples().size());
+    assertEquals(2, scenario.examples().getFirst().rows().size());
+    assertTrue(document.hasPlaceholders());
+    assertTrue(document.hasTags());
+    assertTrue(document.hasScenarioHeader());
+  }
+
+  @Test
+  void parse_recordsOffsetsIntoTheText() {
+    String text = "  Given a user  \n\tWhen they log in";
+
+    GherkinDocument document = GherkinLexer.parse(text);
+
+    GherkinLine given = document.lines().getFirst();
+    assertEquals(2, given.start());
+    assertEquals(14, given.end());
+    assertEquals("Given a user", given.text(text));
+    assertEquals("a user", given.title(text));
+    GherkinLine when = document.lines().get(1);
+    assertEquals(1, when.index());
+    assertEquals(18, when.start());
+    assertEquals(text.length(), when.end());
+  }
+
+  @Test
+  void parse_splitsLinesLikeSplitWithNegativeLimit() {
+    assertEquals(3, GherkinLexer.parse("Given a\r\nWhen b\r\n").lines().size());
+    assertEquals(3, GherkinLexer.parse("Given a\rWhen b\nThen c").lines().size());
+    assertEquals(1, GherkinLexer.parse("").lines().size());
+  }
+
+  @Test
+  void parse_tracksTheGivenWhenThenPartOfContinuationSteps() {
+    GherkinDocument document =
+        GherkinLexer.parse("Given a user\nAnd an admin\nWhen the user logs in\n* the page loads");
+
+    List<GherkinDocument.Step> steps = document.scenarios().getFirst().steps();
+    assertNull(document.scenarios().getFirst().header());
+    assertEquals(StepKeyword.GIVEN, steps.get(1).part());
+    assertEquals(StepKeyword.WHEN, steps.get(3).part());
+    assertTrue(document.hasPart(StepKeyword.WHEN));
+    assertFalse(document.hasPart(StepKeyword.THEN));
+    assertFalse(document.hasScenarioHeader());
+  }
+
+  @Test
+  void parse_ignoresKeywordsInsideStepTextAndDocStrings() {
+    String text =
+        """
+        Given the user reads "Then and When" in the manual
+        And the note says:
+          \"\"\"
+          Then nothing @happens
+          \"\"\"
+        """;
+
+    GherkinDocument document = GherkinLexer.parse(text);
+
+    assertTrue(document.hasStep(StepKeyword.GIVEN));
+    assertFalse(document.hasStep(StepKeyword.THEN));
+    assertFalse(document.hasStep(StepKeyword.WHEN));
+    assertFalse(document.hasTags());
+    assertEquals(Type.DOC_STRING, document.lines().get(3).type());
+    assertEquals(3, document.scenarios().getFirst().steps().get(1).argument().size());
+  }
+
+  @Test
+  void parse_handlesJBehaveMetaAndExamples() {
+    GherkinDocument document =
+        GherkinLexer.parse(
+            "Scenario: User logs in\nMeta: @login\nGiven a user\nExamples:\n| user |\n| bob |");
+
+    assertEquals(Type.META, document.lines().get(1).type());
+    assertTrue(document.hasTags());
+    assertEquals(2, document.scenarios().getFirst().examples().getFirst().rows().size());
+  }
+
+  @Test
+  void firstLine_skipsBlankAndCommentLines() {
+    assertEquals(Type.TAG, GherkinLexer.firstLine("\n# comment\n@smoke\nScenario: A").type());
+    assertEquals(StepKeyword.ASTERISK, GherkinLexer.firstLine("  * user logs in").keyword());
+    assertEquals(StepKeyword.GIVEN, GherkinLexer.firstLine("Given a user exists").keyword());
+    assertEquals(Type.TEXT, GherkinLexer.firstLine("Givens are not steps").type());
+    assertNull(GherkinLexer.firstLine(" \n# only a comment"));
+  }
+
+  @Test
+  void firstLine_startsValidationOnlyWithContext() {
+    assertTrue(GherkinLexer.firstLine("Scenario: A").startsValidation());
+    assertTrue(GherkinLexer.firstLine("When a user logs in").startsValidation());
+    assertFalse(GherkinLexer.firstLine("And a user logs in").startsValidation());
+    assertFalse(GherkinLexer.firstLine("Feature: Login").startsValidation());
+  }
+
+  @Test
+  void startsWithKeyword_checksTheFirstLineOfTheRange() {
+    String text = "Feature: A\n\n  # note\r\n  @smoke\nScenario: B\n  And more\n  Or else";
+
+    assertFalse(GherkinLexer.startsWithKeyword(text, 0, text.length()));
+    assertTrue(GherkinLexer.startsWithKeyword(text, 10, text.length()));
+    assertTrue(GherkinLexer.startsWithKeyword(text, text.indexOf("And"), text.length()));
+    assertFalse(GherkinLexer.startsWithKeyword(text, text.indexOf("Or"), text.length()));
+    assertFalse(GherkinLexer.startsWithKeyword(text, 10, text.indexOf("@")));
+    assertFalse(GherkinLexer.startsWithKeyword("Given", 0, 5));
+    assertTrue(GherkinLexer.startsWithKeyword("Given a user" + "!".repeat(10_000), 0, 10_012));
+  }
+
+  @Test
+  void classify_readsASingleLine() {
+    String text = "Feature: A\n  Background:\n  | a |";
+
+    assertEquals(Type.FEATURE, GherkinLexer.classify(text, 0, 10));
+    assertEquals(Type.BACKGROUND, GherkinLexer.classify(text, 11, 24));
+    assertEquals(Type.TABLE_ROW, GherkinLexer.classify(text, 25, text.length()));
+    assertEquals(StepKeyword.BUT, GherkinLexer.stepKeyword("But not this", 0, 12));
+  }
+}
@@ -0,0 +1,202 @@
+package com.vchatrola.gherkin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vchatrola.config.RuleSet;
+import com.vchatrola.result.ValidationResult;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GherkinPreLinterTest {
+
+  private static final GherkinPreLinter LINTER = GherkinPreLinter.forRules(defaultRules());
+
+  @Test
+  void lint_acceptsWellFormedScenario() {
+    String scenario =
+        """
+        @smoke @user-login
+        Scenario Outline: User logs in
+          Given the user is on the login page
+          And the user has an account
+          When the user submits <credentials>
+          Then the dashboard is shown
+          And the following widgets are shown:
+            | widget |
+            | news   |
+          Examples:
+            | credentials |
+            | valid       |
+        """;
+
+    assertEquals(List.of(), LINTER.lint(scenario));
+  }
+
+  @Test
+  void lint_reportsOrderRepeatsAndOrSteps() {
+    String scenario =
+        """
+        Scenario: User logs in
+          Given the user is on the login page
+          Given the user has an account
+          When the user submits valid credentials
+          Or the user submits a token
+          Then the dashboard is shown
+          When the user logs out
+        """;
+
+    List<ValidationResult> results = LINTER.lint(scenario);
+
+    assertEquals(List.of(2, 4, 6), results.stream().map(ValidationResult::line).toList());
+    assertEquals("And the user has an account", results.get(0).suggestion());
+    assertTrue(results.get(1).reason().contains("'Or'"));
+    assertEquals("When the user logs out", results.get(2).title());
+    assertTrue(results.get(2).reason().contains("Given -> When -> Then"));
+    assertTrue(
+        results.stream().allMatch(result -> result.status() == ValidationResult.Status.INVALID));
+  }
+
+  @Test
+  void lint_reportsTooManyAndStepsPunctuationAndTags() {
+    String scenario =
+        """
+        @Smoke @user_Login
+        Scenario: User logs in
+          Given the user is on the login page.
+          And a
+          And b
+          And c
+          And d
+        """;
+
+    List<ValidationResult> results = LINTER.lint(scenario);
+
+    assertEquals(List.of(0, 2, 6), results.stream().map(ValidationResult::line).toList());
+    assertEquals("@smoke @user-login", results.get(0).suggestion());
+    assertEquals("Given the user is on the login page", results.get(1).suggestion());
+    assertEquals("And d", results.get(2).title());
+  }
+
+  @Test
+  void lint_reportsPlaceholdersWithoutExamplesAndCombinesProblems() {
+    String scenario =
+        """
+        Scenario: User searches
+          When the user searches for <term>.
+        """;
+
+    List<ValidationResult> results = LINTER.lint(scenario);
+
+    assertEquals(1, results.size());
+    ValidationResult result = results.get(0);
+    assertTrue(result.reason().contains("punctuation"));
+    assertTrue(result.reason().contains("Examples"));
+    assertTrue(result.suggestion().startsWith("When the user searches for <term>\n"));
+  }
+
+  @Test
+  void merge_overridesGeminiVerdictOnLintedLinesAndKeepsSemanticFindings() {
+    String scenario =
+        """
+        Scenario: User logs in
+          Given the user is on the login page.
+          When the user clicks the blue button
+          Then the dashboard is shown
+        """;
+    List<ValidationResult> findings = LINTER.lint(scenario);
+    List<ValidationResult> gemini =
+        List.of(
+            valid(0, "Scenario: User logs in"),
+            valid(1, "Given the user is on the login page."),
+            new ValidationResult(
+                2,
+                "When the user clicks the blue button",
+                ValidationResult.Status.INVALID,
+                "Describes the UI instead of the behavior.",
+                "When the user signs in"),
+            valid(3, "Then the dashboard is shown"));
+
+    List<ValidationResult> merged = GherkinPreLinter.merge(findings, gemini);
+
+    assertEquals(List.of(0, 1, 2, 3), merged.stream().map(ValidationResult::line).toList());
+    assertEquals(findings.getFirst(), merged.get(1));
+    assertEquals(ValidationResult.Status.INVALID, merged.get(1).status());
+    assertEquals("Describes the UI instead of the behavior.", merged.get(2).reason());
+    assertEquals(ValidationResult.Status.VALID, merged.get(3).status());
+  }
+
+  @Test
+  void merge_insertsFindingsForLinesGeminiDidNotReport() {
+    ValidationResult finding =
+        new ValidationResult(2, "Or e", ValidationResult.Status.INVALID, "Or", "Split");
+    ValidationResult unknown =
+        new ValidationResult(
+            ValidationResult.UNKNOWN_LINE, "Scenario", ValidationResult.Status.VALID, "", "");
+
+    List<ValidationResult> gemini = List.of(valid(1, "Given d"), unknown, valid(3, "Then f"));
+
+    List<ValidationResult> merged = GherkinPreLinter.merge(List.of(finding), gemini);
+
+    assertEquals(List.of(1, -1, 2, 3), merged.stream().map(ValidationResult::line).toList());
+  }
+
+  private static ValidationResult valid(int line, String title) {
+    return new ValidationResult(line, title, ValidationResult.Status.VALID, "OK", "OK");
+  }
+
+  @Test
+  void forRules_leavesRewordedRequirementsToGemini() {
+    RuleSet custom =
+        rules(List.of("Steps must be in Given, When, Then order."), List.of(), List.of());
+    GherkinPreLinter linter = GherkinPreLinter.forRules(custom);
+
+    String scenario = "Scenario: A\n  Then b\n  Given c\n  Given d\n  Or e";
+
+    List<ValidationResult> results = linter.lint(scenario);
+    assertEquals(List.of(), results);
+    assertEquals(custom.requirements(), linter.promptRules().requirements());
+  }
+
+  @Test
+  void promptRules_dropEnforcedRequirementsOnly() {
+    RuleSet defaults = defaultRules();
+    RuleSet promptRules = LINTER.promptRules();
+
+    assertEquals(List.of("Steps must be clear."), promptRules.requirements());
+    assertEquals(List.of(), promptRules.tag().requirements());
+    assertEquals(defaults.tasks(), promptRules.tasks());
+  }
+
+  private static RuleSet defaultRules() {
+    return rules(
+        List.of(
+            "Steps must be clear.",
+            GherkinPreLinter.Rule.STEP_ORDER.text(),
+            GherkinPreLinter.Rule.CONTINUATION_LIMIT.text(),
+            GherkinPreLinter.Rule.AND_INSTEAD_OF_REPEATS.text(),
+            GherkinPreLinter.Rule.NO_OR_STEPS.text()),
+        List.of(GherkinPreLinter.Rule.TRAILING_PUNCTUATION.text()),
+        List.of(GherkinPreLinter.Rule.TAG_FORMAT.text()));
+  }
+
+  private static RuleSet rules(
+      List<String> requirements, List<String> tasks, List<String> tagRequirements) {
+    RuleSet.KeywordRules empty = keywordRules(List.of());
+    return new RuleSet(
+        "",
+        tasks,
+        List.of(),
+        requirements,
+        "",
+        empty,
+        empty,
+        empty,
+        empty,
+        keywordRules(tagRequirements));
+  }
+
+  private static RuleSet.KeywordRules keywordRules(List<String> requirements) {
+    return new RuleSet.KeywordRules(List.of(), requirements, "", List.of(), List.of(), List.of());
+  }
+}
@@ -0,0 +1,119 @@
+package com.vchatrola.gherkin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vchatrola.result.ValidationResult;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ScenarioSplitterTest {
+
+  @Test
+  void split_returnsEachScenarioWithItsTags() {
+    String feature =
+        """
+        Feature: Login
+
+          Background:
+            Given the application is running
+
+          @smoke
+          Scenario: User logs in
+            Given the user is on the login page
+            When the user submits valid credentials
+            Then the dashboard is shown
+
+          Scenario Outline: User searches
+            When the user searches for <term>
+            Examples:
+              | term  |
+              | shoes |
+        """;
+
+    List<ScenarioSplitter.Scenario> scenarios = ScenarioSplitter.split(feature);
+
+    assertEquals(2, scenarios.size());
+    assertEquals(5, scenarios.get(0).startLine());
+    assertTrue(scenarios.get(0).text().contains("@smoke\n  Scenario: User logs in"));
+    assertTrue(scenarios.get(0).text().endsWith("Then the dashboard is shown"));
+    assertTrue(scenarios.get(1).text().contains("Scenario Outline: User searches"));
+    assertTrue(scenarios.get(1).text().contains("| shoes |"));
+  }
+
+  @Test
+  void split_prependsBackgroundToEachScenario() {
+    String feature =
+        """
+        Feature: Orders
+
+          Background:
+            Given the user is logged in
+
+          Scenario: Place an order
+            When the user places an order
+            Then the order is confirmed
+
+          Rule: Refunds
+
+            Background:
+              Given an order was delivered
+
+            Scenario: Refund an order
+              When the user asks for a refund
+              Then the refund is issued
+        """;
+
+    List<ScenarioSplitter.Scenario> scenarios = ScenarioSplitter.split(feature);
+
+    assertEquals(2, scenarios.size());
+    ScenarioSplitter.Scenario first = scenarios.get(0);
+    assertEquals(2, first.contextLines());
+    assertTrue(first.text().startsWith("Background:\n    Given the user is logged in\n"));
+    assertTrue(first.text().contains("Scenario: Place an order"));
+    ScenarioSplitter.Scenario second = scenarios.get(1);
+    assertEquals(4, second.contextLines());
+    assertTrue(second.text().contains("Given the user is logged in"));
+    assertTrue(second.text().contains("Given an order was delivered"));
+    assertEquals(14, second.startLine());
+  }
+
+  @Test
+  void toFileLines_dropsBackgroundResultsAndShiftsTheRest() {
+    ScenarioSplitter.Scenario scenario = new ScenarioSplitter.Scenario(10, "", 2);
+    List<ValidationResult> results =
+        scenario.toFileLines(List.of(result(1), result(2), result(ValidationResult.UNKNOWN_LINE)));
+
+    assertEquals(2, results.size());
+    assertEquals(10, results.get(0).line());
+    assertEquals(10, results.get(1).line());
+  }
+
+  private static ValidationResult result(int line) {
+    return new ValidationResult(line, "Given x", ValidationResult.Status.VALID, "", "");
+  }
+
+  @Test
+  void split_ignoresTextWithoutScenarios() {
+    assertTrue(ScenarioSplitter.split("Just some notes\nwithout Gherkin").isEmpty());
+    assertTrue(ScenarioSplitter.split("").isEmpty());
+  }
+
+  @Test
+  void split_handlesJBehaveStories() {
+    String story =
+        """
+        Narrative: As a user I want to log in
+
+        Scenario: User logs in
+        Meta: @login
+        Given the user is on the login page
+        Then the dashboard is shown
+        """;
+
+    List<ScenarioSplitter.Scenario> scenarios = ScenarioSplitter.split(story);
+
+    assertEquals(1, scenarios.size());
+    assertTrue(scenarios.get(0).text().contains("Meta: @login"));
+  }
+}
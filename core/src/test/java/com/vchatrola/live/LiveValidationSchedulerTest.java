@@ -0,0 +1,177 @@
+package com.vchatrola.live;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vchatrola.result.ValidationResult;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class LiveValidationSchedulerTest {
+
+  private static final List<ValidationResult> RESULTS =
+      List.of(new ValidationResult(0, "Given a user", ValidationResult.Status.VALID, "", ""));
+
+  @Test
+  void schedule_runsOnlyTheLatestBatchAfterTheDebounceDelay() throws Exception {
+    try (LiveValidationScheduler scheduler = newScheduler(100)) {
+      AtomicInteger first = new AtomicInteger();
+      CountDownLatch done = new CountDownLatch(1);
+
+      scheduler.schedule("file", Map.of("a", counting(first)), () -> {});
+      scheduler.schedule("file", Map.of("b", () -> RESULTS), done::countDown);
+
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertEquals(0, first.get());
+      assertNull(scheduler.results("a"));
+      assertEquals(RESULTS, scheduler.results("b"));
+    }
+  }
+
+  @Test
+  void schedule_skipsScenariosThatAlreadyHaveResults() throws Exception {
+    try (LiveValidationScheduler scheduler = newScheduler(10)) {
+      AtomicInteger calls = new AtomicInteger();
+      scheduler.complete("a", RESULTS);
+
+      scheduler.schedule("file", Map.of("a", counting(calls)), () -> {});
+
+      assertFalse(scheduler.isBusy("file"));
+      assertEquals(0, calls.get());
+    }
+  }
+
+  @Test
+  void schedule_cancelsRunningChecksOfChangedScenarios() throws Exception {
+    try (LiveValidationScheduler scheduler = newScheduler(10)) {
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch interrupted = new CountDownLatch(1);
+      Callable<List<ValidationResult>> slow =
+          () -> {
+            started.countDown();
+            try {
+              Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+              interrupted.countDown();
+              throw e;
+            }
+            return RESULTS;
+          };
+
+      scheduler.schedule("file", Map.of("old", slow), () -> {});
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      scheduler.schedule("file", Map.of(), () -> {});
+
+      assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+      assertNull(scheduler.results("old"));
+      assertFalse(scheduler.isBusy("file"));
+    }
+  }
+
+  @Test
+  void cancel_stopsTheChecksOfAClosedFile() throws Exception {
+    try (LiveValidationScheduler scheduler = newScheduler(10)) {
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch interrupted = new CountDownLatch(1);
+      AtomicInteger pending = new AtomicInteger();
+      Callable<List<ValidationResult>> slow =
+          () -> {
+            started.countDown();
+            try {
+              Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+              interrupted.countDown();
+              throw e;
+            }
+            return RESULTS;
+          };
+
+      scheduler.schedule("closed", Map.of("a", slow), () -> {});
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      scheduler.schedule("other", Map.of("b", counting(pending)), () -> {});
+      scheduler.cancel("closed");
+      scheduler.cancel("other");
+
+      assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+      assertFalse(scheduler.isBusy("closed"));
+      Thread.sleep(50);
+      assertEquals(0, pending.get());
+    }
+  }
+
+  @Test
+  void schedule_runsAtMostMaxConcurrentChecksAtOnce() throws Exception {
+    try (LiveValidationScheduler scheduler = newScheduler(10, 2, 0)) {
+      AtomicInteger active = new AtomicInteger();
+      AtomicInteger maxActive = new AtomicInteger();
+      CountDownLatch done = new CountDownLatch(6);
+      Callable<List<ValidationResult>> check =
+          () -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            active.decrementAndGet();
+            return RESULTS;
+          };
+
+      scheduler.schedule(
+          "file",
+          Map.of("a", check, "b", check, "c", check, "d", check, "e", check, "f", check),
+          done::countDown);
+
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertEquals(2, maxActive.get());
+    }
+  }
+
+  @Test
+  void schedule_holdsOffChecksThatFailed() throws Exception {
+    try (LiveValidationScheduler scheduler = newScheduler(10, 1, 60_000)) {
+      AtomicInteger calls = new AtomicInteger();
+      Callable<List<ValidationResult>> rateLimited =
+          () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("Rate limit reached.");
+          };
+
+      scheduler.schedule("file", Map.of("a", rateLimited), () -> {});
+      while (scheduler.isBusy("file")) {
+        Thread.sleep(5);
+      }
+      scheduler.schedule("file", Map.of("a", rateLimited), () -> {});
+
+      assertFalse(scheduler.isBusy("file"));
+      assertEquals(1, calls.get());
+    }
+  }
+
+  private static LiveValidationScheduler newScheduler(long debounceMillis) {
+    return newScheduler(debounceMillis, 4, 0);
+  }
+
+  private static LiveValidationScheduler newScheduler(
+      long debounceMillis, int maxConcurrentChecks, long retryDelayMillis) {
+    return new LiveValidationScheduler(
+        debounceMillis,
+        maxConcurrentChecks,
+        retryDelayMillis,
+        100,
+        0,
+        Executors.newSingleThreadScheduledExecutor(),
+        Executors.newCachedThreadPool());
+  }
+
+  private static Callable<List<ValidationResult>> counting(AtomicInteger calls) {
+    return () -> {
+      calls.incrementAndGet();
+      return RESULTS;
+    };
+  }
+}
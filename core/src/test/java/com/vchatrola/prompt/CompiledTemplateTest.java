@@ -0,0 +1,60 @@
+package com.vchatrola.prompt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class CompiledTemplateTest {
+
+  @Test
+  void render_replacesSlotsInOrder() {
+    CompiledTemplate template = CompiledTemplate.compile("Hello {NAME}, welcome to {PLACE}!");
+    StringBuilder out = new StringBuilder("> ");
+
+    template.render(out, (slot, indentation, sb) -> sb.append(slot.toLowerCase()));
+
+    assertEquals("> Hello name, welcome to place!", out.toString());
+  }
+
+  @Test
+  void compile_treatsOtherBracesAsLiteralText() {
+    CompiledTemplate template = CompiledTemplate.compile("{\"line\": 1, \"x\": {}} {lower} {A1}");
+    StringBuilder out = new StringBuilder();
+
+    template.render(
+        out,
+        (slot, indentation, sb) -> {
+          throw new AssertionError("Unexpected slot " + slot);
+        });
+
+    assertEquals("{\"line\": 1, \"x\": {}} {lower} {A1}", out.toString());
+    assertEquals(out.length(), template.literalLength());
+  }
+
+  @Test
+  void indentation_isRecordedOnlyForSlotsAloneOnTheirLine() {
+    CompiledTemplate template =
+        CompiledTemplate.compile("1. Title\n    {LIST}\n    * {INLINE} text\n  {LAST}");
+
+    assertEquals("    ", template.indentation("LIST"));
+    assertEquals("", template.indentation("INLINE"));
+    assertEquals("  ", template.indentation("LAST"));
+    assertTrue(template.hasSlot("LIST"));
+    assertFalse(template.hasSlot("MISSING"));
+    assertThrows(IllegalArgumentException.class, () -> template.indentation("MISSING"));
+  }
+
+  @Test
+  void render_passesIndentationToWriter() {
+    CompiledTemplate template = CompiledTemplate.compile("Items:\n  {ITEMS}\nEnd");
+    StringBuilder out = new StringBuilder();
+
+    template.render(
+        out, (slot, indentation, sb) -> sb.append("a\n").append(indentation).append("b"));
+
+    assertEquals("Items:\n  a\n  b\nEnd", out.toString());
+  }
+}
@@ -1,10 +1,13 @@
 package com.vchatrola.prompt;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class PromptBuilderTest {
@@ -62,6 +65,7 @@ class PromptBuilderTest {
 
     assertTrue(prompt.contains("Test context"));
     assertTrue(prompt.contains("VALIDATION REPORT FORMAT"));
+    assertFalse(prompt.contains("```json"));
     assertFalse(prompt.contains("{STRUCTURE_SECTION}"));
     assertFalse(prompt.contains("{REQUIREMENTS_SECTION}"));
   }
@@ -96,6 +100,104 @@ class PromptBuilderTest {
     assertTrue(prompt.contains("Suggestion: "));
   }
 
+  @Test
+  void buildPackedPrompt_emitsInstructionsOnceAndNumbersScenarios() throws Exception {
+    PromptBuilder builder = new PromptBuilder(buildConfig(), "feature");
+    String prompt =
+        builder.buildPackedPrompt(
+            List.of("Scenario: One\nGiven a user", "@tag\nScenario: Two\nThen it works"), true);
+
+    assertEquals(1, countOccurrences(prompt, "Test context"));
+    assertEquals(1, countOccurrences(prompt, "VALIDATION REPORT FORMAT"));
+    assertTrue(prompt.contains("### SCENARIO 1\nScenario: One\nGiven a user"));
+    assertTrue(prompt.contains("### SCENARIO 2\n@tag\nScenario: Two\nThen it works"));
+    assertTrue(prompt.contains("TAG GUIDELINES"));
+    assertTrue(prompt.contains("Then requirement"));
+  }
+
+  @Test
+  void buildStaticPrefix_isIndependentOfInputAndCoversEveryKeyword() throws Exception {
+    PromptBuilder builder = new PromptBuilder(buildConfig(), "feature");
+    String prefix = builder.buildStaticPrefix(true);
+
+    assertTrue(prefix.contains("Requirement one"));
+    assertTrue(prefix.contains("Scenario requirement"));
+    assertTrue(prefix.contains("Then requirement"));
+    assertTrue(prefix.contains("TAG GUIDELINES"));
+    assertTrue(prefix.contains("VALIDATION REPORT FORMAT"));
+    assertFalse(prefix.contains("**INPUT:**"));
+    assertEquals(prefix, new PromptBuilder(buildConfig(), "feature").buildStaticPrefix(true));
+  }
+
+  @Test
+  void buildPrompt_selectsSectionsFromStepKeywordsOnly() throws Exception {
+    PromptBuilder builder = new PromptBuilder(buildConfig(), "feature");
+    String prompt =
+        builder.buildPrompt(
+            "Given the user reads \"Then and When\" in the manual\nAnd the email is <address>",
+            true);
+
+    assertTrue(prompt.contains("GIVEN GUIDELINES"));
+    assertFalse(prompt.contains("WHEN GUIDELINES"));
+    assertFalse(prompt.contains("THEN GUIDELINES"));
+    assertFalse(prompt.contains("SCENARIO GUIDELINES"));
+    assertFalse(prompt.contains("TAG GUIDELINES"));
+    assertTrue(prompt.contains(PromptTemplate.EXAMPLES_REQUIREMENT));
+  }
+
+  @Test
+  void buildInputSuffix_carriesInputSpecificRequirements() throws Exception {
+    PromptBuilder builder = new PromptBuilder(buildConfig(), "feature");
+
+    String plain = builder.buildInputSuffix("Scenario: One\nGiven a user");
+    String withBut = builder.buildInputSuffix("Scenario: One\nGiven a user\nBut not an admin");
+
+    assertFalse(plain.contains("INPUT-SPECIFIC REQUIREMENTS"));
+    assertTrue(plain.contains("**INPUT:**\nScenario: One\nGiven a user"));
+    assertTrue(withBut.contains("INPUT-SPECIFIC REQUIREMENTS"));
+    assertTrue(withBut.contains("\"But\" statements"));
+  }
+
+  @Test
+  void buildPackedInputSuffix_numbersScenarios() throws Exception {
+    PromptBuilder builder = new PromptBuilder(buildConfig(), "feature");
+    String suffix = builder.buildPackedInputSuffix(List.of("Scenario: One", "Scenario: Two"));
+
+    assertTrue(suffix.contains("MULTIPLE SCENARIOS"));
+    assertTrue(suffix.contains("### SCENARIO 2\nScenario: Two"));
+  }
+
+  private static int countOccurrences(String text, String token) {
+    int count = 0;
+    for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + token.length())) {
+      count++;
+    }
+    return count;
+  }
+
+  @Test
+  void buildWhenContext_omitsExampleSlotsWithoutExamples() throws Exception {
+    PromptBuilder builder = new PromptBuilder(buildConfig(), "feature");
+    String context = builder.buildWhenContext();
+
+    assertTrue(context.contains("When requirement"));
+    assertFalse(context.contains("{"));
+    assertFalse(context.contains("**Examples:**"));
+  }
+
+  @Test
+  void buildPrompt_reusesRenderedSections() throws Exception {
+    PromptBuilder builder = new PromptBuilder(buildConfig(), "feature");
+
+    String scenario = builder.buildScenarioContext();
+    String prompt = builder.buildPrompt("Scenario: Test\n@tag", false);
+
+    assertSame(scenario, builder.buildScenarioContext());
+    assertTrue(prompt.contains(scenario));
+    assertTrue(prompt.contains(builder.buildTagContext()));
+    assertTrue(builder.buildStaticPrefix(false).startsWith(builder.buildContext(false)));
+  }
+
   private JsonNode buildConfig() throws Exception {
     return mapper.readTree(
         """
@@ -0,0 +1,83 @@
+package com.vchatrola.prompt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vchatrola.config.RuleSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PromptSectionCacheTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  void builderFor_reusesBuilderForEqualRulesAndFileType() throws Exception {
+    PromptBuilder first = PromptSectionCache.builderFor(buildConfig("Rule one"), "feature");
+    PromptBuilder second = PromptSectionCache.builderFor(buildConfig("Rule one"), "FEATURE");
+
+    assertSame(first, second);
+    assertNotSame(first, PromptSectionCache.builderFor(buildConfig("Rule one"), "story"));
+  }
+
+  @Test
+  void builderFor_rendersNewSectionsForDifferentRules() throws Exception {
+    PromptBuilder first = PromptSectionCache.builderFor(buildConfig("Rule one"), "feature");
+    PromptBuilder second = PromptSectionCache.builderFor(buildConfig("Rule two"), "feature");
+
+    assertTrue(first.buildScenarioContext().contains("Rule one"));
+    assertTrue(second.buildScenarioContext().contains("Rule two"));
+  }
+
+  @Test
+  void builderFor_doesNotShareSectionsBetweenFullAndReducedRules() throws Exception {
+    RuleSet full = buildConfig("Rule one");
+    RuleSet reduced = full.withoutRequirements(Set.of("Requirement one"));
+
+    PromptBuilder fullBuilder = PromptSectionCache.builderFor(full, "feature");
+    PromptBuilder reducedBuilder = PromptSectionCache.builderFor(reduced, "feature");
+
+    assertNotSame(fullBuilder, reducedBuilder);
+  }
+
+  @Test
+  void invalidate_dropsCachedBuilders() throws Exception {
+    RuleSet config = buildConfig("Rule one");
+    PromptBuilder first = PromptSectionCache.builderFor(config, "feature");
+
+    PromptSectionCache.invalidate();
+
+    assertEquals(0, PromptSectionCache.size());
+    assertNotSame(first, PromptSectionCache.builderFor(config, "feature"));
+  }
+
+  @Test
+  void builderFor_staysBoundedWhenRulesChange() throws Exception {
+    for (int i = 0; i < PromptSectionCache.MAX_ENTRIES * 2; i++) {
+      PromptSectionCache.builderFor(buildConfig("Rule " + i), "feature");
+    }
+
+    assertTrue(PromptSectionCache.size() <= PromptSectionCache.MAX_ENTRIES);
+  }
+
+  private RuleSet buildConfig(String scenarioRequirement) throws Exception {
+    return RuleSet.compile(
+        mapper.readTree(
+        """
+                {
+                  "CONTEXT": "Test context",
+                  "TASKS": ["Task one"],
+                  "REQUIREMENTS": ["Requirement one"],
+                  "SCENARIO": { "requirements": ["%s"] },
+                  "GIVEN": {},
+                  "WHEN": {},
+                  "THEN": {},
+                  "TAG": {}
+                }
+                """
+            .formatted(scenarioRequirement)));
+  }
+}
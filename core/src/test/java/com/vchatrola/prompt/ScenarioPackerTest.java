@@ -0,0 +1,56 @@
+package com.vchatrola.prompt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.vchatrola.util.Constants;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ScenarioPackerTest {
+
+  private static final int HEADER_CHARS = 4000;
+
+  @Test
+  void pack_groupsScenariosWithinInputBudget() {
+    // Budget: 50% of 3000 tokens = 1500 tokens = 6000 chars; header takes 4000.
+    ScenarioPacker packer = new ScenarioPacker(3000, 100_000, ScenarioPackerTest::promptLength);
+    List<String> scenarios = Collections.nCopies(5, "x".repeat(900));
+
+    assertEquals(List.of(List.of(0, 1), List.of(2, 3), List.of(4)), packer.pack(scenarios));
+  }
+
+  @Test
+  void pack_respectsOutputBudget() {
+    // Budget: 50% of 400 tokens = 200 tokens; each two-line scenario needs 160.
+    ScenarioPacker packer = new ScenarioPacker(1_000_000, 400, ScenarioPackerTest::promptLength);
+    List<String> scenarios = List.of("Scenario: A\nGiven a", "Scenario: B\nGiven b");
+
+    assertEquals(List.of(List.of(0), List.of(1)), packer.pack(scenarios));
+  }
+
+  @Test
+  void pack_capsPackSize() {
+    ScenarioPacker packer =
+        new ScenarioPacker(1_000_000, 1_000_000, ScenarioPackerTest::promptLength);
+    List<String> scenarios = Collections.nCopies(Constants.MAX_SCENARIOS_PER_PACK + 1, "Given a");
+
+    List<List<Integer>> packs = packer.pack(scenarios);
+
+    assertEquals(2, packs.size());
+    assertEquals(Constants.MAX_SCENARIOS_PER_PACK, packs.getFirst().size());
+  }
+
+  @Test
+  void pack_keepsOversizedScenarioInItsOwnPack() {
+    ScenarioPacker packer = new ScenarioPacker(100, 100_000, ScenarioPackerTest::promptLength);
+    List<String> scenarios = new ArrayList<>(List.of("x".repeat(10_000), "y"));
+
+    assertEquals(List.of(List.of(0), List.of(1)), packer.pack(scenarios));
+  }
+
+  private static int promptLength(List<String> scenarios) {
+    return HEADER_CHARS + scenarios.stream().mapToInt(String::length).sum();
+  }
+}
@@ -0,0 +1,51 @@
+package com.vchatrola.result;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LineLocatorTest {
+
+  private static final String SCENARIO =
+      """
+      Scenario: User logs in
+        Given the user is on the login page
+        And the user is on the login page
+        Then the dashboard is shown
+      """;
+
+  @Test
+  void locateAll_assignsRepeatedTitlesToSuccessiveLines() {
+    List<ValidationResult> located =
+        new LineLocator(SCENARIO)
+            .locateAll(
+                List.of(
+                    result("Scenario: User logs in"),
+                    result("Given the user is on the login page"),
+                    result("And  the user is on the login page"),
+                    result("Then the dashboard is shown")));
+
+    assertEquals(List.of(0, 1, 2, 3), located.stream().map(ValidationResult::line).toList());
+  }
+
+  @Test
+  void locate_fallsBackToContainingLine() {
+    LineLocator locator = new LineLocator(SCENARIO);
+
+    assertEquals(0, locator.locate(result("User logs in")).line());
+  }
+
+  @Test
+  void locate_marksUnmatchedResultsUnknown() {
+    LineLocator locator = new LineLocator(SCENARIO);
+
+    assertEquals(ValidationResult.UNKNOWN_LINE, locator.locate(result("When nothing")).line());
+    assertEquals(ValidationResult.UNKNOWN_LINE, locator.locate(result("")).line());
+  }
+
+  private static ValidationResult result(String title) {
+    return new ValidationResult(
+        ValidationResult.UNKNOWN_LINE, title, ValidationResult.Status.VALID, "NA", "OK");
+  }
+}
@@ -0,0 +1,32 @@
+package com.vchatrola.result;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ValidationResultCodecTest {
+
+  @Test
+  void decode_roundTripsEncodedResults() {
+    List<ValidationResult> results =
+        List.of(
+            new ValidationResult(
+                0, "Scenario: A | B", ValidationResult.Status.INVALID, "Pipe | inside", "Fix\nit"),
+            new ValidationResult(
+                ValidationResult.UNKNOWN_LINE,
+                "Given a user",
+                ValidationResult.Status.VALID,
+                "NA",
+                "OK"));
+
+    assertEquals(results, ValidationResultCodec.decode(ValidationResultCodec.encode(results)));
+  }
+
+  @Test
+  void decode_returnsNullForLegacyPipeOutput() {
+    assertNull(ValidationResultCodec.decode("Title|Scenario\nStatus|Valid\nReason|NA\n"));
+    assertNull(ValidationResultCodec.decode(""));
+  }
+}
@@ -1,59 +1,134 @@
 package com.vchatrola.util;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.vchatrola.result.ValidationResult;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class GherkinOutputParserTest {
 
   @Test
-  void parseOutput_acceptsWrappedJsonArray() throws Exception {
+  void readResults_acceptsWrappedJsonArray() throws Exception {
     String input =
-        "prefix [{\"title\":\"Scenario\",\"status\":\"Valid\",\"reason\":\"NA\",\"suggestion\":\"Valid\"}] suffix";
-    String output = GherkinOutputParser.parseOutput(input);
-    assertTrue(output.contains("Title|Scenario"));
-    assertTrue(output.contains("Status|Valid"));
+        "prefix [{\"title\":\"Scenario\",\"status\":\"Valid\",\"reason\":\"NA\","
+            + "\"suggestion\":\"Valid\"}] suffix";
+    List<ValidationResult> results = GherkinOutputParser.readResults(input);
+    assertEquals(1, results.size());
+    assertEquals("Scenario", results.get(0).title());
+    assertEquals(ValidationResult.Status.VALID, results.get(0).status());
+    assertEquals(ValidationResult.UNKNOWN_LINE, results.get(0).line());
   }
 
   @Test
-  void parseOutput_marksMissingFieldsInvalid() throws Exception {
+  void readResults_marksMissingFieldsInvalid() throws Exception {
     String input = "[{\"title\":\"Scenario\",\"status\":\"Valid\",\"reason\":\"NA\"}]";
-    String output = GherkinOutputParser.parseOutput(input);
-    assertTrue(output.contains("Status|Invalid"));
-    assertTrue(output.contains("Missing required field(s): suggestion"));
+    ValidationResult result = GherkinOutputParser.readResults(input).get(0);
+    assertEquals(ValidationResult.Status.INVALID, result.status());
+    assertEquals("Missing required field(s): suggestion", result.reason());
   }
 
   @Test
-  void parseOutput_rejectsNonArrayJson() {
+  void readResults_rejectsNonArrayJson() {
     String input = "{\"title\":\"Scenario\"}";
     IllegalArgumentException ex =
-        assertThrows(IllegalArgumentException.class, () -> GherkinOutputParser.parseOutput(input));
+        assertThrows(IllegalArgumentException.class, () -> GherkinOutputParser.readResults(input));
     assertTrue(ex.getMessage().contains("did not contain a JSON array"));
   }
 
   @Test
-  void parseOutput_rejectsMissingJsonArray() {
+  void readResults_rejectsMissingJsonArray() {
     String input = "no json here";
     IllegalArgumentException ex =
-        assertThrows(IllegalArgumentException.class, () -> GherkinOutputParser.parseOutput(input));
+        assertThrows(IllegalArgumentException.class, () -> GherkinOutputParser.readResults(input));
     assertTrue(ex.getMessage().contains("did not contain a JSON array"));
   }
 
   @Test
-  void parseOutput_handlesNullFields() throws Exception {
-    String input = "[{\"title\":null,\"status\":\"Valid\",\"reason\":\"NA\",\"suggestion\":null}]";
-    String output = GherkinOutputParser.parseOutput(input);
-    assertTrue(output.contains("Status|Invalid"));
-    assertTrue(output.contains("Missing required field(s): title, suggestion"));
+  void readResults_handlesNullFields() throws Exception {
+    String input =
+        "[{\"title\":null,\"status\":\"Valid\",\"reason\":\"NA\",\"suggestion\":null}]";
+    ValidationResult result = GherkinOutputParser.readResults(input).get(0);
+    assertEquals(ValidationResult.Status.INVALID, result.status());
+    assertEquals("Missing required field(s): title, suggestion", result.reason());
+  }
+
+  @Test
+  void readResults_acceptsUnknownFields() throws Exception {
+    String input =
+        "[{\"title\":\"Scenario\",\"status\":\"Valid\",\"reason\":\"NA\","
+            + "\"suggestion\":\"OK\",\"extra\":123}]";
+    ValidationResult result = GherkinOutputParser.readResults(input).get(0);
+    assertEquals("Scenario", result.title());
+    assertEquals(ValidationResult.Status.VALID, result.status());
+  }
+
+  @Test
+  void readPackedResults_groupsResultsByScenarioNumber() throws Exception {
+    String input =
+        "[{\"scenario\":2,\"title\":\"Scenario: Two\",\"status\":\"Valid\",\"reason\":\"NA\","
+            + "\"suggestion\":\"OK\"},"
+            + "{\"scenario\":1,\"title\":\"Scenario: One\",\"status\":\"Invalid\","
+            + "\"reason\":\"Vague\",\"suggestion\":\"Fix\"}]";
+    List<List<ValidationResult>> grouped = GherkinOutputParser.readPackedResults(input, 3);
+
+    assertEquals(3, grouped.size());
+    assertEquals("Scenario: One", grouped.get(0).get(0).title());
+    assertEquals(ValidationResult.Status.INVALID, grouped.get(0).get(0).status());
+    assertEquals("Scenario: Two", grouped.get(1).get(0).title());
+    assertEquals(ValidationResult.Status.VALID, grouped.get(1).get(0).status());
+    assertEquals(List.of(), grouped.get(2));
   }
 
   @Test
-  void parseOutput_acceptsUnknownFields() throws Exception {
+  void readPackedResults_dropsResultsWithoutValidScenarioNumber() throws Exception {
     String input =
-        "[{\"title\":\"Scenario\",\"status\":\"Valid\",\"reason\":\"NA\",\"suggestion\":\"OK\",\"extra\":123}]";
-    String output = GherkinOutputParser.parseOutput(input);
-    assertTrue(output.contains("Title|Scenario"));
-    assertTrue(output.contains("Status|Valid"));
+        "[{\"title\":\"Scenario\",\"status\":\"Valid\",\"reason\":\"NA\",\"suggestion\":\"OK\"},"
+            + "{\"scenario\":5,\"title\":\"Scenario\",\"status\":\"Valid\",\"reason\":\"NA\","
+            + "\"suggestion\":\"OK\"}]";
+    List<List<ValidationResult>> grouped = GherkinOutputParser.readPackedResults(input, 2);
+
+    assertEquals(List.of(List.of(), List.of()), grouped);
+  }
+
+  @Test
+  void readResults_decodesFencedArrayIntoRecords() throws Exception {
+    String input =
+        "```json\n[{\"title\":\"Given a user\",\"status\":\"invalid\",\"reason\":\"a|b\","
+            + "\"extra\":{\"nested\":[1,{\"title\":\"x\"}]},\"suggestion\":\"Given a user\"}]\n```";
+
+    List<ValidationResult> results = GherkinOutputParser.readResults(input);
+
+    assertEquals(
+        List.of(
+            new ValidationResult(
+                ValidationResult.UNKNOWN_LINE,
+                "Given a user",
+                ValidationResult.Status.INVALID,
+                "a|b",
+                "Given a user")),
+        results);
+  }
+
+  @Test
+  void readResult_rejectsNonObjectJson() {
+    assertThrows(IllegalArgumentException.class, () -> GherkinOutputParser.readResult("[1]"));
+  }
+
+  @Test
+  void readStreamedResult_reportsUnreadableObjectAsInvalid() {
+    ValidationResult result = GherkinOutputParser.readStreamedResult("{\"title\": Given}");
+
+    assertEquals(ValidationResult.UNKNOWN_LINE, result.line());
+    assertEquals(ValidationResult.Status.INVALID, result.status());
+    assertTrue(result.reason().startsWith("Unreadable Gemini result"));
+  }
+
+  @Test
+  void readResults_rejectsUnclosedArray() {
+    String input = "[{\"title\":\"Scenario\",\"status\":\"Valid\",\"reason\":\"NA\",";
+    assertThrows(Exception.class, () -> GherkinOutputParser.readResults(input));
   }
 }
@@ -0,0 +1,47 @@
+package com.vchatrola.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JsonArrayStreamParserTest {
+
+  @Test
+  void feed_emitsEachObjectAsSoonAsItCloses() {
+    List<String> objects = new ArrayList<>();
+    JsonArrayStreamParser parser = new JsonArrayStreamParser(objects::add);
+
+    parser.feed("```json\n[\n  {\"title\": \"Scenario: A\", ");
+    assertEquals(0, objects.size());
+    parser.feed("\"status\": \"Valid\"},\n  {\"title\"");
+    assertEquals(List.of("{\"title\": \"Scenario: A\", \"status\": \"Valid\"}"), objects);
+    parser.feed(": \"Given b\"}\n]\n```");
+
+    assertEquals(2, parser.objectCount());
+    assertEquals("{\"title\": \"Given b\"}", objects.get(1));
+  }
+
+  @Test
+  void feed_ignoresBracesAndQuotesInsideStrings() {
+    List<String> objects = new ArrayList<>();
+    JsonArrayStreamParser parser = new JsonArrayStreamParser(objects::add);
+
+    parser.feed("[{\"reason\": \"use \\\"}\\\" and ] carefully {\", \"nested\": {\"a\": [1]}}]");
+
+    assertEquals(
+        List.of("{\"reason\": \"use \\\"}\\\" and ] carefully {\", \"nested\": {\"a\": [1]}}"),
+        objects);
+  }
+
+  @Test
+  void feed_stopsAtEndOfArray() {
+    List<String> objects = new ArrayList<>();
+    JsonArrayStreamParser parser = new JsonArrayStreamParser(objects::add);
+
+    parser.feed("[{\"a\": 1}] trailing [{\"b\": 2}]");
+
+    assertEquals(List.of("{\"a\": 1}"), objects);
+  }
+}
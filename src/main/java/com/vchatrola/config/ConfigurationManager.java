@@ -1,18 +1,24 @@
 package com.vchatrola.config;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
 import com.vchatrola.plugin.setting.GherkinLintSettingsManager;
+import com.vchatrola.prompt.PromptSectionCache;
 import com.vchatrola.util.GherkinLintLogger;
+import com.vchatrola.util.HashUtils;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.attribute.FileTime;
 import java.util.Objects;
+import org.jetbrains.annotations.Nullable;
 
 public class ConfigurationManager {
   private static final Object CACHE_LOCK = new Object();
   private static CachedConfig cachedConfig;
+  private static long cacheGeneration;
+  private static String watchedCustomFile;
+  private static LocalFileSystem.WatchRequest customFileWatch;
 
   private final ConfigurationLoader loader;
   private final ConfigurationMerger merger;
@@ -22,73 +28,122 @@ public class ConfigurationManager {
     this.merger = new ConfigurationMerger();
   }
 
-  public JsonNode getFinalConfiguration() throws IOException {
+  /** Returns the rules of the merged configuration, compiled once per configuration change. */
+  public RuleSet getRuleSet() throws IOException {
+    return resolveConfiguration().ruleSet();
+  }
+
+  /**
+   * Returns a content hash of the merged configuration. It changes whenever the effective rules
+   * change and is stable across IDE restarts, so it can be used as part of result cache keys.
+   */
+  public String getConfigurationFingerprint() throws IOException {
+    return resolveConfiguration().fingerprint();
+  }
+
+  /**
+   * Returns the cached configuration. Only a miss reads the settings and the rule files; changes
+   * to the custom rules file are picked up through {@link CustomRulesFileListener}, so cache hits
+   * touch neither the settings nor the file system.
+   */
+  private CachedConfig resolveConfiguration() throws IOException {
+    long generation;
+    synchronized (CACHE_LOCK) {
+      if (cachedConfig != null) {
+        return cachedConfig;
+      }
+      generation = cacheGeneration;
+    }
+
     GherkinLintSettingsManager settingsManager = new GherkinLintSettingsManager();
     String customFilePath = settingsManager.getCustomFilePath();
     boolean isCustomLogicEnabled = settingsManager.isCustomLogicEnabled();
-    long customLastModified = resolveLastModified(customFilePath, isCustomLogicEnabled);
-
-    CachedConfig cached = getCachedConfig();
-    if (cached != null
-        && cached.matches(isCustomLogicEnabled, customFilePath, customLastModified)) {
-      return cached.mergedConfig();
-    }
+    watchCustomFile(isCustomLogicEnabled ? customFilePath : null);
 
     JsonNode defaultConfig = loader.loadDefaultConfiguration();
     JsonNode customConfig =
         isCustomLogicEnabled ? loader.loadCustomConfiguration(customFilePath) : null;
 
     JsonNode merged = merger.mergeConfigurations(defaultConfig, customConfig);
-    setCachedConfig(
-        new CachedConfig(merged, isCustomLogicEnabled, customFilePath, customLastModified));
-    return merged;
+    CachedConfig resolved =
+        new CachedConfig(RuleSet.compile(merged), HashUtils.sha256Hex(merged.toString()));
+    setCachedConfig(resolved, generation);
+    return resolved;
   }
 
   public static void invalidateCache() {
     synchronized (CACHE_LOCK) {
       cachedConfig = null;
+      cacheGeneration++;
     }
+    PromptSectionCache.invalidate();
   }
 
-  private static long resolveLastModified(String customFilePath, boolean isCustomLogicEnabled) {
-    if (!isCustomLogicEnabled || customFilePath == null || customFilePath.isBlank()) {
-      return -1L;
-    }
-    Path path = Paths.get(customFilePath);
-    try {
-      if (Files.exists(path)) {
-        FileTime lastModified = Files.getLastModifiedTime(path);
-        return lastModified.toMillis();
-      }
-    } catch (IOException e) {
-      String fileName = path.getFileName() != null ? path.getFileName().toString() : "custom file";
-      GherkinLintLogger.debug("Failed to read last modified time for " + fileName + ".");
+  /**
+   * Drops the cached configuration and rebuilds it on a pooled thread, so the next validation
+   * finds the new rules ready.
+   */
+  public static void reloadInBackground() {
+    invalidateCache();
+    ApplicationManager.getApplication()
+        .executeOnPooledThread(
+            () -> {
+              try {
+                new ConfigurationManager().resolveConfiguration();
+              } catch (IOException | RuntimeException e) {
+                GherkinLintLogger.debug("Background configuration reload failed.", e);
+              }
+            });
+  }
+
+  /** Returns whether {@code path} is the custom rules file the configuration is read from. */
+  static boolean isWatchedCustomFile(String path) {
+    synchronized (CACHE_LOCK) {
+      return watchedCustomFile != null && FileUtil.pathsEqual(watchedCustomFile, path);
     }
-    return -1L;
   }
 
-  private static CachedConfig getCachedConfig() {
+  /**
+   * Points the file watcher at {@code customFilePath}, or stops watching when it is {@code null}.
+   * Files outside the project are not refreshed by the IDE on their own, so they need an explicit
+   * watch root for their changes to reach {@link CustomRulesFileListener}.
+   */
+  private static void watchCustomFile(@Nullable String customFilePath) {
+    String path =
+        customFilePath == null || customFilePath.isBlank()
+            ? null
+            : FileUtil.toSystemIndependentName(
+                Paths.get(customFilePath).toAbsolutePath().normalize().toString());
+    LocalFileSystem fileSystem = LocalFileSystem.getInstance();
     synchronized (CACHE_LOCK) {
-      return cachedConfig;
+      if (Objects.equals(watchedCustomFile, path)) {
+        return;
+      }
+      if (customFileWatch != null) {
+        fileSystem.removeWatchedRoot(customFileWatch);
+        customFileWatch = null;
+      }
+      watchedCustomFile = path;
+      if (path != null) {
+        customFileWatch = fileSystem.addRootToWatch(path, false);
+      }
+    }
+    if (path != null) {
+      // Registers the file with the VFS so its changes produce events.
+      fileSystem.refreshAndFindFileByPath(path);
     }
   }
 
-  private static void setCachedConfig(CachedConfig config) {
+  private static void setCachedConfig(CachedConfig config, long generation) {
     synchronized (CACHE_LOCK) {
+      if (generation != cacheGeneration) {
+        // Invalidated while this configuration was being built; it may be stale.
+        return;
+      }
       cachedConfig = config;
     }
     GherkinLintLogger.debug("Configuration cache updated.");
   }
 
-  private record CachedConfig(
-      JsonNode mergedConfig,
-      boolean customLogicEnabled,
-      String customFilePath,
-      long customLastModified) {
-    boolean matches(boolean enabled, String path, long lastModified) {
-      return customLogicEnabled == enabled
-          && Objects.equals(customFilePath, path)
-          && customLastModified == lastModified;
-    }
-  }
+  private record CachedConfig(RuleSet ruleSet, String fingerprint) {}
 }
@@ -0,0 +1,40 @@
+package com.vchatrola.config;
+
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.vchatrola.util.GherkinLintLogger;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reloads the configuration in the background when the custom rules file is edited, created,
+ * deleted, moved or renamed, so validations never have to check the file themselves.
+ */
+public class CustomRulesFileListener implements BulkFileListener {
+
+  @Override
+  public void after(@NotNull List<? extends VFileEvent> events) {
+    for (VFileEvent event : events) {
+      if (affectsCustomRules(event)) {
+        GherkinLintLogger.debug("Custom rules file changed; reloading configuration.");
+        ConfigurationManager.reloadInBackground();
+        return;
+      }
+    }
+  }
+
+  private static boolean affectsCustomRules(VFileEvent event) {
+    if (ConfigurationManager.isWatchedCustomFile(event.getPath())) {
+      return true;
+    }
+    if (event instanceof VFileMoveEvent moveEvent) {
+      return ConfigurationManager.isWatchedCustomFile(moveEvent.getNewPath());
+    }
+    if (event instanceof VFilePropertyChangeEvent propertyEvent && propertyEvent.isRename()) {
+      return ConfigurationManager.isWatchedCustomFile(propertyEvent.getNewPath());
+    }
+    return false;
+  }
+}
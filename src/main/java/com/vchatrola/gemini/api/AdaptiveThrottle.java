@@ -0,0 +1,78 @@
+package com.vchatrola.gemini.api;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Client-wide pacing that reacts to throttling responses.
+ *
+ * <p>Every 429/503 pauses all requests of the client until the server's retry hint (or an
+ * exponential fallback) has elapsed and raises the slowdown level. While the level is above zero,
+ * request starts are spaced out by a delay that doubles per level. Each successful response lowers
+ * the level by one, so throughput recovers step by step instead of bouncing back into the limit.
+ */
+class AdaptiveThrottle {
+  static final int MAX_LEVEL = 6;
+  private static final long BASE_SPACING_MILLIS = 250L;
+  private static final long BASE_BACKOFF_MILLIS = 500L;
+  private static final long MAX_FALLBACK_BACKOFF_MILLIS = 30_000L;
+
+  private final LongSupplier clock;
+  private long pausedUntil;
+  private long nextSlotAt;
+  private int level;
+
+  AdaptiveThrottle() {
+    this(System::currentTimeMillis);
+  }
+
+  AdaptiveThrottle(LongSupplier clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Claims the next start slot and returns how long the caller must wait before sending. Slots are
+   * handed out in call order.
+   */
+  synchronized long reserveSlot() {
+    long now = clock.getAsLong();
+    long start = Math.max(now, pausedUntil);
+    if (level > 0) {
+      start = Math.max(start, nextSlotAt);
+      nextSlotAt = start + spacingMillis();
+    }
+    return start - now;
+  }
+
+  /**
+   * Records a throttling response and returns the delay before the failed request may be retried.
+   *
+   * @param retryAfterMillis the server's hint, or a negative value when there is none
+   */
+  synchronized long onThrottled(long retryAfterMillis, int attempt) {
+    level = Math.min(MAX_LEVEL, level + 1);
+    long delay = retryAfterMillis >= 0 ? retryAfterMillis : fallbackBackoffMillis(attempt);
+    long now = clock.getAsLong();
+    pausedUntil = Math.max(pausedUntil, now + delay);
+    return pausedUntil - now;
+  }
+
+  /** Records a successful response; lowers the slowdown level by one step. */
+  synchronized void onSuccess() {
+    if (level > 0) {
+      level--;
+    }
+  }
+
+  synchronized int level() {
+    return level;
+  }
+
+  private static long fallbackBackoffMillis(int attempt) {
+    int exponent = Math.min(Math.max(0, attempt - 1), 10);
+    return Math.min(MAX_FALLBACK_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << exponent);
+  }
+
+  private long spacingMillis() {
+    return BASE_SPACING_MILLIS << (level - 1);
+  }
+}
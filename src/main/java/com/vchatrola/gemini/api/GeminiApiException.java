@@ -3,11 +3,18 @@ package com.vchatrola.gemini.api;
 public class GeminiApiException extends RuntimeException {
   private final int statusCode;
   private final String shortReason;
+  private final long retryAfterMillis;
 
   public GeminiApiException(int statusCode, String shortReason, String message) {
+    this(statusCode, shortReason, message, -1L);
+  }
+
+  public GeminiApiException(
+      int statusCode, String shortReason, String message, long retryAfterMillis) {
     super(message);
     this.statusCode = statusCode;
     this.shortReason = shortReason;
+    this.retryAfterMillis = retryAfterMillis;
   }
 
   public int getStatusCode() {
@@ -17,4 +24,12 @@ public class GeminiApiException extends RuntimeException {
   public String getShortReason() {
     return shortReason;
   }
+
+  /**
+   * The delay the server asked for via {@code Retry-After} or {@code google.rpc.RetryInfo}, or a
+   * negative value when the response carried no hint.
+   */
+  public long getRetryAfterMillis() {
+    return retryAfterMillis;
+  }
 }
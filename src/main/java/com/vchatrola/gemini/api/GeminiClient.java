@@ -1,6 +1,8 @@
 package com.vchatrola.gemini.api;
 
 import com.vchatrola.gemini.dto.GeminiRecords;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface GeminiClient {
   GeminiRecords.ModelList getModels(String apiKey);
@@ -10,4 +12,56 @@ public interface GeminiClient {
 
   GeminiRecords.GeminiResponse generateContent(
       String model, String apiKey, GeminiRecords.GeminiRequest request);
+
+  /**
+   * Asynchronous variant of {@link #getModels}. Implementations without non-blocking I/O run the
+   * blocking call on the common pool.
+   */
+  default CompletableFuture<GeminiRecords.ModelList> getModelsAsync(String apiKey) {
+    return CompletableFuture.supplyAsync(() -> getModels(apiKey));
+  }
+
+  /** Asynchronous variant of {@link #countTokens}. */
+  default CompletableFuture<GeminiRecords.GeminiCountResponse> countTokensAsync(
+      String model, String apiKey, GeminiRecords.GeminiRequest request) {
+    return CompletableFuture.supplyAsync(() -> countTokens(model, apiKey, request));
+  }
+
+  /** Asynchronous variant of {@link #generateContent}. */
+  default CompletableFuture<GeminiRecords.GeminiResponse> generateContentAsync(
+      String model, String apiKey, GeminiRecords.GeminiRequest request) {
+    return CompletableFuture.supplyAsync(() -> generateContent(model, apiKey, request));
+  }
+
+  /**
+   * Generates content and hands each partial response to {@code onChunk} as it arrives. Returns
+   * once the stream is complete. Clients without streaming support deliver one full response.
+   */
+  default void streamGenerateContent(
+      String model,
+      String apiKey,
+      GeminiRecords.GeminiRequest request,
+      Consumer<GeminiRecords.GeminiResponse> onChunk) {
+    onChunk.accept(generateContent(model, apiKey, request));
+  }
+
+  /**
+   * Whether {@link #createCachedContent} and {@link #deleteCachedContent} are available. Callers
+   * check this before uploading a context cache and send full prompts otherwise.
+   */
+  default boolean supportsContextCaching() {
+    return false;
+  }
+
+  /**
+   * Uploads content to Gemini's context cache so later requests can reference it by name instead
+   * of resending it. Only called when {@link #supportsContextCaching()} is {@code true}.
+   */
+  default GeminiRecords.CachedContent createCachedContent(
+      String apiKey, GeminiRecords.CachedContentRequest request) {
+    throw new UnsupportedOperationException("Context caching is not supported by this client.");
+  }
+
+  /** Deletes a context cache created by {@link #createCachedContent}. */
+  default void deleteCachedContent(String apiKey, String name) {}
 }
@@ -7,20 +7,43 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vchatrola.gemini.dto.GeminiRecords;
 import com.vchatrola.util.GherkinLintLogger;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class GeminiHttpClient implements GeminiClient {
-  private static final String BASE_URL = "https://generativelanguage.googleapis.com/v1beta/models/";
+  private static final String API_ROOT = "https://generativelanguage.googleapis.com/v1beta/";
+  private static final String BASE_URL = API_ROOT + "models/";
+  private static final String CACHED_CONTENTS_URL = API_ROOT + "cachedContents";
   private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
   private static final int MAX_ATTEMPTS = 3;
   private static final long BASE_BACKOFF_MILLIS = 500L;
+  private static final long MAX_RETRY_HINT_MILLIS = 60_000L;
+  private static final String SSE_DATA_PREFIX = "data:";
+  private static final String RETRY_INFO_TYPE = "type.googleapis.com/google.rpc.RetryInfo";
 
   private final HttpClient httpClient;
   private final ObjectMapper objectMapper;
+  private final AdaptiveThrottle throttle;
 
   public GeminiHttpClient() {
     this(
@@ -29,8 +52,13 @@ public class GeminiHttpClient implements GeminiClient {
   }
 
   GeminiHttpClient(HttpClient httpClient, ObjectMapper objectMapper) {
+    this(httpClient, objectMapper, new AdaptiveThrottle());
+  }
+
+  GeminiHttpClient(HttpClient httpClient, ObjectMapper objectMapper, AdaptiveThrottle throttle) {
     this.httpClient = httpClient;
     this.objectMapper = objectMapper;
+    this.throttle = throttle;
   }
 
   @Override
@@ -60,47 +88,195 @@ public class GeminiHttpClient implements GeminiClient {
     return sendPost(url, apiKey, requestBody, GeminiRecords.GeminiResponse.class);
   }
 
+  @Override
+  public CompletableFuture<GeminiRecords.ModelList> getModelsAsync(String apiKey) {
+    HttpRequest request =
+        HttpRequest.newBuilder()
+            .uri(URI.create(BASE_URL))
+            .header("x-goog-api-key", apiKey)
+            .header("Accept", "application/json")
+            .timeout(REQUEST_TIMEOUT)
+            .GET()
+            .build();
+    return sendRequestAsync(request, GeminiRecords.ModelList.class);
+  }
+
+  @Override
+  public CompletableFuture<GeminiRecords.GeminiCountResponse> countTokensAsync(
+      String model, String apiKey, GeminiRecords.GeminiRequest requestBody) {
+    String url = BASE_URL + model + ":countTokens";
+    return sendPostAsync(url, apiKey, requestBody, GeminiRecords.GeminiCountResponse.class);
+  }
+
+  @Override
+  public CompletableFuture<GeminiRecords.GeminiResponse> generateContentAsync(
+      String model, String apiKey, GeminiRecords.GeminiRequest requestBody) {
+    String url = BASE_URL + model + ":generateContent";
+    return sendPostAsync(url, apiKey, requestBody, GeminiRecords.GeminiResponse.class);
+  }
+
+  @Override
+  public boolean supportsContextCaching() {
+    return true;
+  }
+
+  @Override
+  public GeminiRecords.CachedContent createCachedContent(
+      String apiKey, GeminiRecords.CachedContentRequest requestBody) {
+    return sendPost(CACHED_CONTENTS_URL, apiKey, requestBody, GeminiRecords.CachedContent.class);
+  }
+
+  @Override
+  public void deleteCachedContent(String apiKey, String name) {
+    HttpRequest request =
+        HttpRequest.newBuilder()
+            .uri(URI.create(API_ROOT + name))
+            .header("x-goog-api-key", apiKey)
+            .timeout(REQUEST_TIMEOUT)
+            .DELETE()
+            .build();
+    sendRequest(request, JsonNode.class);
+  }
+
+  /**
+   * Streams the response over server-sent events. Each {@code data:} event is one partial {@link
+   * GeminiRecords.GeminiResponse}. Failures before the first event are retried like other
+   * requests; once events have been delivered the error is rethrown so no chunk is repeated.
+   * Interrupting the calling thread closes the stream and ends the call.
+   */
+  @Override
+  public void streamGenerateContent(
+      String model,
+      String apiKey,
+      GeminiRecords.GeminiRequest requestBody,
+      Consumer<GeminiRecords.GeminiResponse> onChunk) {
+    String url = BASE_URL + model + ":streamGenerateContent?alt=sse";
+    HttpRequest request = buildPost(url, apiKey, requestBody, "text/event-stream");
+    RuntimeException lastError = null;
+    long retryDelay = 0L;
+    for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+      int delivered = 0;
+      try {
+        pause(retryDelay);
+        pause(throttle.reserveSlot());
+        HttpResponse<Stream<String>> response =
+            exchange(request, HttpResponse.BodyHandlers.ofLines());
+        try (Stream<String> lines = response.body()) {
+          if (response.statusCode() >= 400) {
+            GeminiApiException error =
+                buildApiException(
+                    response.statusCode(),
+                    lines.collect(Collectors.joining("\n")),
+                    response.headers());
+            if (shouldRetry(error, attempt)) {
+              lastError = error;
+              retryDelay = retryDelayMillis(error, attempt);
+              continue;
+            }
+            throw error;
+          }
+          throttle.onSuccess();
+          Iterator<String> iterator = lines.iterator();
+          while (iterator.hasNext()) {
+            String line = iterator.next();
+            if (!line.startsWith(SSE_DATA_PREFIX)) {
+              continue;
+            }
+            String data = line.substring(SSE_DATA_PREFIX.length()).trim();
+            if (!data.isEmpty()) {
+              onChunk.accept(objectMapper.readValue(data, GeminiRecords.GeminiResponse.class));
+              delivered++;
+            }
+          }
+          return;
+        }
+      } catch (InterruptedException e) {
+        throw interrupted(e);
+      } catch (IOException | UncheckedIOException e) {
+        if (Thread.currentThread().isInterrupted()) {
+          throw interrupted(e);
+        }
+        if (delivered == 0 && attempt < MAX_ATTEMPTS) {
+          lastError = new RuntimeException("Gemini HTTP request failed.", e);
+          retryDelay = backoffDelayMillis(attempt);
+          continue;
+        }
+        GherkinLintLogger.debug("Gemini streaming request failed.");
+        throw new RuntimeException("Gemini HTTP request failed.", e);
+      }
+    }
+    throw lastError != null ? lastError : new RuntimeException("Gemini HTTP request failed.");
+  }
+
   private <T> T sendPost(String url, String apiKey, Object body, Class<T> type) {
+    return sendRequest(buildPost(url, apiKey, body, "application/json"), type);
+  }
+
+  private <T> CompletableFuture<T> sendPostAsync(
+      String url, String apiKey, Object body, Class<T> type) {
+    try {
+      return sendRequestAsync(buildPost(url, apiKey, body, "application/json"), type);
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private HttpRequest buildPost(String url, String apiKey, Object body, String accept) {
     try {
       String json = objectMapper.writeValueAsString(body);
-      HttpRequest request =
-          HttpRequest.newBuilder()
-              .uri(URI.create(url))
-              .header("x-goog-api-key", apiKey)
-              .header("Content-Type", "application/json")
-              .header("Accept", "application/json")
-              .timeout(REQUEST_TIMEOUT)
-              .POST(HttpRequest.BodyPublishers.ofString(json))
-              .build();
-      return sendRequest(request, type);
+      return HttpRequest.newBuilder()
+          .uri(URI.create(url))
+          .header("x-goog-api-key", apiKey)
+          .header("Content-Type", "application/json")
+          .header("Accept", accept)
+          .timeout(REQUEST_TIMEOUT)
+          .POST(HttpRequest.BodyPublishers.ofString(json))
+          .build();
     } catch (JsonProcessingException e) {
       throw new RuntimeException("Failed to serialize Gemini request.", e);
     }
   }
 
+  /**
+   * Sends {@code request}, retrying transient failures. Interrupting the calling thread aborts the
+   * exchange in flight and any pending retry, and the call fails with the interrupt flag set.
+   */
   private <T> T sendRequest(HttpRequest request, Class<T> type) {
     RuntimeException lastError = null;
+    long retryDelay = 0L;
     for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
       try {
-        HttpResponse<String> response =
-            httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() >= 400) {
-          if (isRetryableStatus(response.statusCode()) && attempt < MAX_ATTEMPTS) {
-            lastError = buildApiException(response);
-            backoff(attempt);
-            continue;
+        pause(retryDelay);
+        pause(throttle.reserveSlot());
+        HttpResponse<InputStream> response =
+            exchange(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+          if (response.statusCode() >= 400) {
+            GeminiApiException error =
+                buildApiException(
+                    response.statusCode(),
+                    new String(body.readAllBytes(), StandardCharsets.UTF_8),
+                    response.headers());
+            if (shouldRetry(error, attempt)) {
+              lastError = error;
+              retryDelay = retryDelayMillis(error, attempt);
+              continue;
+            }
+            throw error;
           }
-          throw buildApiException(response);
+          throttle.onSuccess();
+          // Decodes straight from the connection instead of buffering the body as a String.
+          return objectMapper.readValue(body, type);
         }
-        return objectMapper.readValue(response.body(), type);
       } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        GherkinLintLogger.debug("Gemini HTTP request interrupted.");
-        throw new RuntimeException("Gemini HTTP request interrupted.", e);
+        throw interrupted(e);
       } catch (IOException e) {
+        if (Thread.currentThread().isInterrupted()) {
+          throw interrupted(e);
+        }
         if (attempt < MAX_ATTEMPTS) {
           lastError = new RuntimeException("Gemini HTTP request failed.", e);
-          backoff(attempt);
+          retryDelay = backoffDelayMillis(attempt);
           continue;
         }
         GherkinLintLogger.debug("Gemini HTTP request failed.");
@@ -110,12 +286,116 @@ public class GeminiHttpClient implements GeminiClient {
     throw lastError != null ? lastError : new RuntimeException("Gemini HTTP request failed.");
   }
 
-  private GeminiApiException buildApiException(HttpResponse<String> response) {
-    int statusCode = response.statusCode();
+  /**
+   * Waits for the response to {@code request}. An interrupt while waiting cancels the exchange,
+   * which closes its connection, rather than leaving it to finish in the background.
+   */
+  private <T> HttpResponse<T> exchange(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+      throws IOException, InterruptedException {
+    CompletableFuture<HttpResponse<T>> exchange = httpClient.sendAsync(request, handler);
+    try {
+      return exchange.get();
+    } catch (InterruptedException e) {
+      exchange.cancel(true);
+      throw e;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException io) {
+        throw io;
+      }
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Non-blocking counterpart of {@link #sendRequest}: the same pacing and retry policy, but every
+   * wait is scheduled on a timer rather than sleeping on the calling thread. The body is collected
+   * as bytes, since a blocking stream must not be read on the client's completion thread, and
+   * decoded without an intermediate String. Cancelling the returned future aborts the exchange in
+   * flight and any pending retry.
+   */
+  private <T> CompletableFuture<T> sendRequestAsync(HttpRequest request, Class<T> type) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    attemptAsync(request, type, 1, result);
+    return result;
+  }
+
+  private <T> void attemptAsync(
+      HttpRequest request, Class<T> type, int attempt, CompletableFuture<T> result) {
+    if (result.isDone()) {
+      return;
+    }
+    long waitMillis = throttle.reserveSlot();
+    if (waitMillis > 0) {
+      CompletableFuture.delayedExecutor(waitMillis, TimeUnit.MILLISECONDS)
+          .execute(() -> sendAsync(request, type, attempt, result));
+    } else {
+      sendAsync(request, type, attempt, result);
+    }
+  }
+
+  private <T> void sendAsync(
+      HttpRequest request, Class<T> type, int attempt, CompletableFuture<T> result) {
+    if (result.isDone()) {
+      return;
+    }
+    CompletableFuture<HttpResponse<byte[]>> exchange =
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+    result.whenComplete((ignored, error) -> exchange.cancel(true));
+    exchange.whenComplete(
+        (response, error) -> {
+          if (result.isDone()) {
+            return;
+          }
+          RuntimeException failure;
+          boolean retryable;
+          long retryDelay = backoffDelayMillis(attempt);
+          if (error != null) {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            failure = new RuntimeException("Gemini HTTP request failed.", cause);
+            retryable = cause instanceof IOException && attempt < MAX_ATTEMPTS;
+          } else if (response.statusCode() >= 400) {
+            GeminiApiException apiError =
+                buildApiException(
+                    response.statusCode(),
+                    new String(response.body(), StandardCharsets.UTF_8),
+                    response.headers());
+            failure = apiError;
+            retryable = shouldRetry(apiError, attempt);
+            if (retryable) {
+              retryDelay = retryDelayMillis(apiError, attempt);
+            }
+          } else {
+            throttle.onSuccess();
+            try {
+              result.complete(objectMapper.readValue(response.body(), type));
+              return;
+            } catch (IOException e) {
+              failure = new RuntimeException("Gemini HTTP request failed.", e);
+              retryable = attempt < MAX_ATTEMPTS;
+            }
+          }
+          if (retryable) {
+            Executor delayed =
+                CompletableFuture.delayedExecutor(retryDelay, TimeUnit.MILLISECONDS);
+            delayed.execute(() -> attemptAsync(request, type, attempt + 1, result));
+            return;
+          }
+          GherkinLintLogger.debug("Gemini HTTP request failed.");
+          result.completeExceptionally(failure);
+        });
+  }
+
+  private GeminiApiException buildApiException(int statusCode, String body, HttpHeaders headers) {
     String shortReason = "HTTP " + statusCode;
     String message = "Gemini API request failed.";
+    long retryAfterMillis =
+        headers.firstValue("Retry-After").map(GeminiHttpClient::parseRetryAfterHeader).orElse(-1L);
     try {
-      JsonNode root = objectMapper.readTree(response.body());
+      JsonNode root = objectMapper.readTree(body);
       JsonNode error = root.path("error");
       if (!error.isMissingNode()) {
         String status = textOrEmpty(error, "status");
@@ -126,11 +406,49 @@ public class GeminiHttpClient implements GeminiClient {
         if (!errorMessage.isBlank()) {
           message = errorMessage;
         }
+        retryAfterMillis = Math.max(retryAfterMillis, retryInfoDelayMillis(error.path("details")));
       }
     } catch (Exception ignored) {
       // Ignore parsing errors to keep logs clean.
     }
-    return new GeminiApiException(statusCode, shortReason, message);
+    return new GeminiApiException(statusCode, shortReason, message, retryAfterMillis);
+  }
+
+  /** Reads {@code retryDelay} (a protobuf duration such as {@code "12.5s"}) from RetryInfo. */
+  private static long retryInfoDelayMillis(JsonNode details) {
+    for (JsonNode detail : details) {
+      if (!RETRY_INFO_TYPE.equals(textOrEmpty(detail, "@type"))) {
+        continue;
+      }
+      String delay = textOrEmpty(detail, "retryDelay").trim();
+      if (delay.endsWith("s")) {
+        try {
+          return secondsToMillis(new BigDecimal(delay.substring(0, delay.length() - 1)));
+        } catch (NumberFormatException ignored) {
+          return -1L;
+        }
+      }
+    }
+    return -1L;
+  }
+
+  /** {@code Retry-After} is either a number of seconds or an HTTP date. */
+  private static long parseRetryAfterHeader(String value) {
+    String trimmed = value.trim();
+    try {
+      return secondsToMillis(new BigDecimal(trimmed));
+    } catch (NumberFormatException e) {
+      try {
+        Instant at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        return Math.max(0L, at.toEpochMilli() - System.currentTimeMillis());
+      } catch (RuntimeException ignored) {
+        return -1L;
+      }
+    }
+  }
+
+  private static long secondsToMillis(BigDecimal seconds) {
+    return Math.max(0L, seconds.movePointRight(3).longValue());
   }
 
   private static String textOrEmpty(JsonNode node, String field) {
@@ -147,13 +465,53 @@ public class GeminiHttpClient implements GeminiClient {
         || statusCode == 504;
   }
 
-  private static void backoff(int attempt) {
+  /**
+   * A retry is pointless when the server asks for a longer pause than a user would wait for; the
+   * error is surfaced right away instead, with the hint attached.
+   */
+  private static boolean shouldRetry(GeminiApiException error, int attempt) {
+    return isRetryableStatus(error.getStatusCode())
+        && attempt < MAX_ATTEMPTS
+        && error.getRetryAfterMillis() <= MAX_RETRY_HINT_MILLIS;
+  }
+
+  /**
+   * Throttling responses (429/503) slow the whole client down through {@link AdaptiveThrottle};
+   * other retryable errors only back off the failing request, honoring a server hint if present.
+   */
+  private long retryDelayMillis(GeminiApiException error, int attempt) {
+    int status = error.getStatusCode();
+    if (status == 429 || status == 503) {
+      return throttle.onThrottled(error.getRetryAfterMillis(), attempt) + jitterMillis();
+    }
+    if (error.getRetryAfterMillis() >= 0) {
+      return error.getRetryAfterMillis() + jitterMillis();
+    }
+    return backoffDelayMillis(attempt);
+  }
+
+  private static long backoffDelayMillis(int attempt) {
     long delay = (long) (BASE_BACKOFF_MILLIS * Math.pow(2, attempt - 1));
-    long jitter = (long) (Math.random() * 200L);
-    try {
-      Thread.sleep(delay + jitter);
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
+    return delay + jitterMillis();
+  }
+
+  private static long jitterMillis() {
+    return (long) (Math.random() * 200L);
+  }
+
+  /** Sleeps for {@code millis}, failing right away if the thread has been interrupted. */
+  private static void pause(long millis) throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
     }
+    if (millis > 0) {
+      Thread.sleep(millis);
+    }
+  }
+
+  private static RuntimeException interrupted(Exception cause) {
+    Thread.currentThread().interrupt();
+    GherkinLintLogger.debug("Gemini HTTP request interrupted.");
+    return new RuntimeException("Gemini HTTP request interrupted.", cause);
   }
 }
@@ -0,0 +1,190 @@
+package com.vchatrola.gemini.service;
+
+import com.vchatrola.gemini.api.GeminiApiException;
+import com.vchatrola.gemini.api.GeminiClient;
+import com.vchatrola.gemini.dto.GeminiRecords;
+import com.vchatrola.util.Constants;
+import com.vchatrola.util.GherkinLintLogger;
+import com.vchatrola.util.HashUtils;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.jetbrains.annotations.VisibleForTesting;
+
+/**
+ * Keeps Gemini context caches for instruction prefixes, one per model and prefix.
+ *
+ * <p>The prefix is uploaded the first time it is needed and referenced by name until shortly before
+ * its TTL runs out, when it is uploaded again. A changed configuration produces a different prefix
+ * and therefore a new cache; only the most recently used {@link #MAX_ENTRIES} caches are kept and
+ * the others are deleted, so caches of an outdated configuration do not linger until their TTL
+ * ends.
+ *
+ * <p>When Gemini refuses to create a cache with a 4xx response (for example because the prefix is
+ * below the model's minimum or the plan has no context caching) the refusal is remembered for one
+ * TTL, so callers fall back to inline prompts without retrying the upload on every request. Other
+ * failures, such as a network error or a 5xx after retries, only affect the current request.
+ *
+ * <p>Uploads and deletions run outside the lock that guards the entries, so a slow upload does not
+ * hold up requests for other caches; concurrent requests for the same cache share one upload.
+ */
+public class GeminiContextCache {
+  static final int MAX_ENTRIES = 4;
+  private static final String MODEL_PREFIX = "models/";
+
+  private final GeminiClient client;
+  private final LongSupplier clock;
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final SingleFlight<Optional<String>> uploads = new SingleFlight<>();
+
+  public GeminiContextCache(GeminiClient client) {
+    this(client, System::currentTimeMillis);
+  }
+
+  @VisibleForTesting
+  GeminiContextCache(GeminiClient client, LongSupplier clock) {
+    this.client = client;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the name of a live cache holding {@code prefix}, creating it if needed. Empty when the
+   * client has no context caching or the cache could not be created.
+   */
+  public Optional<String> resolve(String model, String apiKey, String prefix) {
+    if (!client.supportsContextCaching()) {
+      return Optional.empty();
+    }
+    String key = HashUtils.sha256Hex(model, prefix);
+    Optional<Entry> live = liveEntry(key);
+    if (live.isPresent()) {
+      return Optional.ofNullable(live.get().name());
+    }
+    return uploads.execute(
+        key,
+        () -> {
+          // A caller that finished the same upload just before this one started has stored it.
+          Optional<Entry> stored = liveEntry(key);
+          return stored.isPresent()
+              ? Optional.ofNullable(stored.get().name())
+              : create(model, apiKey, prefix, key);
+        });
+  }
+
+  /**
+   * Forgets the cache for {@code model} and {@code prefix}, e.g. after Gemini rejected a request
+   * that referenced it.
+   */
+  public void invalidate(String model, String prefix) {
+    lock.lock();
+    try {
+      entries.remove(HashUtils.sha256Hex(model, prefix));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @VisibleForTesting
+  int size() {
+    lock.lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Optional<Entry> liveEntry(String key) {
+    long now = clock.getAsLong();
+    lock.lock();
+    try {
+      // Re-inserting keeps the map ordered from least to most recently used.
+      Entry entry = entries.remove(key);
+      if (entry == null || now >= entry.usableUntil()) {
+        return Optional.empty();
+      }
+      entries.put(key, entry);
+      return Optional.of(entry);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Optional<String> create(String model, String apiKey, String prefix, String key) {
+    long now = clock.getAsLong();
+    long ttlMillis = Constants.CONTEXT_CACHE_TTL_SECONDS * 1000L;
+    try {
+      GeminiRecords.CachedContent created =
+          client.createCachedContent(
+              apiKey,
+              new GeminiRecords.CachedContentRequest(
+                  MODEL_PREFIX + model,
+                  Constants.CONTEXT_CACHE_DISPLAY_NAME,
+                  new GeminiRecords.Content(List.of(new GeminiRecords.TextPart(prefix))),
+                  Constants.CONTEXT_CACHE_TTL_SECONDS + "s"));
+      if (created == null || created.name() == null || created.name().isBlank()) {
+        throw new IllegalArgumentException("Gemini did not return a context cache name.");
+      }
+      GherkinLintLogger.debugVerbose("Created Gemini context cache " + created.name());
+      long usableUntil = now + ttlMillis - Constants.CONTEXT_CACHE_REFRESH_MARGIN_MS;
+      store(apiKey, key, new Entry(created.name(), usableUntil));
+      return Optional.of(created.name());
+    } catch (RuntimeException e) {
+      if (Thread.currentThread().isInterrupted()) {
+        // Cancelled by the caller rather than refused by Gemini; nothing to remember.
+        throw e;
+      }
+      GherkinLintLogger.debug("Gemini context cache unavailable; sending full prompts.", e);
+      if (isRefusal(e)) {
+        store(apiKey, key, new Entry(null, now + ttlMillis));
+      }
+      return Optional.empty();
+    }
+  }
+
+  private void store(String apiKey, String key, Entry entry) {
+    List<Entry> evicted = new ArrayList<>();
+    lock.lock();
+    try {
+      entries.put(key, entry);
+      Iterator<Entry> eldest = entries.values().iterator();
+      while (entries.size() > MAX_ENTRIES) {
+        evicted.add(eldest.next());
+        eldest.remove();
+      }
+    } finally {
+      lock.unlock();
+    }
+    evicted.forEach(old -> delete(apiKey, old));
+  }
+
+  private void delete(String apiKey, Entry entry) {
+    if (entry.name() == null) {
+      return;
+    }
+    try {
+      client.deleteCachedContent(apiKey, entry.name());
+    } catch (RuntimeException e) {
+      // The cache expires on its own; deleting only frees it early.
+      GherkinLintLogger.debug("Failed to delete Gemini context cache " + entry.name(), e);
+    }
+  }
+
+  /** A definitive answer from Gemini, as opposed to a failure a later attempt may not repeat. */
+  private static boolean isRefusal(RuntimeException e) {
+    if (e instanceof GeminiApiException apiException) {
+      int status = apiException.getStatusCode();
+      return status >= 400 && status < 500 && status != 408 && status != 429;
+    }
+    return e instanceof IllegalArgumentException;
+  }
+
+  /** {@code name} is {@code null} when Gemini refused to create the cache. */
+  private record Entry(String name, long usableUntil) {}
+}
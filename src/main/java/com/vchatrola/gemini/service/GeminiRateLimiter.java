@@ -0,0 +1,146 @@
+package com.vchatrola.gemini.service;
+
+import com.vchatrola.gemini.api.GeminiApiException;
+import com.vchatrola.util.Constants;
+import com.vchatrola.util.GherkinLintLogger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import org.jetbrains.annotations.VisibleForTesting;
+
+/**
+ * Client-side token-bucket limiter with a requests-per-minute and a tokens-per-minute budget per
+ * model.
+ *
+ * <p>Callers reserve capacity up front, so concurrent callers queue in arrival order and each one
+ * knows how long to wait. A caller whose wait would exceed {@code maxWaitMillis} is rejected with a
+ * 429 {@link GeminiApiException} without consuming capacity. A budget of zero or less disables that
+ * dimension.
+ */
+public class GeminiRateLimiter {
+  private static final double MILLIS_PER_MINUTE = 60_000d;
+
+  private final IntSupplier requestsPerMinute;
+  private final IntSupplier tokensPerMinute;
+  private final long maxWaitMillis;
+  private final LongSupplier clock;
+  private final Map<String, Bucket> buckets = new HashMap<>();
+
+  public GeminiRateLimiter(
+      IntSupplier requestsPerMinute, IntSupplier tokensPerMinute, long maxWaitMillis) {
+    this(requestsPerMinute, tokensPerMinute, maxWaitMillis, System::currentTimeMillis);
+  }
+
+  @VisibleForTesting
+  GeminiRateLimiter(
+      IntSupplier requestsPerMinute,
+      IntSupplier tokensPerMinute,
+      long maxWaitMillis,
+      LongSupplier clock) {
+    this.requestsPerMinute = requestsPerMinute;
+    this.tokensPerMinute = tokensPerMinute;
+    this.maxWaitMillis = maxWaitMillis;
+    this.clock = clock;
+  }
+
+  /** A limiter that never waits. */
+  public static GeminiRateLimiter unlimited() {
+    return new GeminiRateLimiter(() -> 0, () -> 0, 0L);
+  }
+
+  /** Blocks until a request of {@code estimatedTokens} may be sent to {@code model}. */
+  public void acquire(String model, int estimatedTokens) {
+    long waitMillis = reserve(model, estimatedTokens);
+    if (waitMillis <= 0) {
+      return;
+    }
+    GherkinLintLogger.debugVerbose("Rate limiter delaying Gemini request " + waitMillis + " ms.");
+    try {
+      Thread.sleep(waitMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for Gemini rate limit.", e);
+    }
+  }
+
+  /** Non-blocking variant of {@link #acquire}: completes once the request may be sent. */
+  public CompletableFuture<Void> acquireAsync(String model, int estimatedTokens) {
+    long waitMillis;
+    try {
+      waitMillis = reserve(model, estimatedTokens);
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    if (waitMillis <= 0) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return CompletableFuture.runAsync(
+        () -> {}, CompletableFuture.delayedExecutor(waitMillis, TimeUnit.MILLISECONDS));
+  }
+
+  /** Rough token estimate for Gemini models (about four characters per token). */
+  public static int estimateTokens(String text) {
+    if (text == null) {
+      return 0;
+    }
+    return (text.length() + Constants.CHARS_PER_TOKEN - 1) / Constants.CHARS_PER_TOKEN;
+  }
+
+  /** Reserves capacity and returns how long the caller has to wait before sending. */
+  @VisibleForTesting
+  synchronized long reserve(String model, int estimatedTokens) {
+    int rpm = requestsPerMinute.getAsInt();
+    int tpm = tokensPerMinute.getAsInt();
+    if (rpm <= 0 && tpm <= 0) {
+      return 0L;
+    }
+    long now = clock.getAsLong();
+    Bucket bucket = buckets.computeIfAbsent(model, key -> new Bucket(now));
+    bucket.refill(now, rpm, tpm);
+
+    double tokenCost = tpm > 0 ? Math.min(estimatedTokens, tpm) : 0;
+    long waitMillis =
+        Math.max(waitFor(bucket.requests, 1, rpm), waitFor(bucket.tokens, tokenCost, tpm));
+    if (waitMillis > maxWaitMillis) {
+      throw new GeminiApiException(
+          429,
+          "CLIENT_RATE_LIMITED",
+          "Gemini rate limit budget exhausted for " + model + "; retry in " + waitMillis + " ms.",
+          waitMillis);
+    }
+    if (rpm > 0) {
+      bucket.requests -= 1;
+    }
+    bucket.tokens -= tokenCost;
+    return waitMillis;
+  }
+
+  /** Time until {@code available} has recovered enough to cover {@code cost}. */
+  private static long waitFor(double available, double cost, int perMinute) {
+    if (perMinute <= 0 || available >= cost) {
+      return 0L;
+    }
+    return (long) Math.ceil((cost - available) * MILLIS_PER_MINUTE / perMinute);
+  }
+
+  private static final class Bucket {
+    private double requests = Double.MAX_VALUE;
+    private double tokens = Double.MAX_VALUE;
+    private long updatedAt;
+
+    private Bucket(long now) {
+      this.updatedAt = now;
+    }
+
+    /** Adds the capacity earned since the last update, capped at one minute's budget. */
+    private void refill(long now, int rpm, int tpm) {
+      long elapsed = Math.max(0L, now - updatedAt);
+      updatedAt = now;
+      requests = rpm > 0 ? Math.min(rpm, requests + elapsed * rpm / MILLIS_PER_MINUTE) : 0;
+      tokens = tpm > 0 ? Math.min(tpm, tokens + elapsed * tpm / MILLIS_PER_MINUTE) : 0;
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.vchatrola.gemini.service;
 
+import com.vchatrola.cache.ValidationResultCache;
 import com.vchatrola.gemini.api.GeminiApiException;
 import com.vchatrola.gemini.api.GeminiClient;
 import com.vchatrola.gemini.api.GeminiHttpClient;
@@ -8,31 +9,60 @@ import com.vchatrola.gemini.dto.GeminiRecords.Content;
 import com.vchatrola.gemini.dto.GeminiRecords.GeminiCountResponse;
 import com.vchatrola.gemini.dto.GeminiRecords.GeminiRequest;
 import com.vchatrola.gemini.dto.GeminiRecords.GeminiResponse;
+import com.vchatrola.gemini.dto.GeminiRecords.GenerationConfig;
 import com.vchatrola.gemini.dto.GeminiRecords.TextPart;
 import com.vchatrola.gemini.dto.GeminiRecords.UsageMetadata;
 import com.vchatrola.plugin.setting.GherkinLintSecrets;
 import com.vchatrola.plugin.setting.GherkinLintSettingsState;
+import com.vchatrola.util.Constants;
 import com.vchatrola.util.GherkinLintLogger;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.VisibleForTesting;
 
 public class GeminiService {
   private final GeminiClient geminiClient;
   private final Supplier<String> apiKeySupplier;
+  private final GeminiRateLimiter rateLimiter;
+  private final ValidationResultCache<String> completionCache =
+      new ValidationResultCache<>(
+          Constants.RESULT_CACHE_MAX_ENTRIES, Constants.RESULT_CACHE_TTL_MS);
+  private final SingleFlight<String> inFlightCompletions = new SingleFlight<>();
+  private final GeminiContextCache contextCache;
   private static volatile List<GeminiRecords.Model> cachedModels;
 
   public GeminiService() {
-    this(new GeminiHttpClient(), GherkinLintSecrets::getApiKeyOrEnv);
+    this(
+        new GeminiHttpClient(),
+        GherkinLintSecrets::getApiKeyOrEnv,
+        new GeminiRateLimiter(
+            () -> GherkinLintSettingsState.getInstance().rateLimitRequestsPerMinute,
+            () -> GherkinLintSettingsState.getInstance().rateLimitTokensPerMinute,
+            Constants.RATE_LIMIT_MAX_WAIT_MS));
   }
 
   @VisibleForTesting
   GeminiService(GeminiClient geminiClient, Supplier<String> apiKeySupplier) {
+    this(geminiClient, apiKeySupplier, GeminiRateLimiter.unlimited());
+  }
+
+  @VisibleForTesting
+  GeminiService(
+      GeminiClient geminiClient, Supplier<String> apiKeySupplier, GeminiRateLimiter rateLimiter) {
     this.geminiClient = geminiClient;
     this.apiKeySupplier = apiKeySupplier;
+    this.rateLimiter = rateLimiter;
+    this.contextCache = new GeminiContextCache(geminiClient);
   }
 
   public GeminiRecords.ModelList getModels() {
@@ -72,6 +102,14 @@ public class GeminiService {
     cachedModels = null;
   }
 
+  /** Returns the API details (such as token limits) of {@code model}, if it is listed. */
+  public Optional<GeminiRecords.Model> findModel(String model) {
+    String name = normalizeModelName(model);
+    return getAvailableModels().stream()
+        .filter(candidate -> name.equals(normalizeModelName(candidate.name())))
+        .findFirst();
+  }
+
   public List<String> getAvailableModelNames() {
     return getAvailableModels().stream()
         .map(GeminiRecords.Model::name)
@@ -94,6 +132,7 @@ public class GeminiService {
 
   public GeminiResponse getCompletion(GeminiRequest request) {
     String resolvedModel = resolveModelOrThrow(null);
+    rateLimiter.acquire(resolvedModel, estimateTokens(request));
     GeminiResponse response =
         geminiClient.generateContent(resolvedModel, getApiKeyOrThrow(), request);
     logUsageMetadata(response);
@@ -102,17 +141,212 @@ public class GeminiService {
 
   public GeminiResponse getCompletionWithModel(String model, GeminiRequest request) {
     String resolvedModel = resolveModelOrThrow(model);
+    rateLimiter.acquire(resolvedModel, estimateTokens(request));
     GeminiResponse response =
         geminiClient.generateContent(resolvedModel, getApiKeyOrThrow(), request);
     logUsageMetadata(response);
     return response;
   }
 
+  /**
+   * Returns the completion for {@code text}. Concurrent calls with the same model and prompt share
+   * one request.
+   */
   public String getCompletion(String text, String model) {
-    GeminiResponse response =
-        getCompletionWithModel(
-            model, new GeminiRequest(List.of(new Content(List.of(new TextPart(text))))));
-    return extractResponseTextOrThrow(response);
+    String resolvedModel = resolveModelOrThrow(model);
+    return inFlightCompletions.execute(
+        flightKey(text, resolvedModel),
+        () -> {
+          GeminiResponse response =
+              getCompletionWithModel(
+                  resolvedModel,
+                  new GeminiRequest(List.of(new Content(List.of(new TextPart(text))))));
+          return extractResponseTextOrThrow(response);
+        });
+  }
+
+  /**
+   * Returns the completion for {@code text}, serving it from the result cache when the same prompt
+   * was already sent to the same model under the same configuration.
+   */
+  public String getCompletion(String text, String model, String configIdentity) {
+    return getCompletion("", text, model, configIdentity);
+  }
+
+  /**
+   * Returns the completion for the prompt {@code cacheablePrefix + input}. A non-empty prefix is
+   * referenced through a Gemini context cache when one can be created, so only {@code input} is
+   * uploaded; otherwise the full prompt is sent. Result caching and coalescing use the full prompt.
+   */
+  public String getCompletion(
+      String cacheablePrefix, String input, String model, String configIdentity) {
+    return getCompletion(cacheablePrefix, input, model, configIdentity, null);
+  }
+
+  /**
+   * Like {@link #getCompletion(String, String, String, String)}, but sends {@code
+   * generationConfig} (for example a JSON response schema) with the request when it is set.
+   */
+  public String getCompletion(
+      String cacheablePrefix,
+      String input,
+      String model,
+      String configIdentity,
+      @Nullable GenerationConfig generationConfig) {
+    String resolvedModel = resolveModelOrThrow(model);
+    String prompt = cacheablePrefix + input;
+    String key = ValidationResultCache.keyFor(prompt, resolvedModel, configIdentity);
+    String cached = completionCache.get(key);
+    if (cached != null) {
+      GherkinLintLogger.debugVerbose("Serving Gemini response from result cache.");
+      return cached;
+    }
+    String response =
+        inFlightCompletions.execute(
+            flightKey(prompt, resolvedModel),
+            () ->
+                sendWithContextCache(
+                    cacheablePrefix,
+                    input,
+                    resolvedModel,
+                    generationConfig,
+                    request -> {
+                      GeminiResponse geminiResponse =
+                          geminiClient.generateContent(
+                              resolvedModel, getApiKeyOrThrow(), request);
+                      logUsageMetadata(geminiResponse);
+                      return extractResponseTextOrThrow(geminiResponse);
+                    }));
+    completionCache.put(key, response);
+    return response;
+  }
+
+  /**
+   * Non-blocking variant of {@link #getCompletion(String, String, String)}. The request and its
+   * retries run on the HTTP client's own threads, so no pooled thread waits for the response.
+   */
+  public CompletableFuture<String> getCompletionAsync(
+      String text, String model, String configIdentity) {
+    String resolvedModel;
+    String apiKey;
+    try {
+      resolvedModel = resolveModelOrThrow(model);
+      apiKey = getApiKeyOrThrow();
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    String key = ValidationResultCache.keyFor(text, resolvedModel, configIdentity);
+    String cached = completionCache.get(key);
+    if (cached != null) {
+      GherkinLintLogger.debugVerbose("Serving Gemini response from result cache.");
+      return CompletableFuture.completedFuture(cached);
+    }
+    GeminiRequest request = new GeminiRequest(List.of(new Content(List.of(new TextPart(text)))));
+    return inFlightCompletions.executeAsync(
+        flightKey(text, resolvedModel),
+        () ->
+            rateLimiter
+                .acquireAsync(resolvedModel, estimateTokens(request))
+                .thenCompose(
+                    ignored -> geminiClient.generateContentAsync(resolvedModel, apiKey, request))
+                .thenApply(
+                    response -> {
+                      logUsageMetadata(response);
+                      String responseText = extractResponseTextOrThrow(response);
+                      completionCache.put(key, responseText);
+                      return responseText;
+                    }));
+  }
+
+  /**
+   * Streams the completion for {@code text}, passing each text fragment to {@code onText} as it
+   * arrives, and returns the full text. A cached completion, or one that another caller is
+   * already fetching for the same model and prompt, is delivered as a single fragment.
+   */
+  public String streamCompletion(
+      String text, String model, String configIdentity, Consumer<String> onText) {
+    return streamCompletion("", text, model, configIdentity, onText);
+  }
+
+  /**
+   * Streaming variant of {@link #getCompletion(String, String, String, String)}; see {@link
+   * #streamCompletion(String, String, String, Consumer)}.
+   */
+  public String streamCompletion(
+      String cacheablePrefix,
+      String input,
+      String model,
+      String configIdentity,
+      Consumer<String> onText) {
+    return streamCompletion(cacheablePrefix, input, model, configIdentity, null, onText);
+  }
+
+  /**
+   * Like {@link #streamCompletion(String, String, String, String, Consumer)}, but sends {@code
+   * generationConfig} with the request when it is set.
+   */
+  public String streamCompletion(
+      String cacheablePrefix,
+      String input,
+      String model,
+      String configIdentity,
+      @Nullable GenerationConfig generationConfig,
+      Consumer<String> onText) {
+    String resolvedModel = resolveModelOrThrow(model);
+    String prompt = cacheablePrefix + input;
+    String key = ValidationResultCache.keyFor(prompt, resolvedModel, configIdentity);
+    String cached = completionCache.get(key);
+    if (cached != null) {
+      GherkinLintLogger.debugVerbose("Serving Gemini response from result cache.");
+      onText.accept(cached);
+      return cached;
+    }
+
+    AtomicBoolean streamed = new AtomicBoolean();
+    String response =
+        inFlightCompletions.execute(
+            flightKey(prompt, resolvedModel),
+            () -> {
+              streamed.set(true);
+              return sendWithContextCache(
+                  cacheablePrefix,
+                  input,
+                  resolvedModel,
+                  generationConfig,
+                  request -> streamUncached(request, resolvedModel, onText));
+            });
+    if (!streamed.get()) {
+      onText.accept(response);
+    }
+    completionCache.put(key, response);
+    return response;
+  }
+
+  private String streamUncached(
+      GeminiRequest request, String resolvedModel, Consumer<String> onText) {
+    StringBuilder fullText = new StringBuilder();
+    AtomicReference<GeminiResponse> lastChunk = new AtomicReference<>();
+    geminiClient.streamGenerateContent(
+        resolvedModel,
+        getApiKeyOrThrow(),
+        request,
+        chunk -> {
+          lastChunk.set(chunk);
+          String fragment = extractChunkText(chunk);
+          if (!fragment.isEmpty()) {
+            fullText.append(fragment);
+            onText.accept(fragment);
+          }
+        });
+    logUsageMetadata(lastChunk.get());
+    if (isBlank(fullText.toString())) {
+      throw new IllegalArgumentException("Gemini response candidate text is empty.");
+    }
+    return fullText.toString();
+  }
+
+  public void clearCompletionCache() {
+    completionCache.invalidateAll();
   }
 
   private String extractResponseTextOrThrow(GeminiResponse response) {
@@ -142,6 +376,90 @@ public class GeminiService {
     return textValue;
   }
 
+  /**
+   * Sends {@code cacheablePrefix + input} through {@code send}, referencing the prefix through a
+   * context cache when possible. If Gemini rejects the cache reference (for example because the
+   * cache expired early) the cache is dropped and the full prompt is sent instead.
+   *
+   * <p>The rate limiter is acquired once, for the full prompt, so the fallback does not count as a
+   * second request.
+   */
+  private <T> T sendWithContextCache(
+      String cacheablePrefix,
+      String input,
+      String resolvedModel,
+      @Nullable GenerationConfig generationConfig,
+      Function<GeminiRequest, T> send) {
+    GeminiRequest fullRequest =
+        new GeminiRequest(List.of(textContent(cacheablePrefix + input)), null, generationConfig);
+    Optional<String> cacheName =
+        cacheablePrefix.isEmpty()
+            ? Optional.empty()
+            : contextCache.resolve(resolvedModel, getApiKeyOrThrow(), cacheablePrefix);
+    rateLimiter.acquire(resolvedModel, estimateTokens(fullRequest));
+    if (cacheName.isPresent()) {
+      try {
+        return send.apply(
+            new GeminiRequest(List.of(textContent(input)), cacheName.get(), generationConfig));
+      } catch (GeminiApiException e) {
+        if (!isClientError(e)) {
+          throw e;
+        }
+        GherkinLintLogger.debug("Gemini rejected the context cache; sending the full prompt.");
+        contextCache.invalidate(resolvedModel, cacheablePrefix);
+      }
+    }
+    return send.apply(fullRequest);
+  }
+
+  private static Content textContent(String text) {
+    return new Content(List.of(new TextPart(text)));
+  }
+
+  private static boolean isClientError(GeminiApiException e) {
+    return e.getStatusCode() == 400 || e.getStatusCode() == 403 || e.getStatusCode() == 404;
+  }
+
+  /** Identical prompts to the same model produce the same request, whatever the config. */
+  private static String flightKey(String text, String resolvedModel) {
+    return ValidationResultCache.keyFor(text, resolvedModel, "");
+  }
+
+  private static int estimateTokens(GeminiRequest request) {
+    int tokens = 0;
+    if (request == null || request.contents() == null) {
+      return tokens;
+    }
+    for (Content content : request.contents()) {
+      if (content == null || content.parts() == null) {
+        continue;
+      }
+      for (GeminiRecords.Part part : content.parts()) {
+        if (part instanceof TextPart textPart) {
+          tokens += GeminiRateLimiter.estimateTokens(textPart.text());
+        }
+      }
+    }
+    return tokens;
+  }
+
+  private static String extractChunkText(GeminiResponse chunk) {
+    if (chunk == null || chunk.candidates() == null || chunk.candidates().isEmpty()) {
+      return "";
+    }
+    GeminiResponse.Candidate candidate = chunk.candidates().getFirst();
+    if (candidate == null || candidate.content() == null || candidate.content().parts() == null) {
+      return "";
+    }
+    StringBuilder text = new StringBuilder();
+    for (TextPart part : candidate.content().parts()) {
+      if (part != null && part.text() != null) {
+        text.append(part.text());
+      }
+    }
+    return text.toString();
+  }
+
   private static String normalizeModelName(String modelName) {
     if (modelName == null) {
       return "";
@@ -176,6 +494,11 @@ public class GeminiService {
             usage.promptTokenCount(), usage.candidatesTokenCount(), usage.totalTokenCount()));
   }
 
+  /** Returns {@code model}, or the first available model when it is blank. */
+  public String resolveModel(String model) {
+    return resolveModelOrThrow(model);
+  }
+
   private String resolveModelOrThrow(String model) {
     if (!isBlank(model)) {
       GherkinLintLogger.debugVerbose("Using Gemini model: " + model);
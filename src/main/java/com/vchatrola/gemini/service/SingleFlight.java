@@ -0,0 +1,111 @@
+package com.vchatrola.gemini.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with the same key into one execution.
+ *
+ * <p>The first caller for a key runs the call; callers that arrive while it is in flight share its
+ * result or failure instead of starting their own. The key is released as soon as the call
+ * completes, so later callers start a fresh call (results are cached elsewhere).
+ *
+ * <p>A caller that is interrupted while waiting for someone else's call stops waiting. A call
+ * whose own caller is interrupted is abandoned rather than failed, and the callers that were
+ * waiting for it start over instead of sharing the interruption.
+ */
+public class SingleFlight<V> {
+  private final ConcurrentMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  /** Runs {@code call} on the calling thread unless an identical call is already running. */
+  public V execute(String key, Supplier<V> call) {
+    while (true) {
+      CompletableFuture<V> flight = new CompletableFuture<>();
+      CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+      if (existing == null) {
+        return run(key, flight, call);
+      }
+      try {
+        return await(existing);
+      } catch (CancellationException e) {
+        // The caller running the call was interrupted; run or join a new one.
+      }
+    }
+  }
+
+  private V run(String key, CompletableFuture<V> flight, Supplier<V> call) {
+    V value;
+    try {
+      value = call.get();
+    } catch (RuntimeException | Error e) {
+      inFlight.remove(key, flight);
+      if (Thread.currentThread().isInterrupted()) {
+        flight.cancel(false);
+      } else {
+        flight.completeExceptionally(e);
+      }
+      throw e;
+    }
+    inFlight.remove(key, flight);
+    flight.complete(value);
+    return value;
+  }
+
+  /**
+   * Non-blocking variant. Every caller gets its own dependent future, so cancelling one of them
+   * does not cancel the shared call.
+   */
+  public CompletableFuture<V> executeAsync(String key, Supplier<CompletableFuture<V>> call) {
+    CompletableFuture<V> flight = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+    if (existing != null) {
+      return existing.copy();
+    }
+    CompletableFuture<V> started;
+    try {
+      started = call.get();
+    } catch (RuntimeException e) {
+      started = CompletableFuture.failedFuture(e);
+    }
+    started.whenComplete(
+        (value, error) -> {
+          inFlight.remove(key, flight);
+          if (error != null) {
+            flight.completeExceptionally(unwrap(error));
+          } else {
+            flight.complete(value);
+          }
+        });
+    return flight.copy();
+  }
+
+  /** Number of calls currently in flight. */
+  public int size() {
+    return inFlight.size();
+  }
+
+  private static <V> V await(CompletableFuture<V> flight) {
+    try {
+      return flight.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for an identical call.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new CompletionException(e.getCause());
+    }
+  }
+
+  private static Throwable unwrap(Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null
+        ? error.getCause()
+        : error;
+  }
+}
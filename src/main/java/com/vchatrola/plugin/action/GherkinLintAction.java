@@ -1,6 +1,5 @@
 package com.vchatrola.plugin.action;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.intellij.execution.ui.ConsoleView;
 import com.intellij.execution.ui.ConsoleViewContentType;
 import com.intellij.notification.NotificationGroupManager;
@@ -9,9 +8,10 @@ import com.intellij.openapi.actionSystem.ActionUpdateThread;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
-import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.editor.Caret;
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
@@ -19,30 +19,25 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.psi.PsiFile;
 import com.intellij.ui.content.Content;
-import com.vchatrola.config.ConfigurationManager;
 import com.vchatrola.gemini.api.GeminiApiException;
-import com.vchatrola.gemini.service.GeminiService;
-import com.vchatrola.plugin.service.GherkinLintServiceImpl;
-import com.vchatrola.plugin.setting.GherkinLintSettingsManager;
+import com.vchatrola.gherkin.GherkinLexer;
+import com.vchatrola.gherkin.GherkinLine;
+import com.vchatrola.plugin.service.ScenarioValidator;
 import com.vchatrola.plugin.util.PluginUtils;
-import com.vchatrola.prompt.PromptBuilder;
+import com.vchatrola.result.ValidationResult;
 import com.vchatrola.util.Constants;
 import com.vchatrola.util.GherkinLintLogger;
-import com.vchatrola.util.GherkinOutputParser;
 import javax.swing.SwingUtilities;
-import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class GherkinLintAction extends AnAction {
 
-  public static String fileType;
-  private static volatile long lastValidationAt = 0L;
-
   @Override
   public void actionPerformed(AnActionEvent event) {
     Editor editor = event.getRequiredData(CommonDataKeys.EDITOR);
     String selectedText = PluginUtils.getSelectedText(editor);
+    String fileType = fileTypeOf(event.getData(CommonDataKeys.PSI_FILE));
 
     ToolWindow toolWindow = PluginUtils.getToolWindow(event, Constants.TOOL_WINDOW_ID);
     if (toolWindow == null) {
@@ -60,11 +55,15 @@ public class GherkinLintAction extends AnAction {
     Content content =
         PluginUtils.createToolWindowContent(
             toolWindow, consoleView, Constants.CONTENT_DISPLAY_NAME);
-    validateGherkinText(selectedText, consoleView, event.getProject());
+    validateGherkinText(selectedText, fileType, consoleView, event.getProject());
     toolWindow.getContentManager().setSelectedContent(content);
     toolWindow.activate(null);
   }
 
+  /**
+   * Runs on every menu and toolbar refresh, so the check reads the selection directly from the
+   * document's text without copying it and looks at its first keyword only.
+   */
   @Override
   public void update(AnActionEvent event) {
     Editor editor = event.getRequiredData(CommonDataKeys.EDITOR);
@@ -72,7 +71,9 @@ public class GherkinLintAction extends AnAction {
     PsiFile psiFile = event.getData(CommonDataKeys.PSI_FILE);
 
     // Enable the action if the validation is applicable
-    event.getPresentation().setEnabledAndVisible(isValidationApplicable(caret, psiFile));
+    event
+        .getPresentation()
+        .setEnabledAndVisible(isValidationApplicable(editor.getDocument(), caret, psiFile));
   }
 
   @Override
@@ -80,43 +81,41 @@ public class GherkinLintAction extends AnAction {
     return ActionUpdateThread.BGT;
   }
 
-  private boolean isValidationApplicable(Caret caret, PsiFile psiFile) {
+  private static boolean isValidationApplicable(Document document, Caret caret, PsiFile psiFile) {
     if (psiFile == null || caret == null || !caret.hasSelection()) {
       return false;
     }
 
-    fileType = psiFile.getFileType().getDefaultExtension();
-    if (!Constants.SUPPORTED_EXTENSIONS.contains(fileType)) {
-      GherkinLintLogger.debug(
-          "Validation is not applicable: Unsupported file extension: " + fileType);
+    if (!Constants.SUPPORTED_EXTENSIONS.contains(fileTypeOf(psiFile))) {
+      GherkinLintLogger.debug("Validation is not applicable: Unsupported file extension.");
       return false;
     }
 
-    String selectedText = caret.getSelectedText();
-    String firstLine = selectedText.trim().split("\\R")[0].trim();
-    String firstWord = PluginUtils.getFirstKeywordToken(firstLine);
-
-    if (!Constants.GHERKIN_KEYWORDS.contains(firstWord)) {
+    if (!GherkinLexer.startsWithKeyword(
+        document.getImmutableCharSequence(), caret.getSelectionStart(), caret.getSelectionEnd())) {
       GherkinLintLogger.debug(
-          "Validation is not applicable: First word is not a Gherkin keyword: " + firstWord);
+          "Validation is not applicable: First line does not start with a Gherkin keyword.");
       return false;
     }
 
     return true;
   }
 
+  @Nullable
+  private static String fileTypeOf(@Nullable PsiFile psiFile) {
+    return psiFile != null ? psiFile.getFileType().getDefaultExtension() : null;
+  }
+
   private void validateGherkinText(
-      String selectedText, ConsoleView consoleView, @Nullable Project project) {
+      String selectedText,
+      @Nullable String fileType,
+      ConsoleView consoleView,
+      @Nullable Project project) {
     if (isEmptyOrInvalidText(selectedText, consoleView)
         || isTooShort(selectedText, consoleView)
         || startsWithNoContextKeyword(selectedText, consoleView)) {
       return;
     }
-    if (isThrottled()) {
-      showUserMessage(consoleView, Constants.VALIDATION_THROTTLED_ERROR);
-      notifyWarning(project, "Validation throttled", Constants.VALIDATION_THROTTLED_ERROR);
-      return;
-    }
 
     runValidationTask(project, consoleView, selectedText, fileType);
   }
@@ -128,45 +127,25 @@ public class GherkinLintAction extends AnAction {
       @Nullable String selectedFileType) {
     ProgressManager.getInstance()
         .run(
-            new Task.Backgroundable(project, "Validating gherkin text") {
+            new Task.Backgroundable(project, "Validating gherkin text", true) {
               @Override
               public void run(@NotNull ProgressIndicator indicator) {
-                String response;
                 try {
                   indicator.setText("Validating Gherkin...");
 
-                  GherkinLintSettingsManager settingsManager = new GherkinLintSettingsManager();
-                  ConfigurationManager configurationManager = new ConfigurationManager();
-                  JsonNode jsonNode = configurationManager.getFinalConfiguration();
-                  PromptBuilder promptBuilder = new PromptBuilder(jsonNode, selectedFileType);
-                  String prompt =
-                      promptBuilder.buildPrompt(
-                          selectedText, !settingsManager.isCustomLogicEnabled());
-                  String model = settingsManager.getGeminiModel();
-
-                  GeminiService service = getGeminiService();
-                  if (service == null) {
-                    showUserMessage(consoleView, Constants.GEMINI_SERVICE_ACCESS_ERROR);
-                    return;
-                  }
-
-                  response = service.getCompletion(prompt, model);
-                  if (response != null) {
-                    GherkinLintLogger.debugVerbose(
-                        "Received Gemini response (" + response.length() + " chars).");
-                  }
-                  if (StringUtils.isBlank(response)) {
-                    showUserMessage(consoleView, Constants.NO_GEMINI_SERVICE_RESPONSE_ERROR);
-                    return;
-                  }
-
-                  String finalResponse = GherkinOutputParser.parseOutput(response);
-                  if (StringUtils.isBlank(finalResponse)) {
-                    showUserMessage(consoleView, Constants.UNKNOWN_ERROR);
-                    return;
-                  }
-
-                  handleValidResponseAsync(indicator, finalResponse, consoleView);
+                  ScenarioValidator validator = ScenarioValidator.create();
+                  PluginUtils.computeCancellable(
+                      indicator,
+                      () ->
+                          validator.validateStreaming(
+                              selectedText,
+                              selectedFileType,
+                              result -> printResultAsync(result, consoleView)));
+                  indicator.setText("Validation complete");
+                  GherkinLintLogger.debug("Gherkin text validated.");
+                } catch (ProcessCanceledException ex) {
+                  showUserMessage(consoleView, Constants.VALIDATION_CANCELLED);
+                  throw ex;
                 } catch (Exception ex) {
                   handleException(consoleView, project, ex);
                 }
@@ -174,15 +153,12 @@ public class GherkinLintAction extends AnAction {
             });
   }
 
-  private void handleValidResponseAsync(
-      @NotNull ProgressIndicator indicator, String finalResponse, ConsoleView consoleView) {
+  /** Prints a result as soon as it arrives from the stream. */
+  private void printResultAsync(ValidationResult result, ConsoleView consoleView) {
     SwingUtilities.invokeLater(
         () -> {
-          GherkinLintLogger.debug("Attempting to print final response to console view.");
           try {
-            printStyledOutput(finalResponse, consoleView);
-            indicator.setText("Validation complete");
-            GherkinLintLogger.debug("Gherkin text validated and ToolWindow content activated.");
+            PluginUtils.printValidationResult(result, consoleView);
           } catch (Exception ex) {
             reportError(
                 consoleView,
@@ -192,41 +168,6 @@ public class GherkinLintAction extends AnAction {
         });
   }
 
-  private static void printStyledOutput(String output, ConsoleView consoleView) {
-    String[] lines = output.split("\\n");
-    int minPadding = Constants.PROPERTY_SUGGESTION.length();
-
-    for (String line : lines) {
-      String[] parts = line.split("\\|", 2);
-      String property = parts[0];
-      String value = (parts.length > 1) ? parts[1] : "";
-
-      switch (property) {
-        case Constants.PROPERTY_TITLE:
-          consoleView.print(value + "\n", ConsoleViewContentType.LOG_VERBOSE_OUTPUT);
-          break;
-        case Constants.PROPERTY_STATUS:
-        case Constants.PROPERTY_REASON:
-        case Constants.PROPERTY_SUGGESTION:
-          consoleView.print(
-              String.format("- %-" + minPadding + "s: ", property),
-              ConsoleViewContentType.LOG_DEBUG_OUTPUT);
-          ConsoleViewContentType contentType =
-              (Constants.STATUS_VALID).equals(value)
-                  ? ConsoleViewContentType.USER_INPUT
-                  : (Constants.STATUS_INVALID).equals(value)
-                      ? ConsoleViewContentType.ERROR_OUTPUT
-                      : ConsoleViewContentType.NORMAL_OUTPUT;
-          consoleView.print(value + "\n", contentType);
-          break;
-        default:
-          int size = line.length() + (Constants.PROPERTY_SUGGESTION.length() + 4);
-          consoleView.print(
-              StringUtils.leftPad(line, size) + "\n", ConsoleViewContentType.NORMAL_OUTPUT);
-      }
-    }
-  }
-
   private void reportError(
       ConsoleView consoleView, String errorMessage, @Nullable String additionalInfo) {
     GherkinLintLogger.error(errorMessage);
@@ -288,17 +229,17 @@ public class GherkinLintAction extends AnAction {
   }
 
   private boolean startsWithNoContextKeyword(String text, ConsoleView consoleView) {
-    if (StringUtils.equalsAnyIgnoreCase(
-            Constants.AND_KEYWORD, PluginUtils.getFirstKeywordToken(text))
-        || StringUtils.equalsAnyIgnoreCase(
-            Constants.BUT_KEYWORD, PluginUtils.getFirstKeywordToken(text))
-        || StringUtils.startsWith(text, Constants.ASTERISK_KEYWORD)) {
+    if (startsWithContinuationStep(GherkinLexer.firstLine(text))) {
       showUserMessage(consoleView, Constants.GHERKIN_NO_CONTEXT_ERROR);
       return true;
     }
     return false;
   }
 
+  private static boolean startsWithContinuationStep(@Nullable GherkinLine firstLine) {
+    return firstLine != null && firstLine.isStep() && firstLine.keyword().isContinuation();
+  }
+
   private void handleException(ConsoleView consoleView, @Nullable Project project, Exception ex) {
     String message = ex.getMessage();
     if (ex instanceof GeminiApiException apiException) {
@@ -387,19 +328,4 @@ public class GherkinLintAction extends AnAction {
             || combined.contains("invalid_argument")
             || combined.contains("invalid api key"));
   }
-
-  private GeminiService getGeminiService() {
-    GherkinLintServiceImpl gherkinLintServiceImpl =
-        ApplicationManager.getApplication().getService(GherkinLintServiceImpl.class);
-    return gherkinLintServiceImpl.getGeminiService();
-  }
-
-  private static boolean isThrottled() {
-    long now = System.currentTimeMillis();
-    if (now - lastValidationAt < Constants.VALIDATION_THROTTLE_MS) {
-      return true;
-    }
-    lastValidationAt = now;
-    return false;
-  }
 }
@@ -0,0 +1,201 @@
+package com.vchatrola.plugin.action;
+
+import com.intellij.execution.ui.ConsoleView;
+import com.intellij.execution.ui.ConsoleViewContentType;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectUtil;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.ui.content.Content;
+import com.vchatrola.gherkin.ScenarioSplitter;
+import com.vchatrola.plugin.batch.BatchValidationRunner;
+import com.vchatrola.plugin.batch.BatchValidationRunner.BatchFile;
+import com.vchatrola.plugin.batch.BatchValidationRunner.FileReport;
+import com.vchatrola.plugin.batch.BatchValidationRunner.ScenarioReport;
+import com.vchatrola.plugin.service.ScenarioValidator;
+import com.vchatrola.plugin.setting.GherkinLintSettingsManager;
+import com.vchatrola.plugin.util.PluginUtils;
+import com.vchatrola.util.Constants;
+import com.vchatrola.util.GherkinLintLogger;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import org.jetbrains.annotations.NotNull;
+
+/** Validates every Gherkin scenario in the selected files or directories (or the whole project). */
+public class GherkinLintBatchAction extends AnAction {
+
+  @Override
+  public void actionPerformed(@NotNull AnActionEvent event) {
+    Project project = event.getProject();
+    if (project == null) {
+      return;
+    }
+    VirtualFile[] roots = resolveRoots(event, project);
+    if (roots.length == 0) {
+      GherkinLintLogger.warn("No files or directories selected for batch validation.");
+      return;
+    }
+
+    ToolWindow toolWindow = PluginUtils.getToolWindow(event, Constants.TOOL_WINDOW_ID);
+    if (toolWindow == null) {
+      GherkinLintLogger.warn("ToolWindow not found for GherkinLint batch action.");
+      return;
+    }
+    toolWindow.setAutoHide(false);
+
+    ConsoleView consoleView = PluginUtils.createConsoleView(event);
+    if (consoleView == null) {
+      GherkinLintLogger.warn("Failed to create ConsoleView.");
+      return;
+    }
+
+    Content content =
+        PluginUtils.createToolWindowContent(
+            toolWindow, consoleView, Constants.BATCH_CONTENT_DISPLAY_NAME);
+    runBatchTask(project, consoleView, roots);
+    toolWindow.getContentManager().setSelectedContent(content);
+    toolWindow.activate(null);
+  }
+
+  @Override
+  public void update(@NotNull AnActionEvent event) {
+    event.getPresentation().setEnabledAndVisible(event.getProject() != null);
+  }
+
+  @Override
+  public @NotNull ActionUpdateThread getActionUpdateThread() {
+    return ActionUpdateThread.BGT;
+  }
+
+  private void runBatchTask(Project project, ConsoleView consoleView, VirtualFile[] roots) {
+    GherkinLintSettingsManager settingsManager = new GherkinLintSettingsManager();
+    int concurrency = settingsManager.getBatchConcurrency();
+    boolean packing = settingsManager.isPackedBatchValidationEnabled();
+    boolean virtualThreads = settingsManager.isVirtualThreadBatchValidationEnabled();
+    ProgressManager.getInstance()
+        .run(
+            new Task.Backgroundable(project, "Validating Gherkin files", true) {
+              @Override
+              public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(false);
+                indicator.setText("Collecting Gherkin files...");
+                List<BatchFile> files =
+                    ReadAction.compute(() -> collectBatchFiles(project, roots));
+                int scenarioCount = files.stream().mapToInt(file -> file.scenarios().size()).sum();
+                if (scenarioCount == 0) {
+                  print(consoleView, Constants.NO_GHERKIN_FILES_FOUND, true);
+                  return;
+                }
+                print(
+                    consoleView,
+                    String.format(
+                        "Validating %d scenario(s) in %d file(s)...%n%n",
+                        scenarioCount, files.size()),
+                    false);
+                try {
+                  ScenarioValidator validator = ScenarioValidator.create();
+                  new BatchValidationRunner(
+                          validator, concurrency, packing, virtualThreads, indicator)
+                      .run(files, report -> printFileReport(consoleView, report));
+                  boolean cancelled = indicator.isCanceled();
+                  print(
+                      consoleView,
+                      cancelled ? "Batch validation cancelled.\n" : "Batch validation complete.\n",
+                      cancelled);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  print(consoleView, "Batch validation interrupted.\n", true);
+                } catch (IOException | RuntimeException e) {
+                  GherkinLintLogger.warn("Batch validation failed.", e);
+                  print(consoleView, Constants.UNKNOWN_ERROR, true);
+                }
+              }
+            });
+  }
+
+  private static VirtualFile[] resolveRoots(AnActionEvent event, Project project) {
+    VirtualFile[] selected = event.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+    if (selected != null && selected.length > 0) {
+      return selected;
+    }
+    VirtualFile projectDir = ProjectUtil.guessProjectDir(project);
+    return projectDir != null ? new VirtualFile[] {projectDir} : VirtualFile.EMPTY_ARRAY;
+  }
+
+  private static List<BatchFile> collectBatchFiles(Project project, VirtualFile[] roots) {
+    ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+    FileDocumentManager documentManager = FileDocumentManager.getInstance();
+    List<BatchFile> files = new ArrayList<>();
+    for (VirtualFile root : roots) {
+      VfsUtilCore.iterateChildrenRecursively(
+          root,
+          file -> !file.isDirectory() || !fileIndex.isExcluded(file),
+          file -> {
+            if (!file.isDirectory()
+                && Constants.GHERKIN_FILE_EXTENSIONS.contains(file.getExtension())) {
+              BatchFile batchFile = toBatchFile(file, documentManager);
+              if (batchFile != null) {
+                files.add(batchFile);
+              }
+            }
+            return true;
+          });
+    }
+    return files;
+  }
+
+  private static BatchFile toBatchFile(VirtualFile file, FileDocumentManager documentManager) {
+    try {
+      Document document = documentManager.getCachedDocument(file);
+      String text =
+          document != null ? document.getText() : VfsUtilCore.loadText(file).toString();
+      List<ScenarioSplitter.Scenario> scenarios = ScenarioSplitter.split(text);
+      if (scenarios.isEmpty()) {
+        return null;
+      }
+      return new BatchFile(file.getPresentableUrl(), file.getExtension(), scenarios);
+    } catch (IOException e) {
+      GherkinLintLogger.debug("Failed to read " + file.getName() + " for batch validation.", e);
+      return null;
+    }
+  }
+
+  private static void printFileReport(ConsoleView consoleView, FileReport report) {
+    SwingUtilities.invokeLater(
+        () -> {
+          consoleView.print(
+              "== " + report.file().path() + " ==\n", ConsoleViewContentType.SYSTEM_OUTPUT);
+          for (ScenarioReport scenarioReport : report.reports()) {
+            if (scenarioReport.error() != null) {
+              consoleView.print(
+                  String.format(
+                      "Line %d: %s%n%n",
+                      scenarioReport.scenario().startLine() + 1, scenarioReport.error()),
+                  ConsoleViewContentType.ERROR_OUTPUT);
+            } else {
+              PluginUtils.printValidationOutput(scenarioReport.results(), consoleView);
+            }
+          }
+        });
+  }
+
+  private static void print(ConsoleView consoleView, String message, boolean error) {
+    ConsoleViewContentType contentType =
+        error ? ConsoleViewContentType.ERROR_OUTPUT : ConsoleViewContentType.NORMAL_OUTPUT;
+    SwingUtilities.invokeLater(() -> consoleView.print(message, contentType));
+  }
+}
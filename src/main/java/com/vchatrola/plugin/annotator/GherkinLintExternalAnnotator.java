@@ -0,0 +1,191 @@
+package com.vchatrola.plugin.annotator;
+
+import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
+import com.intellij.lang.annotation.AnnotationHolder;
+import com.intellij.lang.annotation.ExternalAnnotator;
+import com.intellij.lang.annotation.HighlightSeverity;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.vchatrola.config.ConfigurationManager;
+import com.vchatrola.gherkin.GherkinPreLinter;
+import com.vchatrola.gherkin.ScenarioSplitter;
+import com.vchatrola.live.LiveValidationScheduler;
+import com.vchatrola.plugin.service.GherkinLintServiceImpl;
+import com.vchatrola.plugin.service.ScenarioValidator;
+import com.vchatrola.plugin.setting.GherkinLintSettingsManager;
+import com.vchatrola.result.ValidationResult;
+import com.vchatrola.util.Constants;
+import com.vchatrola.util.GherkinLintLogger;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Validates {@code .feature} and {@code .story} files while they are edited, when live validation
+ * is enabled in the settings.
+ *
+ * <p>The local pre-lint checks run on every pass of the daemon, also when Gemini cannot be used
+ * (for example without an API key), and are shown until Gemini's results arrive. Scenarios are
+ * checked by Gemini through the {@link LiveValidationScheduler}: only scenarios whose text hash
+ * has no results yet are scheduled, after a debounce delay, and a finished check restarts the
+ * daemon so that its results (merged with the pre-lint findings) are picked up from the
+ * scheduler's cache by the next pass.
+ */
+public class GherkinLintExternalAnnotator
+    extends ExternalAnnotator<GherkinLintExternalAnnotator.Input, List<ValidationResult>> {
+
+  @Override
+  public @Nullable Input collectInformation(
+      @NotNull PsiFile file, @NotNull Editor editor, boolean hasErrors) {
+    VirtualFile virtualFile = file.getVirtualFile();
+    if (virtualFile == null
+        || !Constants.GHERKIN_FILE_EXTENSIONS.contains(virtualFile.getExtension())
+        || !new GherkinLintSettingsManager().isLiveValidationEnabled()) {
+      return null;
+    }
+    return new Input(
+        file,
+        virtualFile.getUrl(),
+        virtualFile.getExtension(),
+        editor.getDocument().getImmutableCharSequence().toString());
+  }
+
+  @Override
+  public @Nullable List<ValidationResult> doAnnotate(Input input) {
+    GherkinPreLinter preLinter;
+    try {
+      preLinter = GherkinPreLinter.forRules(new ConfigurationManager().getRuleSet());
+    } catch (IOException | RuntimeException e) {
+      GherkinLintLogger.debug("Live validation is unavailable.", e);
+      return List.of();
+    }
+    ScenarioValidator validator = createValidator();
+    List<ValidationResult> annotations = new ArrayList<>();
+    Map<String, Callable<List<ValidationResult>>> checks = new LinkedHashMap<>();
+    for (ScenarioSplitter.Scenario scenario : ScenarioSplitter.split(input.text())) {
+      ProgressManager.checkCanceled();
+      String text = scenario.text();
+      if (validator == null) {
+        annotations.addAll(scenario.toFileLines(preLinter.lint(text)));
+        continue;
+      }
+      String key = validator.scenarioKey(text, input.fileType());
+      List<ValidationResult> results = scheduler().results(key);
+      if (results == null) {
+        results = validator.cachedResults(text, input.fileType());
+        if (results != null) {
+          scheduler().complete(key, results);
+        }
+      }
+      if (results == null) {
+        // Show the local findings until Gemini's results, which include them, arrive.
+        checks.put(key, () -> validator.validate(text, input.fileType()));
+        results = preLinter.lint(text);
+      }
+      annotations.addAll(scenario.toFileLines(results));
+    }
+    if (validator != null) {
+      scheduler().schedule(input.owner(), checks, () -> restartDaemon(input.file()));
+    }
+    return annotations;
+  }
+
+  @Override
+  public void apply(
+      @NotNull PsiFile file, List<ValidationResult> results, @NotNull AnnotationHolder holder) {
+    Document document = PsiDocumentManager.getInstance(file.getProject()).getDocument(file);
+    if (document == null) {
+      return;
+    }
+    for (ValidationResult result : results) {
+      if (result.status() != ValidationResult.Status.INVALID
+          || result.line() >= document.getLineCount()) {
+        continue;
+      }
+      TextRange range = lineRange(document, result.line());
+      if (range.isEmpty()) {
+        continue;
+      }
+      holder
+          .newAnnotation(HighlightSeverity.WARNING, "GherkinLint: " + result.reason())
+          .range(range)
+          .tooltip(tooltip(result))
+          .create();
+    }
+  }
+
+  /** The line without its leading and trailing blanks. */
+  private static TextRange lineRange(Document document, int line) {
+    CharSequence text = document.getImmutableCharSequence();
+    int start = document.getLineStartOffset(line);
+    int end = document.getLineEndOffset(line);
+    while (start < end && Character.isWhitespace(text.charAt(start))) {
+      start++;
+    }
+    while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+      end--;
+    }
+    return new TextRange(start, end);
+  }
+
+  private static String tooltip(ValidationResult result) {
+    StringBuilder tooltip =
+        new StringBuilder("<html><b>GherkinLint</b><br>")
+            .append(StringUtil.escapeXmlEntities(result.reason()));
+    if (result.suggestion() != null && !result.suggestion().isBlank()) {
+      tooltip
+          .append("<br>")
+          .append(Constants.PROPERTY_SUGGESTION)
+          .append(": ")
+          .append(StringUtil.escapeXmlEntities(result.suggestion()).replace("\n", "<br>"));
+    }
+    return tooltip.append("</html>").toString();
+  }
+
+  /**
+   * The validator for the Gemini checks, or {@code null} when they are unavailable (no API key, or
+   * no model could be resolved); the local checks run either way.
+   */
+  private static @Nullable ScenarioValidator createValidator() {
+    try {
+      return ScenarioValidator.create();
+    } catch (IOException | RuntimeException e) {
+      GherkinLintLogger.debug("Gemini checks are unavailable; showing local checks only.", e);
+      return null;
+    }
+  }
+
+  private static LiveValidationScheduler scheduler() {
+    return ApplicationManager.getApplication()
+        .getService(GherkinLintServiceImpl.class)
+        .getLiveValidationScheduler();
+  }
+
+  private static void restartDaemon(PsiFile file) {
+    ApplicationManager.getApplication()
+        .invokeLater(
+            () -> {
+              if (file.isValid() && !file.getProject().isDisposed()) {
+                DaemonCodeAnalyzer.getInstance(file.getProject()).restart(file);
+              }
+            });
+  }
+
+  /**
+   * The text of a file to validate. {@code owner} identifies the file to the scheduler, so edits
+   * replace the checks scheduled for earlier versions of it.
+   */
+  public record Input(PsiFile file, String owner, String fileType, String text) {}
+}
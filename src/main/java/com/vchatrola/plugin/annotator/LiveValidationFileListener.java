@@ -0,0 +1,29 @@
+package com.vchatrola.plugin.annotator;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.vchatrola.plugin.service.GherkinLintServiceImpl;
+import com.vchatrola.plugin.setting.GherkinLintSettingsManager;
+import com.vchatrola.util.Constants;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Cancels the live validation checks of a file when it is closed, so they stop using the request
+ * budget for a file nobody is looking at.
+ */
+public class LiveValidationFileListener implements FileEditorManagerListener {
+
+  @Override
+  public void fileClosed(@NotNull FileEditorManager source, @NotNull VirtualFile file) {
+    if (!Constants.GHERKIN_FILE_EXTENSIONS.contains(file.getExtension())
+        || !new GherkinLintSettingsManager().isLiveValidationEnabled()) {
+      return;
+    }
+    ApplicationManager.getApplication()
+        .getService(GherkinLintServiceImpl.class)
+        .getLiveValidationScheduler()
+        .cancel(file.getUrl());
+  }
+}
@@ -0,0 +1,104 @@
+package com.vchatrola.plugin.batch;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.vchatrola.plugin.batch.BatchValidationRunner.BatchFile;
+import com.vchatrola.plugin.batch.BatchValidationRunner.FileReport;
+import com.vchatrola.plugin.batch.BatchValidationRunner.ScenarioReport;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the completed scenarios of a batch run and reports each file once all of its scenarios
+ * are done.
+ *
+ * <p>Every scenario is completed at most once: a report for a scenario that already has one is
+ * ignored, so a request that finishes after the run was cancelled cannot report a file twice.
+ * {@link #cancel} completes the files that were partly validated, since otherwise a file is only
+ * reported once all of its scenarios are done.
+ */
+final class BatchProgress {
+  private final List<BatchFile> files;
+  private final ProgressIndicator indicator;
+  private final int totalFiles;
+  private final int totalScenarios;
+  private final Consumer<FileReport> onFileDone;
+  private final Map<BatchFile, AtomicReferenceArray<ScenarioReport>> reports =
+      new IdentityHashMap<>();
+  private final Map<BatchFile, AtomicInteger> remaining = new IdentityHashMap<>();
+  private final AtomicInteger completedScenarios = new AtomicInteger();
+  private final AtomicInteger completedFiles = new AtomicInteger();
+  private volatile String cancelMessage;
+
+  BatchProgress(
+      List<BatchFile> files, ProgressIndicator indicator, Consumer<FileReport> onFileDone) {
+    this.files = files;
+    this.indicator = indicator;
+    this.totalFiles = (int) files.stream().filter(file -> !file.scenarios().isEmpty()).count();
+    this.totalScenarios = files.stream().mapToInt(file -> file.scenarios().size()).sum();
+    this.onFileDone = onFileDone;
+    for (BatchFile file : files) {
+      reports.put(file, new AtomicReferenceArray<>(file.scenarios().size()));
+      remaining.put(file, new AtomicInteger(file.scenarios().size()));
+    }
+  }
+
+  /** Records the report of scenario {@code index} of {@code file}, unless it already has one. */
+  void complete(BatchFile file, int index, ScenarioReport report) {
+    if (!record(file, index, report)) {
+      return;
+    }
+    String message = cancelMessage;
+    if (message != null) {
+      completeRest(file, message);
+    }
+  }
+
+  /**
+   * Marks the run as cancelled. Files that already have at least one report get {@code message}
+   * for their other scenarios and are reported right away, so that results computed before the
+   * cancellation are not lost; the same happens to a file whose first report arrives later. Files
+   * none of whose scenarios finished are left out.
+   */
+  void cancel(String message) {
+    cancelMessage = message;
+    for (BatchFile file : files) {
+      int unfinished = remaining.get(file).get();
+      if (unfinished > 0 && unfinished < file.scenarios().size()) {
+        completeRest(file, message);
+      }
+    }
+  }
+
+  private void completeRest(BatchFile file, String message) {
+    AtomicReferenceArray<ScenarioReport> fileReports = reports.get(file);
+    for (int i = 0; i < fileReports.length(); i++) {
+      if (fileReports.get(i) == null) {
+        record(file, i, new ScenarioReport(file.scenarios().get(i), null, message));
+      }
+    }
+  }
+
+  private boolean record(BatchFile file, int index, ScenarioReport report) {
+    AtomicReferenceArray<ScenarioReport> fileReports = reports.get(file);
+    if (!fileReports.compareAndSet(index, null, report)) {
+      return false;
+    }
+    indicator.setFraction((double) completedScenarios.incrementAndGet() / totalScenarios);
+    if (remaining.get(file).decrementAndGet() == 0) {
+      indicator.setText(
+          String.format("Validated %d of %d files", completedFiles.incrementAndGet(), totalFiles));
+      indicator.setText2(file.path());
+      List<ScenarioReport> fileReportList = new ArrayList<>(fileReports.length());
+      for (int i = 0; i < fileReports.length(); i++) {
+        fileReportList.add(fileReports.get(i));
+      }
+      onFileDone.accept(new FileReport(file, fileReportList));
+    }
+    return true;
+  }
+}
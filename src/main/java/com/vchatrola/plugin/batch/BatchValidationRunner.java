@@ -0,0 +1,218 @@
+package com.vchatrola.plugin.batch;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.vchatrola.gherkin.ScenarioSplitter;
+import com.vchatrola.plugin.service.ScenarioValidator;
+import com.vchatrola.result.ValidationResult;
+import com.vchatrola.util.Constants;
+import com.vchatrola.util.GherkinLintLogger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Validates the scenarios of many files through a bounded parallel pipeline. At most {@code
+ * concurrency} requests are in flight at once; each file is reported as soon as all of its
+ * scenarios are done.
+ *
+ * <p>In virtual-thread mode every request runs on its own virtual thread and a semaphore bounds
+ * the number of requests in flight; otherwise a bounded application pool is used. Cancelling the
+ * progress indicator interrupts the running requests, which aborts their HTTP exchanges and
+ * releases their permits, and drops the packs that have not started. Files that were partly
+ * validated are still reported, with the unfinished scenarios marked as cancelled.
+ *
+ * <p>With packing enabled, scenarios of the same file type that are not already cached are grouped
+ * into packs (see {@link ScenarioValidator#pack}) so that the shared instructions are sent once per
+ * request rather than once per scenario.
+ */
+public class BatchValidationRunner {
+  private static final String CANCELLED = "Cancelled.";
+
+  private final ScenarioValidator validator;
+  private final int concurrency;
+  private final boolean packing;
+  private final boolean virtualThreads;
+  private final Semaphore permits;
+  private final ProgressIndicator indicator;
+
+  public BatchValidationRunner(
+      ScenarioValidator validator,
+      int concurrency,
+      boolean packing,
+      boolean virtualThreads,
+      ProgressIndicator indicator) {
+    this.validator = validator;
+    this.concurrency = Math.max(1, concurrency);
+    this.packing = packing;
+    this.virtualThreads = virtualThreads;
+    this.permits = new Semaphore(this.concurrency);
+    this.indicator = indicator;
+  }
+
+  public void run(List<BatchFile> files, Consumer<FileReport> onFileDone)
+      throws InterruptedException {
+    int totalScenarios = files.stream().mapToInt(file -> file.scenarios().size()).sum();
+    if (totalScenarios == 0) {
+      return;
+    }
+    BatchProgress progress = new BatchProgress(files, indicator, onFileDone);
+    Map<String, List<ScenarioRef>> pendingByFileType = new LinkedHashMap<>();
+    for (BatchFile file : files) {
+      for (int i = 0; i < file.scenarios().size(); i++) {
+        ScenarioRef ref = new ScenarioRef(file, i);
+        List<ValidationResult> cached = validator.cachedResults(ref.text(), file.fileType());
+        if (cached != null) {
+          ref.complete(progress, ref.validated(cached));
+        } else {
+          pendingByFileType
+              .computeIfAbsent(Objects.toString(file.fileType(), ""), key -> new ArrayList<>())
+              .add(ref);
+        }
+      }
+    }
+
+    ExecutorService executor = createExecutor();
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (List<ScenarioRef> refs : pendingByFileType.values()) {
+        for (List<ScenarioRef> pack : pack(refs)) {
+          futures.add(executor.submit(() -> validatePack(pack, progress)));
+        }
+      }
+      for (Future<?> future : futures) {
+        if (!awaitUnlessCanceled(future)) {
+          futures.forEach(pending -> pending.cancel(true));
+          progress.cancel(CANCELLED);
+          break;
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Waits for {@code future}; returns {@code false} if the indicator is cancelled first. */
+  private boolean awaitUnlessCanceled(Future<?> future) throws InterruptedException {
+    while (!indicator.isCanceled()) {
+      try {
+        future.get(Constants.CANCELLATION_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        return true;
+      } catch (TimeoutException ignored) {
+        // Still running; check the indicator again.
+      } catch (ExecutionException e) {
+        GherkinLintLogger.warn("Batch validation task failed.", e.getCause());
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private ExecutorService createExecutor() {
+    if (virtualThreads) {
+      return Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name("GherkinLint Batch Validation-", 0).factory());
+    }
+    return AppExecutorUtil.createBoundedApplicationPoolExecutor(
+        "GherkinLint Batch Validation", concurrency);
+  }
+
+  private List<List<ScenarioRef>> pack(List<ScenarioRef> refs) {
+    List<List<ScenarioRef>> packs = new ArrayList<>();
+    if (!packing) {
+      refs.forEach(ref -> packs.add(List.of(ref)));
+      return packs;
+    }
+    List<String> texts = refs.stream().map(ScenarioRef::text).toList();
+    for (List<Integer> indices : validator.pack(texts, refs.getFirst().file().fileType())) {
+      packs.add(indices.stream().map(refs::get).toList());
+    }
+    return packs;
+  }
+
+  private void validatePack(List<ScenarioRef> pack, BatchProgress progress) {
+    if (indicator.isCanceled()) {
+      pack.forEach(ref -> ref.complete(progress, failed(ref, CANCELLED)));
+      return;
+    }
+    BatchFile file = pack.getFirst().file();
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      pack.forEach(ref -> ref.complete(progress, failed(ref, CANCELLED)));
+      return;
+    }
+    try {
+      if (indicator.isCanceled()) {
+        pack.forEach(ref -> ref.complete(progress, failed(ref, CANCELLED)));
+        return;
+      }
+      List<List<ValidationResult>> results =
+          validator.validatePack(pack.stream().map(ScenarioRef::text).toList(), file.fileType());
+      for (int i = 0; i < pack.size(); i++) {
+        ScenarioRef ref = pack.get(i);
+        ref.complete(progress, ref.validated(results.get(i)));
+      }
+    } catch (Exception e) {
+      String message = failureMessage(e);
+      GherkinLintLogger.debug("Batch validation failed for a pack of " + pack.size(), e);
+      pack.forEach(ref -> ref.complete(progress, failed(ref, message)));
+    } finally {
+      permits.release();
+    }
+  }
+
+  private String failureMessage(Exception e) {
+    if (indicator.isCanceled()) {
+      return CANCELLED;
+    }
+    return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+  }
+
+  private static ScenarioReport failed(ScenarioRef ref, String message) {
+    return new ScenarioReport(ref.scenario(), null, message);
+  }
+
+  private record ScenarioRef(BatchFile file, int index) {
+    ScenarioSplitter.Scenario scenario() {
+      return file.scenarios().get(index);
+    }
+
+    String text() {
+      return scenario().text();
+    }
+
+    void complete(BatchProgress progress, ScenarioReport report) {
+      progress.complete(file, index, report);
+    }
+
+    ScenarioReport validated(List<ValidationResult> results) {
+      return new ScenarioReport(scenario(), scenario().toFileLines(results), null);
+    }
+  }
+
+  /** A file to validate, already split into scenarios. */
+  public record BatchFile(
+      String path, String fileType, List<ScenarioSplitter.Scenario> scenarios) {}
+
+  /**
+   * The results for one scenario, on lines of the file, or the error that prevented validating
+   * it.
+   */
+  public record ScenarioReport(
+      ScenarioSplitter.Scenario scenario, List<ValidationResult> results, String error) {}
+
+  /** All scenario reports of one file, in file order. */
+  public record FileReport(BatchFile file, List<ScenarioReport> reports) {}
+}
@@ -1,7 +1,16 @@
 package com.vchatrola.plugin.service;
 
+import com.vchatrola.cache.LineResultStore;
+import com.vchatrola.cache.PersistentResultStore;
 import com.vchatrola.gemini.service.GeminiService;
+import com.vchatrola.live.LiveValidationScheduler;
 
 public interface GherkinLintService {
   GeminiService getGeminiService();
+
+  PersistentResultStore getResultStore();
+
+  LineResultStore getLineResultStore();
+
+  LiveValidationScheduler getLiveValidationScheduler();
 }
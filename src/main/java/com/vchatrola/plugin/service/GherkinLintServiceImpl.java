@@ -1,13 +1,25 @@
 package com.vchatrola.plugin.service;
 
 import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.components.Service;
+import com.vchatrola.cache.LineResultStore;
+import com.vchatrola.cache.PersistentResultStore;
 import com.vchatrola.gemini.service.GeminiService;
+import com.vchatrola.live.LiveValidationScheduler;
+import com.vchatrola.plugin.setting.GherkinLintSettingsManager;
+import com.vchatrola.util.Constants;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
 
 @Service
 public final class GherkinLintServiceImpl implements GherkinLintService, Disposable {
 
   private final GeminiService geminiService;
+  private final LineResultStore lineResultStore =
+      new LineResultStore(Constants.LINE_CACHE_MAX_ENTRIES, Constants.RESULT_CACHE_TTL_MS);
+  private volatile LiveValidationScheduler liveValidationScheduler;
+  private volatile PersistentResultStore resultStore;
 
   public GherkinLintServiceImpl() {
     this.geminiService = new GeminiService();
@@ -19,5 +31,65 @@ public final class GherkinLintServiceImpl implements GherkinLintService, Disposa
   }
 
   @Override
-  public void dispose() {}
+  public PersistentResultStore getResultStore() {
+    PersistentResultStore store = resultStore;
+    if (store != null) {
+      return store;
+    }
+    synchronized (this) {
+      if (resultStore == null) {
+        Path file =
+            Path.of(
+                PathManager.getSystemPath(),
+                Constants.PERSISTENT_CACHE_DIR,
+                Constants.PERSISTENT_CACHE_FILE);
+        resultStore = PersistentResultStore.open(file, Constants.PERSISTENT_CACHE_MAX_ENTRIES);
+      }
+      return resultStore;
+    }
+  }
+
+  @Override
+  public LineResultStore getLineResultStore() {
+    return lineResultStore;
+  }
+
+  @Override
+  public LiveValidationScheduler getLiveValidationScheduler() {
+    LiveValidationScheduler scheduler = liveValidationScheduler;
+    if (scheduler != null) {
+      return scheduler;
+    }
+    synchronized (this) {
+      if (liveValidationScheduler == null) {
+        liveValidationScheduler =
+            new LiveValidationScheduler(
+                Constants.LIVE_VALIDATION_DEBOUNCE_MS,
+                new GherkinLintSettingsManager().getBatchConcurrency(),
+                Constants.LIVE_VALIDATION_RETRY_DELAY_MS,
+                Constants.LIVE_VALIDATION_CACHE_MAX_ENTRIES,
+                Constants.RESULT_CACHE_TTL_MS,
+                Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform()
+                        .daemon()
+                        .name("GherkinLint Live Validation Timer")
+                        .factory()),
+                Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("GherkinLint Live Validation-", 0).factory()));
+      }
+      return liveValidationScheduler;
+    }
+  }
+
+  @Override
+  public void dispose() {
+    LiveValidationScheduler scheduler = liveValidationScheduler;
+    if (scheduler != null) {
+      scheduler.close();
+    }
+    PersistentResultStore store = resultStore;
+    if (store != null) {
+      store.close();
+    }
+  }
 }
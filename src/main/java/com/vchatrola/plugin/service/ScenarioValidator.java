@@ -0,0 +1,385 @@
+package com.vchatrola.plugin.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.intellij.openapi.application.ApplicationManager;
+import com.vchatrola.cache.LineResultStore;
+import com.vchatrola.cache.PersistentResultStore;
+import com.vchatrola.cache.ValidationResultCache;
+import com.vchatrola.config.ConfigurationManager;
+import com.vchatrola.config.RuleSet;
+import com.vchatrola.gemini.dto.GeminiRecords;
+import com.vchatrola.gemini.service.GeminiService;
+import com.vchatrola.gherkin.GherkinDocument;
+import com.vchatrola.gherkin.GherkinLexer;
+import com.vchatrola.gherkin.GherkinPreLinter;
+import com.vchatrola.plugin.setting.GherkinLintSettingsManager;
+import com.vchatrola.prompt.PromptBuilder;
+import com.vchatrola.prompt.PromptSectionCache;
+import com.vchatrola.prompt.ScenarioPacker;
+import com.vchatrola.result.LineLocator;
+import com.vchatrola.result.ValidationResult;
+import com.vchatrola.result.ValidationResultCodec;
+import com.vchatrola.result.ValidationResultSchema;
+import com.vchatrola.util.GherkinLintLogger;
+import com.vchatrola.util.GherkinOutputParser;
+import com.vchatrola.util.HashUtils;
+import com.vchatrola.util.JsonArrayStreamParser;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Runs Gherkin text through the validation pipeline: incremental line cache, prompt building, disk
+ * result cache, Gemini and the output parser, producing {@link ValidationResult}s.
+ *
+ * <p>A validator captures the settings and merged configuration once when it is created, so a
+ * batch run validates every scenario against the same rules and can share one instance across
+ * threads.
+ *
+ * <p>Text is checked by the {@link GherkinPreLinter} first and then by Gemini, whose prompts leave
+ * out the requirements the linter enforces. The linter's findings are merged into Gemini's results
+ * by line and take precedence over Gemini's verdict for the same line. The text is parsed once;
+ * the pre-linter, the prompt's section selection and the mapping of results to lines share the
+ * same {@link GherkinDocument}.
+ *
+ * <p>Requests ask Gemini for JSON matching {@link ValidationResultSchema}, so the prompts only
+ * describe which lines to report, not the report format.
+ *
+ * <p>With context caching enabled, prompts are split into the static instructions, which Gemini
+ * keeps as cached content, and the input-dependent remainder that is sent with every request.
+ */
+public class ScenarioValidator {
+  private final GeminiService service;
+  private final PersistentResultStore resultStore;
+  private final LineResultStore lineResultStore;
+  private final GherkinPreLinter preLinter;
+  private final RuleSet rules;
+  private final String configIdentity;
+  private final String model;
+  private final boolean defaultValidation;
+  private final boolean incremental;
+  private final boolean contextCaching;
+
+  private ScenarioValidator(
+      GeminiService service,
+      PersistentResultStore resultStore,
+      LineResultStore lineResultStore,
+      GherkinPreLinter preLinter,
+      String configIdentity,
+      String model,
+      boolean defaultValidation,
+      boolean incremental,
+      boolean contextCaching) {
+    this.service = service;
+    this.resultStore = resultStore;
+    this.lineResultStore = lineResultStore;
+    this.preLinter = preLinter;
+    this.rules = preLinter.promptRules();
+    this.configIdentity = configIdentity;
+    this.model = model;
+    this.defaultValidation = defaultValidation;
+    this.incremental = incremental;
+    this.contextCaching = contextCaching;
+  }
+
+  public static ScenarioValidator create() throws IOException {
+    GherkinLintSettingsManager settingsManager = new GherkinLintSettingsManager();
+    ConfigurationManager configurationManager = new ConfigurationManager();
+    GherkinPreLinter preLinter = GherkinPreLinter.forRules(configurationManager.getRuleSet());
+    String configIdentity = configurationManager.getConfigurationFingerprint();
+    GherkinLintServiceImpl lintService =
+        ApplicationManager.getApplication().getService(GherkinLintServiceImpl.class);
+    GeminiService service = lintService.getGeminiService();
+    String model = service.resolveModel(settingsManager.getGeminiModel());
+    return new ScenarioValidator(
+        service,
+        lintService.getResultStore(),
+        lintService.getLineResultStore(),
+        preLinter,
+        configIdentity,
+        model,
+        !settingsManager.isCustomLogicEnabled(),
+        settingsManager.isIncrementalValidationEnabled(),
+        settingsManager.isContextCachingEnabled());
+  }
+
+  /**
+   * Validates {@code text} and returns its results, each located on its line of {@code text}.
+   */
+  public List<ValidationResult> validate(String text, @Nullable String fileType)
+      throws JsonProcessingException {
+    GherkinDocument document = GherkinLexer.parse(text);
+    List<ValidationResult> findings = preLint(document);
+    return GherkinPreLinter.merge(findings, validateWithGemini(document, fileType));
+  }
+
+  private List<ValidationResult> validateWithGemini(
+      GherkinDocument document, @Nullable String fileType) throws JsonProcessingException {
+    LineResultStore.Plan plan = null;
+    GherkinDocument toValidate = document;
+    if (incremental) {
+      plan = lineResultStore.plan(document, model, configIdentity);
+      if (plan.isComplete()) {
+        GherkinLintLogger.debugVerbose("All lines served from the line cache.");
+        return lineResultStore.merge(plan, List.of());
+      }
+      toValidate = GherkinLexer.parse(plan.pendingText());
+    }
+
+    List<ValidationResult> results =
+        fetchResults(singlePrompt(toValidate, fileType), toValidate, null);
+    return plan != null ? lineResultStore.merge(plan, results) : results;
+  }
+
+  /**
+   * Validates {@code text} like {@link #validate(String, String)}, but streams the Gemini response
+   * and hands every result to {@code onResult} as soon as its JSON object is complete. Pre-lint
+   * findings are handed over first, and Gemini's results for their lines are not. Incremental mode
+   * merges cached and fresh lines in selection order, so it reports Gemini's results once at the
+   * end instead.
+   */
+  public List<ValidationResult> validateStreaming(
+      String text, @Nullable String fileType, Consumer<ValidationResult> onResult)
+      throws JsonProcessingException {
+    GherkinDocument document = GherkinLexer.parse(text);
+    List<ValidationResult> findings = preLint(document);
+    findings.forEach(onResult);
+    Set<Integer> lintedLines = new HashSet<>();
+    findings.forEach(finding -> lintedLines.add(finding.line()));
+    Consumer<ValidationResult> onGeminiResult =
+        result -> {
+          if (!lintedLines.contains(result.line())) {
+            onResult.accept(result);
+          }
+        };
+    List<ValidationResult> results;
+    if (incremental) {
+      results = validateWithGemini(document, fileType);
+      results.forEach(onGeminiResult);
+    } else {
+      results = fetchResults(singlePrompt(document, fileType), document, onGeminiResult);
+    }
+    return GherkinPreLinter.merge(findings, results);
+  }
+
+  /**
+   * A hash identifying the validation of {@code text} by this validator: it changes with the text,
+   * the file type, the model and the configuration.
+   */
+  public String scenarioKey(String text, @Nullable String fileType) {
+    return HashUtils.sha256Hex(
+        model, configIdentity, String.valueOf(defaultValidation), fileType, text);
+  }
+
+  /**
+   * Returns the stored results for a single scenario, merged with its pre-lint findings, without
+   * calling Gemini, or {@code null}.
+   */
+  @Nullable
+  public List<ValidationResult> cachedResults(String text, @Nullable String fileType) {
+    GherkinDocument document = GherkinLexer.parse(text);
+    List<ValidationResult> results =
+        ValidationResultCodec.decode(resultStore.get(singleScenarioKey(document, fileType)));
+    if (results == null || results.isEmpty()) {
+      return null;
+    }
+    return GherkinPreLinter.merge(preLinter.lint(document), results);
+  }
+
+  /**
+   * Groups independent scenarios of one file type into packs sized by the model's token limits.
+   * Returns lists of indices into {@code scenarios}.
+   */
+  public List<List<Integer>> pack(List<String> scenarios, @Nullable String fileType) {
+    GeminiRecords.Model details = findModelDetails();
+    ScenarioPacker packer =
+        new ScenarioPacker(
+            details != null ? details.inputTokenLimit() : 0,
+            details != null ? details.outputTokenLimit() : 0,
+            texts -> packedPrompt(texts, fileType).text().length());
+    return packer.pack(scenarios);
+  }
+
+  /**
+   * Validates several independent scenarios with one Gemini request and returns the results of
+   * each, in order, merged with their pre-lint findings. Scenarios missing from the packed response
+   * are validated on their own.
+   */
+  public List<List<ValidationResult>> validatePack(
+      List<String> scenarios, @Nullable String fileType) throws JsonProcessingException {
+    List<GherkinDocument> documents = new ArrayList<>(scenarios.size());
+    List<List<ValidationResult>> findings = new ArrayList<>(scenarios.size());
+    for (String scenario : scenarios) {
+      GherkinDocument document = GherkinLexer.parse(scenario);
+      documents.add(document);
+      findings.add(preLint(document));
+    }
+    if (scenarios.size() == 1) {
+      return List.of(
+          GherkinPreLinter.merge(
+              findings.getFirst(), validateWithGemini(documents.getFirst(), fileType)));
+    }
+    Prompt prompt = packedPrompt(scenarios, fileType);
+    String response =
+        service.getCompletion(
+            prompt.prefix(),
+            prompt.input(),
+            model,
+            configIdentity,
+            ValidationResultSchema.PACKED);
+    if (StringUtils.isBlank(response)) {
+      throw new IllegalArgumentException("Gemini response is empty.");
+    }
+    GherkinLintLogger.debugVerbose(
+        "Received packed Gemini response for " + scenarios.size() + " scenarios.");
+
+    List<List<ValidationResult>> grouped =
+        GherkinOutputParser.readPackedResults(response, scenarios.size());
+    List<List<ValidationResult>> results = new ArrayList<>(scenarios.size());
+    for (int i = 0; i < scenarios.size(); i++) {
+      GherkinDocument document = documents.get(i);
+      List<ValidationResult> located;
+      if (grouped.get(i).isEmpty()) {
+        GherkinLintLogger.debug("Packed response missed a scenario; validating it separately.");
+        located = validateWithGemini(document, fileType);
+      } else {
+        located = new LineLocator(document).locateAll(grouped.get(i));
+        resultStore.put(
+            singleScenarioKey(document, fileType), ValidationResultCodec.encode(located));
+      }
+      results.add(GherkinPreLinter.merge(findings.get(i), located));
+    }
+    return results;
+  }
+
+  private List<ValidationResult> preLint(GherkinDocument document) {
+    List<ValidationResult> findings = preLinter.lint(document);
+    if (!findings.isEmpty()) {
+      GherkinLintLogger.debugVerbose(
+          "Pre-lint found " + findings.size() + " invalid line(s).");
+    }
+    return findings;
+  }
+
+  /** The disk cache key a single-scenario validation of {@code document} would use. */
+  private String singleScenarioKey(GherkinDocument document, @Nullable String fileType) {
+    return ValidationResultCache.keyFor(
+        singlePrompt(document, fileType).text(), model, configIdentity);
+  }
+
+  private Prompt singlePrompt(GherkinDocument document, @Nullable String fileType) {
+    PromptBuilder builder = PromptSectionCache.builderFor(rules, fileType);
+    if (contextCaching) {
+      return new Prompt(
+          builder.buildStaticPrefix(defaultValidation), builder.buildInputSuffix(document));
+    }
+    return new Prompt("", builder.buildPrompt(document, defaultValidation));
+  }
+
+  private Prompt packedPrompt(List<String> scenarios, @Nullable String fileType) {
+    PromptBuilder builder = PromptSectionCache.builderFor(rules, fileType);
+    if (contextCaching) {
+      return new Prompt(
+          builder.buildStaticPrefix(defaultValidation), builder.buildPackedInputSuffix(scenarios));
+    }
+    return new Prompt("", builder.buildPackedPrompt(scenarios, defaultValidation));
+  }
+
+  @Nullable
+  private GeminiRecords.Model findModelDetails() {
+    try {
+      return service.findModel(model).orElse(null);
+    } catch (RuntimeException e) {
+      GherkinLintLogger.debug("Model details unavailable; using default pack budget.", e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the results for {@code prompt}, located on the lines of {@code document}, from the disk
+   * cache or Gemini. When {@code onResult} is set the response is streamed and each result is
+   * reported as it arrives; the reported results are returned as they were emitted.
+   */
+  private List<ValidationResult> fetchResults(
+      Prompt prompt, GherkinDocument document, @Nullable Consumer<ValidationResult> onResult)
+      throws JsonProcessingException {
+    String cacheKey = ValidationResultCache.keyFor(prompt.text(), model, configIdentity);
+    List<ValidationResult> storedResults = ValidationResultCodec.decode(resultStore.get(cacheKey));
+    if (storedResults != null && !storedResults.isEmpty()) {
+      GherkinLintLogger.debugVerbose("Serving validation result from disk cache.");
+      if (onResult != null) {
+        storedResults.forEach(onResult);
+      }
+      return storedResults;
+    }
+
+    LineLocator locator = new LineLocator(document);
+    List<ValidationResult> streamed = Collections.synchronizedList(new ArrayList<>());
+    JsonArrayStreamParser streamParser =
+        onResult != null
+            ? new JsonArrayStreamParser(json -> emitResult(json, locator, streamed, onResult))
+            : null;
+    String response =
+        streamParser != null
+            ? service.streamCompletion(
+                prompt.prefix(),
+                prompt.input(),
+                model,
+                configIdentity,
+                ValidationResultSchema.SINGLE,
+                streamParser::feed)
+            : service.getCompletion(
+                prompt.prefix(),
+                prompt.input(),
+                model,
+                configIdentity,
+                ValidationResultSchema.SINGLE);
+    if (StringUtils.isBlank(response)) {
+      throw new IllegalArgumentException("Gemini response is empty.");
+    }
+    GherkinLintLogger.debugVerbose("Received Gemini response (" + response.length() + " chars).");
+
+    List<ValidationResult> results;
+    if (streamParser != null && streamParser.objectCount() > 0) {
+      results = new ArrayList<>(streamed);
+    } else {
+      results = locator.locateAll(GherkinOutputParser.readResults(response));
+      if (onResult != null) {
+        results.forEach(onResult);
+      }
+    }
+    if (results.isEmpty()) {
+      throw new IllegalArgumentException("Gemini response did not contain any results.");
+    }
+
+    resultStore.put(cacheKey, ValidationResultCodec.encode(results));
+    return results;
+  }
+
+  /**
+   * Locates a streamed result once and reports it; the located result is also kept as part of the
+   * final results. Objects that cannot be read are reported as invalid results.
+   */
+  private static void emitResult(
+      String objectJson,
+      LineLocator locator,
+      List<ValidationResult> streamed,
+      Consumer<ValidationResult> onResult) {
+    ValidationResult result = locator.locate(GherkinOutputParser.readStreamedResult(objectJson));
+    streamed.add(result);
+    onResult.accept(result);
+  }
+
+  /** A prompt split into a prefix Gemini may cache (empty when not caching) and the rest. */
+  private record Prompt(String prefix, String input) {
+    String text() {
+      return prefix + input;
+    }
+  }
+}
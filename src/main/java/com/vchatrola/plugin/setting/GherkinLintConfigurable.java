@@ -1,6 +1,9 @@
 package com.vchatrola.plugin.setting;
 
+import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
 import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
 import com.vchatrola.util.GherkinLintLogger;
 import javax.swing.JComponent;
 import org.jetbrains.annotations.Nls;
@@ -35,6 +38,19 @@ public class GherkinLintConfigurable implements Configurable {
         || !settings.getCopyDirectoryPath().equals(gherkinLintSettingsUI.getCopyDirectoryPath())
         || !settings.getGeminiModel().equals(gherkinLintSettingsUI.getGeminiModel())
         || settings.isVerboseLogging() != gherkinLintSettingsUI.isVerboseLoggingEnabled()
+        || settings.isIncrementalValidation()
+            != gherkinLintSettingsUI.isIncrementalValidationEnabled()
+        || settings.isLiveValidation() != gherkinLintSettingsUI.isLiveValidationEnabled()
+        || settings.getBatchConcurrency() != gherkinLintSettingsUI.getBatchConcurrency()
+        || settings.isPackedBatchValidation()
+            != gherkinLintSettingsUI.isPackedBatchValidationEnabled()
+        || settings.isVirtualThreadBatchValidation()
+            != gherkinLintSettingsUI.isVirtualThreadBatchValidationEnabled()
+        || settings.getRateLimitRequestsPerMinute()
+            != gherkinLintSettingsUI.getRateLimitRequestsPerMinute()
+        || settings.getRateLimitTokensPerMinute()
+            != gherkinLintSettingsUI.getRateLimitTokensPerMinute()
+        || settings.isContextCaching() != gherkinLintSettingsUI.isContextCachingEnabled()
         || !apiKey.isEmpty();
   }
 
@@ -46,6 +62,7 @@ public class GherkinLintConfigurable implements Configurable {
     GherkinLintSettingsState settings = GherkinLintSettingsState.getInstance();
     boolean previousCustomEnabled = settings.customLogicEnabled;
     String previousCustomFile = settings.customFilePath;
+    boolean previousLiveValidation = settings.liveValidation;
     boolean customEnabled = gherkinLintSettingsUI.isCustomLogicEnabled();
     if (customEnabled && gherkinLintSettingsUI.getCustomFilePath().trim().isEmpty()) {
       customEnabled = false;
@@ -53,6 +70,15 @@ public class GherkinLintConfigurable implements Configurable {
     settings.customLogicEnabled = customEnabled;
     settings.verboseLogging = gherkinLintSettingsUI.isVerboseLoggingEnabled();
     GherkinLintLogger.setVerboseEnabled(settings.verboseLogging);
+    settings.incrementalValidation = gherkinLintSettingsUI.isIncrementalValidationEnabled();
+    settings.liveValidation = gherkinLintSettingsUI.isLiveValidationEnabled();
+    settings.batchConcurrency = gherkinLintSettingsUI.getBatchConcurrency();
+    settings.packedBatchValidation = gherkinLintSettingsUI.isPackedBatchValidationEnabled();
+    settings.virtualThreadBatchValidation =
+        gherkinLintSettingsUI.isVirtualThreadBatchValidationEnabled();
+    settings.rateLimitRequestsPerMinute = gherkinLintSettingsUI.getRateLimitRequestsPerMinute();
+    settings.rateLimitTokensPerMinute = gherkinLintSettingsUI.getRateLimitTokensPerMinute();
+    settings.contextCaching = gherkinLintSettingsUI.isContextCachingEnabled();
     settings.customFilePath = gherkinLintSettingsUI.getCustomFilePath();
     settings.copyDirectoryPath = gherkinLintSettingsUI.getCopyDirectoryPath();
     settings.geminiModel = gherkinLintSettingsUI.getGeminiModel();
@@ -75,7 +101,13 @@ public class GherkinLintConfigurable implements Configurable {
     }
     if (previousCustomEnabled != customEnabled
         || !previousCustomFile.equals(settings.customFilePath)) {
-      com.vchatrola.config.ConfigurationManager.invalidateCache();
+      com.vchatrola.config.ConfigurationManager.reloadInBackground();
+    }
+    if (previousLiveValidation != settings.liveValidation) {
+      // Re-run the annotators so that live highlights appear or disappear right away.
+      for (Project project : ProjectManager.getInstance().getOpenProjects()) {
+        DaemonCodeAnalyzer.getInstance(project).restart();
+      }
     }
     gherkinLintSettingsUI.setCustomLogicEnabled(customEnabled);
     gherkinLintSettingsUI.updateCustomRulesWarning();
@@ -90,6 +122,15 @@ public class GherkinLintConfigurable implements Configurable {
     gherkinLintSettingsUI.setCustomLogicEnabled(settings.customLogicEnabled);
     gherkinLintSettingsUI.setVerboseLoggingEnabled(settings.verboseLogging);
     GherkinLintLogger.setVerboseEnabled(settings.verboseLogging);
+    gherkinLintSettingsUI.setIncrementalValidationEnabled(settings.incrementalValidation);
+    gherkinLintSettingsUI.setLiveValidationEnabled(settings.liveValidation);
+    gherkinLintSettingsUI.setBatchConcurrency(settings.batchConcurrency);
+    gherkinLintSettingsUI.setPackedBatchValidationEnabled(settings.packedBatchValidation);
+    gherkinLintSettingsUI.setVirtualThreadBatchValidationEnabled(
+        settings.virtualThreadBatchValidation);
+    gherkinLintSettingsUI.setRateLimitRequestsPerMinute(settings.rateLimitRequestsPerMinute);
+    gherkinLintSettingsUI.setRateLimitTokensPerMinute(settings.rateLimitTokensPerMinute);
+    gherkinLintSettingsUI.setContextCachingEnabled(settings.contextCaching);
     gherkinLintSettingsUI.setCustomFilePath(settings.customFilePath);
     gherkinLintSettingsUI.setCopyDirectoryPath(settings.copyDirectoryPath);
     gherkinLintSettingsUI.setGeminiModel(settings.geminiModel);
@@ -1,5 +1,6 @@
 package com.vchatrola.plugin.setting;
 
+import com.vchatrola.util.Constants;
 import java.util.List;
 
 public class GherkinLintSettingsManager {
@@ -18,6 +19,38 @@ public class GherkinLintSettingsManager {
     return settingsState.verboseLogging;
   }
 
+  public boolean isIncrementalValidationEnabled() {
+    return settingsState.incrementalValidation;
+  }
+
+  public boolean isLiveValidationEnabled() {
+    return settingsState.liveValidation;
+  }
+
+  public int getBatchConcurrency() {
+    return Math.max(1, Math.min(settingsState.batchConcurrency, Constants.MAX_BATCH_CONCURRENCY));
+  }
+
+  public boolean isPackedBatchValidationEnabled() {
+    return settingsState.packedBatchValidation;
+  }
+
+  public boolean isVirtualThreadBatchValidationEnabled() {
+    return settingsState.virtualThreadBatchValidation;
+  }
+
+  public int getRateLimitRequestsPerMinute() {
+    return settingsState.rateLimitRequestsPerMinute;
+  }
+
+  public int getRateLimitTokensPerMinute() {
+    return settingsState.rateLimitTokensPerMinute;
+  }
+
+  public boolean isContextCachingEnabled() {
+    return settingsState.contextCaching;
+  }
+
   public String getCustomFilePath() {
     return settingsState.customFilePath;
   }
@@ -38,6 +71,38 @@ public class GherkinLintSettingsManager {
     settingsState.verboseLogging = enabled;
   }
 
+  public void setIncrementalValidationEnabled(boolean enabled) {
+    settingsState.incrementalValidation = enabled;
+  }
+
+  public void setLiveValidationEnabled(boolean enabled) {
+    settingsState.liveValidation = enabled;
+  }
+
+  public void setBatchConcurrency(int concurrency) {
+    settingsState.batchConcurrency = concurrency;
+  }
+
+  public void setPackedBatchValidationEnabled(boolean enabled) {
+    settingsState.packedBatchValidation = enabled;
+  }
+
+  public void setVirtualThreadBatchValidationEnabled(boolean enabled) {
+    settingsState.virtualThreadBatchValidation = enabled;
+  }
+
+  public void setRateLimitRequestsPerMinute(int requestsPerMinute) {
+    settingsState.rateLimitRequestsPerMinute = requestsPerMinute;
+  }
+
+  public void setRateLimitTokensPerMinute(int tokensPerMinute) {
+    settingsState.rateLimitTokensPerMinute = tokensPerMinute;
+  }
+
+  public void setContextCachingEnabled(boolean enabled) {
+    settingsState.contextCaching = enabled;
+  }
+
   public void setCustomFilePath(String path) {
     settingsState.customFilePath = path;
   }
@@ -4,6 +4,7 @@ import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.Service;
 import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
+import com.vchatrola.util.Constants;
 import com.vchatrola.util.GherkinLintLogger;
 import java.util.ArrayList;
 import java.util.List;
@@ -17,6 +18,14 @@ public final class GherkinLintSettingsState
     implements PersistentStateComponent<GherkinLintSettingsState> {
   public boolean customLogicEnabled = false;
   public boolean verboseLogging = false;
+  public boolean incrementalValidation = false;
+  public boolean liveValidation = false;
+  public int batchConcurrency = Constants.DEFAULT_BATCH_CONCURRENCY;
+  public boolean packedBatchValidation = true;
+  public boolean virtualThreadBatchValidation = true;
+  public int rateLimitRequestsPerMinute = Constants.DEFAULT_RATE_LIMIT_RPM;
+  public int rateLimitTokensPerMinute = Constants.DEFAULT_RATE_LIMIT_TPM;
+  public boolean contextCaching = false;
   public String customFilePath = "";
   public String copyDirectoryPath = "";
   public String geminiModel = "";
@@ -32,6 +41,14 @@ public final class GherkinLintSettingsState
   public void loadState(GherkinLintSettingsState state) {
     this.customLogicEnabled = state.customLogicEnabled;
     this.verboseLogging = state.verboseLogging;
+    this.incrementalValidation = state.incrementalValidation;
+    this.liveValidation = state.liveValidation;
+    this.batchConcurrency = state.batchConcurrency;
+    this.packedBatchValidation = state.packedBatchValidation;
+    this.virtualThreadBatchValidation = state.virtualThreadBatchValidation;
+    this.rateLimitRequestsPerMinute = state.rateLimitRequestsPerMinute;
+    this.rateLimitTokensPerMinute = state.rateLimitTokensPerMinute;
+    this.contextCaching = state.contextCaching;
     this.customFilePath = state.customFilePath;
     this.copyDirectoryPath = state.copyDirectoryPath;
     this.geminiModel = state.geminiModel;
@@ -73,4 +90,36 @@ public final class GherkinLintSettingsState
   public boolean isVerboseLogging() {
     return verboseLogging;
   }
+
+  public boolean isIncrementalValidation() {
+    return incrementalValidation;
+  }
+
+  public boolean isLiveValidation() {
+    return liveValidation;
+  }
+
+  public int getBatchConcurrency() {
+    return batchConcurrency;
+  }
+
+  public boolean isPackedBatchValidation() {
+    return packedBatchValidation;
+  }
+
+  public boolean isVirtualThreadBatchValidation() {
+    return virtualThreadBatchValidation;
+  }
+
+  public int getRateLimitRequestsPerMinute() {
+    return rateLimitRequestsPerMinute;
+  }
+
+  public int getRateLimitTokensPerMinute() {
+    return rateLimitTokensPerMinute;
+  }
+
+  public boolean isContextCaching() {
+    return contextCaching;
+  }
 }
@@ -6,6 +6,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.project.ProjectManager;
 import com.intellij.openapi.ui.TextFieldWithBrowseButton;
 import com.intellij.ui.JBColor;
+import com.intellij.ui.JBIntSpinner;
 import com.intellij.ui.TitledSeparator;
 import com.intellij.ui.components.JBCheckBox;
 import com.intellij.ui.components.JBLabel;
@@ -14,6 +15,7 @@ import com.intellij.util.ui.FormBuilder;
 import com.vchatrola.gemini.dto.GeminiRecords;
 import com.vchatrola.gemini.service.GeminiService;
 import com.vchatrola.plugin.service.GherkinLintServiceImpl;
+import com.vchatrola.util.Constants;
 import com.vchatrola.util.GherkinLintLogger;
 import com.vchatrola.util.ResourceUtil;
 import java.awt.BorderLayout;
@@ -53,6 +55,14 @@ public class GherkinLintSettingsUI {
   private final JBLabel apiKeyStatusLabel;
   private final JButton clearApiKeyButton;
   private final JBCheckBox verboseLoggingCheckBox;
+  private final JBCheckBox incrementalValidationCheckBox;
+  private final JBCheckBox liveValidationCheckBox;
+  private final JBIntSpinner batchConcurrencySpinner;
+  private final JBCheckBox packedBatchValidationCheckBox;
+  private final JBCheckBox virtualThreadBatchValidationCheckBox;
+  private final JBIntSpinner requestsPerMinuteSpinner;
+  private final JBIntSpinner tokensPerMinuteSpinner;
+  private final JBCheckBox contextCachingCheckBox;
   private final JBLabel privacyNoticeLabel;
   private final JBLabel instructionsLabel;
   private final Map<String, GeminiRecords.Model> modelDetailsByName = new HashMap<>();
@@ -78,6 +88,24 @@ public class GherkinLintSettingsUI {
     apiKeyStatusLabel = createApiKeyStatusLabel();
     clearApiKeyButton = createClearApiKeyButton();
     verboseLoggingCheckBox = createVerboseLoggingCheckBox();
+    incrementalValidationCheckBox = createIncrementalValidationCheckBox();
+    liveValidationCheckBox = createLiveValidationCheckBox();
+    batchConcurrencySpinner = createBatchConcurrencySpinner();
+    packedBatchValidationCheckBox = createPackedBatchValidationCheckBox();
+    virtualThreadBatchValidationCheckBox = createVirtualThreadBatchValidationCheckBox();
+    requestsPerMinuteSpinner =
+        createRateLimitSpinner(
+            Constants.DEFAULT_RATE_LIMIT_RPM,
+            100_000,
+            1,
+            "Gemini requests per minute per model. 0 disables the limit.");
+    tokensPerMinuteSpinner =
+        createRateLimitSpinner(
+            Constants.DEFAULT_RATE_LIMIT_TPM,
+            100_000_000,
+            10_000,
+            "Estimated prompt tokens per minute per model. 0 disables the limit.");
+    contextCachingCheckBox = createContextCachingCheckBox();
     privacyNoticeLabel = createPrivacyNoticeLabel();
     instructionsLabel = createInstructionsLabel();
     SwingUtilities.invokeLater(() -> loadCachedModels(modelComboBox));
@@ -123,6 +151,22 @@ public class GherkinLintSettingsUI {
             .addComponent(new TitledSeparator("Advanced"))
             .addVerticalGap(4)
             .addComponent(verboseLoggingCheckBox)
+            .addVerticalGap(4)
+            .addComponent(incrementalValidationCheckBox)
+            .addVerticalGap(4)
+            .addComponent(liveValidationCheckBox)
+            .addVerticalGap(4)
+            .addLabeledComponent("Batch concurrency:", batchConcurrencySpinner, 1, false)
+            .addVerticalGap(4)
+            .addComponent(packedBatchValidationCheckBox)
+            .addVerticalGap(4)
+            .addComponent(virtualThreadBatchValidationCheckBox)
+            .addVerticalGap(4)
+            .addLabeledComponent("Requests per minute:", requestsPerMinuteSpinner, 1, false)
+            .addVerticalGap(4)
+            .addLabeledComponent("Tokens per minute:", tokensPerMinuteSpinner, 1, false)
+            .addVerticalGap(4)
+            .addComponent(contextCachingCheckBox)
             .addVerticalGap(8)
             .getPanel();
 
@@ -307,6 +351,59 @@ public class GherkinLintSettingsUI {
     return checkBox;
   }
 
+  private JBCheckBox createIncrementalValidationCheckBox() {
+    JBCheckBox checkBox = new JBCheckBox("Incremental validation (only send changed lines)");
+    checkBox.setToolTipText(
+        "Reuse earlier verdicts for unchanged lines and send only new or edited lines to Gemini.");
+    return checkBox;
+  }
+
+  private JBCheckBox createLiveValidationCheckBox() {
+    JBCheckBox checkBox = new JBCheckBox("Validate .feature and .story files while typing");
+    checkBox.setToolTipText(
+        "Highlight problems as you edit. Local checks run on every change; scenarios whose text"
+            + " changed are sent to Gemini after a short pause.");
+    return checkBox;
+  }
+
+  private JBIntSpinner createBatchConcurrencySpinner() {
+    JBIntSpinner spinner =
+        new JBIntSpinner(Constants.DEFAULT_BATCH_CONCURRENCY, 1, Constants.MAX_BATCH_CONCURRENCY);
+    spinner.setToolTipText("Maximum number of scenarios validated in parallel in batch mode.");
+    return spinner;
+  }
+
+  private JBCheckBox createPackedBatchValidationCheckBox() {
+    JBCheckBox checkBox = new JBCheckBox("Pack several scenarios per request in batch validation");
+    checkBox.setToolTipText(
+        "Send the shared instructions once for a group of scenarios. Pack size follows the"
+            + " model's token limits.");
+    return checkBox;
+  }
+
+  private JBCheckBox createVirtualThreadBatchValidationCheckBox() {
+    JBCheckBox checkBox = new JBCheckBox("Run batch requests on virtual threads");
+    checkBox.setToolTipText(
+        "Wait for Gemini on lightweight virtual threads; batch concurrency still bounds the"
+            + " number of requests in flight.");
+    return checkBox;
+  }
+
+  private JBCheckBox createContextCachingCheckBox() {
+    JBCheckBox checkBox = new JBCheckBox("Cache the validation instructions on Gemini");
+    checkBox.setToolTipText(
+        "Upload the rule instructions once per configuration as Gemini cached content and send"
+            + " only the scenario with each request. Requires a Gemini plan with context caching.");
+    return checkBox;
+  }
+
+  private JBIntSpinner createRateLimitSpinner(
+      int defaultValue, int maxValue, int step, String toolTip) {
+    JBIntSpinner spinner = new JBIntSpinner(defaultValue, 0, maxValue, step);
+    spinner.setToolTipText(toolTip);
+    return spinner;
+  }
+
   private String getApiKeyStatusText(boolean hasApiKey) {
     return hasApiKey
         ? "API key stored securely in IDE."
@@ -582,6 +679,71 @@ public class GherkinLintSettingsUI {
     verboseLoggingCheckBox.setSelected(enabled);
   }
 
+  public boolean isIncrementalValidationEnabled() {
+    return incrementalValidationCheckBox.isSelected();
+  }
+
+  public void setIncrementalValidationEnabled(boolean enabled) {
+    incrementalValidationCheckBox.setSelected(enabled);
+  }
+
+  public boolean isLiveValidationEnabled() {
+    return liveValidationCheckBox.isSelected();
+  }
+
+  public void setLiveValidationEnabled(boolean enabled) {
+    liveValidationCheckBox.setSelected(enabled);
+  }
+
+  public int getBatchConcurrency() {
+    return batchConcurrencySpinner.getNumber();
+  }
+
+  public void setBatchConcurrency(int concurrency) {
+    batchConcurrencySpinner.setNumber(
+        Math.max(1, Math.min(concurrency, Constants.MAX_BATCH_CONCURRENCY)));
+  }
+
+  public boolean isPackedBatchValidationEnabled() {
+    return packedBatchValidationCheckBox.isSelected();
+  }
+
+  public void setPackedBatchValidationEnabled(boolean enabled) {
+    packedBatchValidationCheckBox.setSelected(enabled);
+  }
+
+  public boolean isContextCachingEnabled() {
+    return contextCachingCheckBox.isSelected();
+  }
+
+  public void setContextCachingEnabled(boolean enabled) {
+    contextCachingCheckBox.setSelected(enabled);
+  }
+
+  public boolean isVirtualThreadBatchValidationEnabled() {
+    return virtualThreadBatchValidationCheckBox.isSelected();
+  }
+
+  public void setVirtualThreadBatchValidationEnabled(boolean enabled) {
+    virtualThreadBatchValidationCheckBox.setSelected(enabled);
+  }
+
+  public int getRateLimitRequestsPerMinute() {
+    return requestsPerMinuteSpinner.getNumber();
+  }
+
+  public void setRateLimitRequestsPerMinute(int requestsPerMinute) {
+    requestsPerMinuteSpinner.setNumber(Math.max(0, requestsPerMinute));
+  }
+
+  public int getRateLimitTokensPerMinute() {
+    return tokensPerMinuteSpinner.getNumber();
+  }
+
+  public void setRateLimitTokensPerMinute(int tokensPerMinute) {
+    tokensPerMinuteSpinner.setNumber(Math.max(0, tokensPerMinute));
+  }
+
   private void refreshApiKeyStatusAsync() {
     if (apiKeyStatusLabel == null) {
       return;
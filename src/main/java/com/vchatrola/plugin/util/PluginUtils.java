@@ -4,14 +4,27 @@ import com.intellij.execution.filters.TextConsoleBuilder;
 import com.intellij.execution.filters.TextConsoleBuilderFactory;
 import com.intellij.execution.impl.ConsoleViewImpl;
 import com.intellij.execution.ui.ConsoleView;
+import com.intellij.execution.ui.ConsoleViewContentType;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowManager;
 import com.intellij.ui.content.Content;
 import com.intellij.ui.content.ContentFactory;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.vchatrola.result.ValidationResult;
+import com.vchatrola.util.Constants;
 import com.vchatrola.util.GherkinLintLogger;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.Nullable;
 
 /** Utility class for plugin-related functionalities. */
@@ -22,6 +35,30 @@ public class PluginUtils {
     return editor.getCaretModel().getCurrentCaret().getSelectedText();
   }
 
+  /**
+   * Runs {@code work} on a pooled thread and waits for its result while watching {@code
+   * indicator}. Cancelling the indicator interrupts the work, which aborts its Gemini requests,
+   * and throws {@link ProcessCanceledException}; failures of the work are rethrown unwrapped.
+   */
+  public static <T> T computeCancellable(ProgressIndicator indicator, Callable<T> work)
+      throws Exception {
+    Future<T> future = AppExecutorUtil.getAppExecutorService().submit(work);
+    try {
+      while (true) {
+        indicator.checkCanceled();
+        try {
+          return future.get(Constants.CANCELLATION_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ignored) {
+          // Still running; check the indicator again.
+        }
+      }
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception cause ? cause : e;
+    } finally {
+      future.cancel(true);
+    }
+  }
+
   @Nullable
   public static ToolWindow getToolWindow(AnActionEvent event, String toolWindowId) {
     return ToolWindowManager.getInstance(Objects.requireNonNull(event.getProject()))
@@ -81,24 +118,49 @@ public class PluginUtils {
     return count;
   }
 
-  public static String getFirstKeywordToken(String text) {
-    if (text == null || text.isBlank()) {
-      return "";
+  public static void printValidationOutput(
+      List<ValidationResult> results, ConsoleView consoleView) {
+    for (ValidationResult result : results) {
+      printValidationResult(result, consoleView);
     }
+  }
 
-    String trimmed = text.trim();
-    if (trimmed.startsWith("@")) {
-      return "@";
-    }
-    if (trimmed.startsWith("*")) {
-      return "*";
-    }
+  public static void printValidationResult(ValidationResult result, ConsoleView consoleView) {
+    consoleView.print(result.title() + "\n", ConsoleViewContentType.LOG_VERBOSE_OUTPUT);
+    ConsoleViewContentType statusType =
+        result.status() == ValidationResult.Status.VALID
+            ? ConsoleViewContentType.USER_INPUT
+            : ConsoleViewContentType.ERROR_OUTPUT;
+    printProperty(consoleView, Constants.PROPERTY_STATUS, result.status().label(), statusType);
+    printProperty(
+        consoleView,
+        Constants.PROPERTY_REASON,
+        result.reason(),
+        ConsoleViewContentType.NORMAL_OUTPUT);
+    printProperty(
+        consoleView,
+        Constants.PROPERTY_SUGGESTION,
+        result.suggestion(),
+        ConsoleViewContentType.NORMAL_OUTPUT);
+    consoleView.print("\n", ConsoleViewContentType.NORMAL_OUTPUT);
+  }
 
-    String[] words = trimmed.split("\\s+");
-    if (words.length > 0) {
-      return words[0].replaceAll("[^a-zA-Z]", "");
+  private static void printProperty(
+      ConsoleView consoleView,
+      String property,
+      String value,
+      ConsoleViewContentType contentType) {
+    int minPadding = Constants.PROPERTY_SUGGESTION.length();
+    consoleView.print(
+        String.format("- %-" + minPadding + "s: ", property),
+        ConsoleViewContentType.LOG_DEBUG_OUTPUT);
+    String[] lines = value.split("\\R");
+    consoleView.print(lines[0] + "\n", contentType);
+    for (int i = 1; i < lines.length; i++) {
+      int size = lines[i].length() + (minPadding + 4);
+      consoleView.print(
+          StringUtils.leftPad(lines[i], size) + "\n", ConsoleViewContentType.NORMAL_OUTPUT);
     }
-    return "";
   }
 
   private static void enableSoftWraps(ConsoleViewImpl consoleView) {
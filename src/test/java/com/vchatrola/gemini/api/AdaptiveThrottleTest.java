@@ -0,0 +1,56 @@
+package com.vchatrola.gemini.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveThrottleTest {
+
+  @Test
+  void reserveSlot_isFreeWhileNotThrottled() {
+    AdaptiveThrottle throttle = new AdaptiveThrottle(() -> 1_000L);
+
+    assertEquals(0L, throttle.reserveSlot());
+    assertEquals(0L, throttle.reserveSlot());
+  }
+
+  @Test
+  void onThrottled_pausesEveryRequestForTheServerHint() {
+    AtomicLong now = new AtomicLong(1_000L);
+    AdaptiveThrottle throttle = new AdaptiveThrottle(now::get);
+
+    assertEquals(5_000L, throttle.onThrottled(5_000L, 1));
+
+    now.addAndGet(1_000L);
+    assertEquals(4_000L, throttle.reserveSlot());
+  }
+
+  @Test
+  void onThrottled_fallsBackToExponentialDelayWithoutHint() {
+    AdaptiveThrottle throttle = new AdaptiveThrottle(() -> 0L);
+
+    assertEquals(500L, throttle.onThrottled(-1L, 1));
+    assertEquals(1_000L, throttle.onThrottled(-1L, 2));
+  }
+
+  @Test
+  void reserveSlot_spacesRequestsUntilRecovered() {
+    AtomicLong now = new AtomicLong(0L);
+    AdaptiveThrottle throttle = new AdaptiveThrottle(now::get);
+    throttle.onThrottled(0L, 1);
+    throttle.onThrottled(0L, 1);
+
+    assertEquals(0L, throttle.reserveSlot());
+    assertEquals(500L, throttle.reserveSlot());
+
+    throttle.onSuccess();
+    now.set(1_000L);
+    assertEquals(0L, throttle.reserveSlot());
+    assertEquals(250L, throttle.reserveSlot());
+
+    throttle.onSuccess();
+    assertEquals(0, throttle.level());
+    assertEquals(0L, throttle.reserveSlot());
+  }
+}
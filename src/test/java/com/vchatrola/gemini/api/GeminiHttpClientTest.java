@@ -1,6 +1,7 @@
 package com.vchatrola.gemini.api;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -8,6 +9,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vchatrola.gemini.dto.GeminiRecords;
+import com.vchatrola.result.ValidationResultSchema;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -16,8 +18,15 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.net.ssl.SSLSession;
 import org.junit.jupiter.api.Test;
 
@@ -123,6 +132,68 @@ class GeminiHttpClientTest {
     assertTrue(stub.lastBody.contains("hello"));
   }
 
+  @Test
+  void createCachedContent_postsToCachedContentsAndReadsName() {
+    StubHttpClient stub =
+        new StubHttpClient()
+            .enqueue(new StubResponse(200, "{\"name\":\"cachedContents/abc\",\"model\":\"m\"}"));
+    GeminiHttpClient client = new GeminiHttpClient(stub, defaultMapper());
+    GeminiRecords.CachedContentRequest request =
+        new GeminiRecords.CachedContentRequest(
+            "models/gemini-1.5",
+            "test",
+            new GeminiRecords.Content(List.of(new GeminiRecords.TextPart("rules"))),
+            "3600s");
+
+    GeminiRecords.CachedContent created = client.createCachedContent("key", request);
+
+    assertEquals("cachedContents/abc", created.name());
+    assertTrue(stub.requests.getFirst().uri().toString().endsWith("/v1beta/cachedContents"));
+    assertTrue(stub.lastBody.contains("\"systemInstruction\""));
+    assertTrue(stub.lastBody.contains("\"ttl\":\"3600s\""));
+  }
+
+  @Test
+  void generateContent_sendsCachedContentReferenceOnlyWhenSet() {
+    String json = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"ok\"}]}}]}";
+    StubHttpClient stub =
+        new StubHttpClient()
+            .enqueue(new StubResponse(200, json))
+            .enqueue(new StubResponse(200, json));
+    GeminiHttpClient client = new GeminiHttpClient(stub, defaultMapper());
+    GeminiRecords.Content content =
+        new GeminiRecords.Content(List.of(new GeminiRecords.TextPart("input")));
+
+    client.generateContent("m", "key", new GeminiRecords.GeminiRequest(List.of(content)));
+    assertFalse(stub.lastBody.contains("cachedContent"));
+
+    client.generateContent(
+        "m", "key", new GeminiRecords.GeminiRequest(List.of(content), "cachedContents/abc"));
+    assertTrue(stub.lastBody.contains("\"cachedContent\":\"cachedContents/abc\""));
+  }
+
+  @Test
+  void generateContent_sendsJsonResponseSchema() {
+    String json = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"[]\"}]}}]}";
+    StubHttpClient stub = new StubHttpClient().enqueue(new StubResponse(200, json));
+    GeminiHttpClient client = new GeminiHttpClient(stub, defaultMapper());
+    GeminiRecords.Content content =
+        new GeminiRecords.Content(List.of(new GeminiRecords.TextPart("input")));
+
+    client.generateContent(
+        "m",
+        "key",
+        new GeminiRecords.GeminiRequest(List.of(content), null, ValidationResultSchema.PACKED));
+
+    assertFalse(stub.lastBody.contains("cachedContent"));
+    assertTrue(stub.lastBody.contains("\"responseMimeType\":\"application/json\""));
+    assertTrue(stub.lastBody.contains("\"enum\":[\"Valid\",\"Invalid\"]"));
+    assertTrue(
+        stub.lastBody.contains(
+            "\"propertyOrdering\":"
+                + "[\"scenario\",\"title\",\"status\",\"reason\",\"suggestion\"]"));
+  }
+
   @Test
   void request_containsApiKeyHeaderAndTimeout() {
     StubHttpClient stub = new StubHttpClient().enqueue(new StubResponse(200, "{\"models\":[]}"));
@@ -137,6 +208,165 @@ class GeminiHttpClientTest {
     assertEquals(30, timeout.get().getSeconds());
   }
 
+  @Test
+  void streamGenerateContent_deliversEachServerSentEvent() {
+    String events =
+        "data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"[{\"}]}}]}\n\n"
+            + "data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"}]\"}]}}]}\n\n";
+    StubHttpClient stub =
+        new StubHttpClient()
+            .enqueue(new StubEventStream(503, "busy"))
+            .enqueue(new StubEventStream(200, events));
+    GeminiHttpClient client = new GeminiHttpClient(stub, defaultMapper());
+    List<String> fragments = new ArrayList<>();
+
+    client.streamGenerateContent(
+        "gemini-1.5",
+        "key",
+        buildRequest("hello"),
+        chunk -> fragments.add(chunk.candidates().getFirst().content().parts().getFirst().text()));
+
+    assertEquals(List.of("[{", "}]"), fragments);
+    assertEquals(2, stub.requests.size());
+    assertTrue(stub.requests.getLast().uri().toString().endsWith(":streamGenerateContent?alt=sse"));
+  }
+
+  @Test
+  void generateContentAsync_retriesOnTimerThenSucceeds() throws Exception {
+    String json = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"ok\"}]}}]}";
+    StubHttpClient stub =
+        new StubHttpClient()
+            .enqueue(new StubIOException())
+            .enqueue(new StubResponse(429, "rate limit"))
+            .enqueue(new StubResponse(200, json));
+    GeminiHttpClient client = new GeminiHttpClient(stub, defaultMapper());
+
+    GeminiRecords.GeminiResponse response =
+        client
+            .generateContentAsync("models/gemini-1.5", "key", buildRequest("test"))
+            .get(10, TimeUnit.SECONDS);
+
+    assertEquals("ok", response.candidates().getFirst().content().parts().getFirst().text());
+    assertEquals(3, stub.requests.size());
+  }
+
+  @Test
+  void getModelsAsync_failsWithApiExceptionOnClientError() {
+    StubHttpClient stub = new StubHttpClient().enqueue(new StubResponse(400, "bad request"));
+    GeminiHttpClient client = new GeminiHttpClient(stub, defaultMapper());
+
+    ExecutionException ex =
+        assertThrows(
+            ExecutionException.class, () -> client.getModelsAsync("key").get(5, TimeUnit.SECONDS));
+
+    assertTrue(ex.getCause() instanceof GeminiApiException);
+    assertEquals(1, stub.requests.size());
+  }
+
+  @Test
+  void getModels_stopsRetryingOnceInterrupted() {
+    StubHttpClient stub =
+        new StubHttpClient()
+            .enqueue(new StubInterrupt(new StubResponse(503, "service down")))
+            .enqueue(new StubResponse(200, "{\"models\":[]}"));
+    GeminiHttpClient client = new GeminiHttpClient(stub, defaultMapper());
+
+    RuntimeException ex = assertThrows(RuntimeException.class, () -> client.getModels("key"));
+
+    assertTrue(Thread.interrupted());
+    assertEquals("Gemini HTTP request interrupted.", ex.getMessage());
+    assertEquals(1, stub.requests.size());
+  }
+
+  @Test
+  void getModels_interruptCancelsTheExchangeInFlight() throws Exception {
+    StubHttpClient stub = new StubHttpClient().enqueue(new StubHang());
+    GeminiHttpClient client = new GeminiHttpClient(stub, defaultMapper());
+    AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    Thread caller =
+        new Thread(
+            () -> {
+              try {
+                client.getModels("key");
+              } catch (RuntimeException e) {
+                failure.set(e);
+              }
+            });
+    caller.start();
+    while (stub.exchange == null) {
+      Thread.onSpinWait();
+    }
+
+    caller.interrupt();
+    caller.join(5_000L);
+
+    assertTrue(stub.exchange.isCancelled());
+    assertEquals("Gemini HTTP request interrupted.", failure.get().getMessage());
+    assertEquals(1, stub.requests.size());
+  }
+
+  @Test
+  void generateContentAsync_cancellingTheResultCancelsTheExchange() {
+    StubHttpClient stub = new StubHttpClient().enqueue(new StubHang());
+    GeminiHttpClient client = new GeminiHttpClient(stub, defaultMapper());
+
+    client.generateContentAsync("models/gemini-1.5", "key", buildRequest("test")).cancel(true);
+
+    assertTrue(stub.exchange.isCancelled());
+    assertEquals(1, stub.requests.size());
+  }
+
+  @Test
+  void generateContent_readsRetryInfoFromErrorBody() {
+    String errorJson =
+        "{\"error\":{\"code\":429,\"status\":\"RESOURCE_EXHAUSTED\",\"details\":["
+            + "{\"@type\":\"type.googleapis.com/google.rpc.RetryInfo\","
+            + "\"retryDelay\":\"90.5s\"}]}}";
+    StubHttpClient stub = new StubHttpClient().enqueue(new StubResponse(429, errorJson));
+    GeminiHttpClient client = new GeminiHttpClient(stub, defaultMapper());
+
+    GeminiApiException ex =
+        assertThrows(
+            GeminiApiException.class,
+            () -> client.generateContent("models/gemini-1.5", "key", buildRequest("test")));
+
+    assertEquals(90_500L, ex.getRetryAfterMillis());
+    // A hint longer than a user would wait for is surfaced instead of retried.
+    assertEquals(1, stub.requests.size());
+  }
+
+  @Test
+  void generateContent_honorsRetryAfterHeaderAndSlowsClientDown() {
+    String json = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"ok\"}]}}]}";
+    StubHttpClient stub =
+        new StubHttpClient()
+            .enqueue(new StubResponse(429, "rate limit", Map.of("Retry-After", List.of("0"))))
+            .enqueue(new StubResponse(200, json));
+    List<Long> delays = new ArrayList<>();
+    List<Integer> levels = new ArrayList<>();
+    AdaptiveThrottle throttle =
+        new AdaptiveThrottle(() -> 0L) {
+          @Override
+          synchronized long onThrottled(long retryAfterMillis, int attempt) {
+            long delay = super.onThrottled(retryAfterMillis, attempt);
+            delays.add(delay);
+            levels.add(level());
+            return delay;
+          }
+        };
+    GeminiHttpClient client = new GeminiHttpClient(stub, defaultMapper(), throttle);
+
+    client.generateContent("models/gemini-1.5", "key", buildRequest("test"));
+
+    assertEquals(2, stub.requests.size());
+    // The zero-second hint replaces the 500 ms fallback backoff and slows the client down.
+    assertEquals(List.of(0L), delays);
+    assertEquals(List.of(1), levels);
+    // One throttle and one success leave the client back at full speed, with no pause left.
+    assertEquals(0, throttle.level());
+    assertEquals(0L, throttle.reserveSlot());
+  }
+
   private static ObjectMapper defaultMapper() {
     return new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
   }
@@ -145,6 +375,7 @@ class GeminiHttpClientTest {
     private final Deque<StubAction> actions = new ArrayDeque<>();
     private final Deque<HttpRequest> requests = new ArrayDeque<>();
     private String lastBody;
+    private volatile CompletableFuture<?> exchange;
 
     StubHttpClient enqueue(StubAction action) {
       actions.add(action);
@@ -162,13 +393,25 @@ class GeminiHttpClientTest {
         subscriber.await();
       }
       StubAction action = actions.removeFirst();
-      return action.apply(request);
+      return action.apply(request, responseBodyHandler);
     }
 
     @Override
     public <T> java.util.concurrent.CompletableFuture<HttpResponse<T>> sendAsync(
         HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler) {
-      throw new UnsupportedOperationException();
+      if (actions.peekFirst() instanceof StubHang) {
+        actions.removeFirst();
+        requests.add(request);
+        CompletableFuture<HttpResponse<T>> pending = new CompletableFuture<>();
+        exchange = pending;
+        return pending;
+      }
+      try {
+        return java.util.concurrent.CompletableFuture.completedFuture(
+            send(request, responseBodyHandler));
+      } catch (IOException | InterruptedException e) {
+        return java.util.concurrent.CompletableFuture.failedFuture(e);
+      }
     }
 
     @Override
@@ -268,43 +511,134 @@ class GeminiHttpClientTest {
   }
 
   private interface StubAction {
-    <T> HttpResponse<T> apply(HttpRequest request) throws IOException;
+    <T> HttpResponse<T> apply(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+        throws IOException;
   }
 
   private static final class StubResponse implements StubAction {
     private final int status;
     private final String body;
+    private final Map<String, List<String>> headers;
 
     private StubResponse(int status, String body) {
+      this(status, body, Map.of());
+    }
+
+    private StubResponse(int status, String body, Map<String, List<String>> headers) {
+      this.status = status;
+      this.body = body;
+      this.headers = headers;
+    }
+
+    /** Feeds the body through the client's handler, as the real HTTP client would. */
+    @Override
+    public <T> HttpResponse<T> apply(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+        throws IOException {
+      HttpHeaders httpHeaders = HttpHeaders.of(headers, (k, v) -> true);
+      HttpResponse.ResponseInfo info =
+          new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+              return status;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+              return httpHeaders;
+            }
+
+            @Override
+            public HttpClient.Version version() {
+              return HttpClient.Version.HTTP_1_1;
+            }
+          };
+      HttpResponse.BodySubscriber<T> subscriber = handler.apply(info);
+      subscriber.onSubscribe(
+          new java.util.concurrent.Flow.Subscription() {
+            @Override
+            public void request(long n) {}
+
+            @Override
+            public void cancel() {}
+          });
+      byte[] bytes = body.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+      subscriber.onNext(List.of(java.nio.ByteBuffer.wrap(bytes)));
+      subscriber.onComplete();
+      try {
+        T decoded = subscriber.getBody().toCompletableFuture().get();
+        return new StubHttpResponse<>(status, decoded, request.uri(), headers);
+      } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+        throw new IOException(e);
+      }
+    }
+  }
+
+  /** Responds with the body as a stream of lines, as {@code BodyHandlers.ofLines()} would. */
+  private static final class StubEventStream implements StubAction {
+    private final int status;
+    private final String body;
+
+    private StubEventStream(int status, String body) {
       this.status = status;
       this.body = body;
     }
 
     @Override
-    public <T> HttpResponse<T> apply(HttpRequest request) {
+    public <T> HttpResponse<T> apply(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
       @SuppressWarnings("unchecked")
       HttpResponse<T> response =
-          (HttpResponse<T>) new StubHttpResponse(status, body, request.uri());
+          (HttpResponse<T>) new StubHttpResponse<>(status, body.lines(), request.uri());
       return response;
     }
   }
 
+  /** Never answers; {@code sendAsync} returns an exchange that stays pending. */
+  private static final class StubHang implements StubAction {
+    @Override
+    public <T> HttpResponse<T> apply(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /** Interrupts the calling thread while answering, as cancelling its task would. */
+  private static final class StubInterrupt implements StubAction {
+    private final StubAction response;
+
+    private StubInterrupt(StubAction response) {
+      this.response = response;
+    }
+
+    @Override
+    public <T> HttpResponse<T> apply(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+        throws IOException {
+      Thread.currentThread().interrupt();
+      return response.apply(request, handler);
+    }
+  }
+
   private static final class StubIOException implements StubAction {
     @Override
-    public <T> HttpResponse<T> apply(HttpRequest request) throws IOException {
+    public <T> HttpResponse<T> apply(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+        throws IOException {
       throw new IOException("network error");
     }
   }
 
-  private static final class StubHttpResponse implements HttpResponse<String> {
+  private static final class StubHttpResponse<B> implements HttpResponse<B> {
     private final int status;
-    private final String body;
+    private final B body;
     private final URI uri;
+    private final Map<String, List<String>> headers;
+
+    private StubHttpResponse(int status, B body, URI uri) {
+      this(status, body, uri, Map.of());
+    }
 
-    private StubHttpResponse(int status, String body, URI uri) {
+    private StubHttpResponse(int status, B body, URI uri, Map<String, List<String>> headers) {
       this.status = status;
       this.body = body;
       this.uri = uri;
+      this.headers = headers;
     }
 
     @Override
@@ -318,17 +652,17 @@ class GeminiHttpClientTest {
     }
 
     @Override
-    public Optional<HttpResponse<String>> previousResponse() {
+    public Optional<HttpResponse<B>> previousResponse() {
       return Optional.empty();
     }
 
     @Override
     public HttpHeaders headers() {
-      return HttpHeaders.of(java.util.Map.of(), (k, v) -> true);
+      return HttpHeaders.of(headers, (k, v) -> true);
     }
 
     @Override
-    public String body() {
+    public B body() {
       return body;
     }
 
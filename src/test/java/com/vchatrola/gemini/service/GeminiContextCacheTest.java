@@ -0,0 +1,187 @@
+package com.vchatrola.gemini.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vchatrola.gemini.api.GeminiApiException;
+import com.vchatrola.gemini.api.GeminiClient;
+import com.vchatrola.gemini.dto.GeminiRecords;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class GeminiContextCacheTest {
+  private static final long HOUR = 3_600_000L;
+
+  @Test
+  void resolve_uploadsPrefixOnceAndReusesIt() {
+    RecordingClient client = new RecordingClient();
+    GeminiContextCache cache = new GeminiContextCache(client, () -> 0L);
+
+    Optional<String> first = cache.resolve("gemini-test", "key", "rules");
+    Optional<String> second = cache.resolve("gemini-test", "key", "rules");
+
+    assertEquals(Optional.of("cachedContents/1"), first);
+    assertEquals(first, second);
+    assertEquals(1, client.created.size());
+    assertEquals("models/gemini-test", client.created.getFirst().model());
+  }
+
+  @Test
+  void resolve_recreatesCacheBeforeTtlExpires() {
+    RecordingClient client = new RecordingClient();
+    AtomicLong now = new AtomicLong();
+    GeminiContextCache cache = new GeminiContextCache(client, now::get);
+
+    cache.resolve("gemini-test", "key", "rules");
+    now.set(HOUR - 1_000L);
+
+    assertEquals(Optional.of("cachedContents/2"), cache.resolve("gemini-test", "key", "rules"));
+  }
+
+  @Test
+  void resolve_createsNewCacheWhenPrefixChangesAndDeletesEvicted() {
+    RecordingClient client = new RecordingClient();
+    GeminiContextCache cache = new GeminiContextCache(client, () -> 0L);
+
+    for (int i = 0; i <= GeminiContextCache.MAX_ENTRIES; i++) {
+      cache.resolve("gemini-test", "key", "rules v" + i);
+    }
+
+    assertEquals(GeminiContextCache.MAX_ENTRIES + 1, client.created.size());
+    assertEquals(GeminiContextCache.MAX_ENTRIES, cache.size());
+    assertEquals(List.of("cachedContents/1"), client.deleted);
+  }
+
+  @Test
+  void resolve_remembersRefusalUntilTtl() {
+    RecordingClient client = new RecordingClient();
+    client.refuse = true;
+    AtomicLong now = new AtomicLong();
+    GeminiContextCache cache = new GeminiContextCache(client, now::get);
+
+    assertTrue(cache.resolve("gemini-test", "key", "rules").isEmpty());
+    assertTrue(cache.resolve("gemini-test", "key", "rules").isEmpty());
+    assertEquals(1, client.attempts);
+
+    now.set(HOUR);
+    client.refuse = false;
+    assertTrue(cache.resolve("gemini-test", "key", "rules").isPresent());
+  }
+
+  @Test
+  void resolve_doesNotRememberATransientFailure() {
+    RecordingClient client = new RecordingClient();
+    client.failure = new GeminiApiException(503, "UNAVAILABLE", "The model is overloaded.");
+    GeminiContextCache cache = new GeminiContextCache(client, () -> 0L);
+
+    assertTrue(cache.resolve("gemini-test", "key", "rules").isEmpty());
+    assertEquals(0, cache.size());
+
+    client.failure = null;
+    assertTrue(cache.resolve("gemini-test", "key", "rules").isPresent());
+    assertEquals(2, client.attempts);
+  }
+
+  @Test
+  void resolve_servesOtherCachesWhileAnUploadIsInFlight() throws Exception {
+    RecordingClient client = new RecordingClient();
+    GeminiContextCache cache = new GeminiContextCache(client, () -> 0L);
+    Optional<String> cached = cache.resolve("gemini-test", "key", "rules v1");
+    client.uploadStarted = new CountDownLatch(1);
+    client.releaseUpload = new CountDownLatch(1);
+
+    CompletableFuture<Optional<String>> upload =
+        CompletableFuture.supplyAsync(() -> cache.resolve("gemini-test", "key", "rules v2"));
+    assertTrue(client.uploadStarted.await(5, TimeUnit.SECONDS));
+
+    assertEquals(cached, cache.resolve("gemini-test", "key", "rules v1"));
+    client.releaseUpload.countDown();
+    assertEquals(Optional.of("cachedContents/2"), upload.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void resolve_doesNotRememberAnInterruptedUpload() {
+    RecordingClient client = new RecordingClient();
+    client.interrupt = true;
+    GeminiContextCache cache = new GeminiContextCache(client, () -> 0L);
+
+    assertThrows(RuntimeException.class, () -> cache.resolve("gemini-test", "key", "rules"));
+    assertTrue(Thread.interrupted());
+
+    client.interrupt = false;
+    assertTrue(cache.resolve("gemini-test", "key", "rules").isPresent());
+    assertEquals(2, client.attempts);
+  }
+
+  private static final class RecordingClient implements GeminiClient {
+    private final List<GeminiRecords.CachedContentRequest> created = new ArrayList<>();
+    private final List<String> deleted = new ArrayList<>();
+    private boolean refuse;
+    private boolean interrupt;
+    private RuntimeException failure;
+    private CountDownLatch uploadStarted;
+    private CountDownLatch releaseUpload;
+    private int attempts;
+
+    @Override
+    public GeminiRecords.ModelList getModels(String apiKey) {
+      return new GeminiRecords.ModelList(List.of());
+    }
+
+    @Override
+    public GeminiRecords.GeminiCountResponse countTokens(
+        String model, String apiKey, GeminiRecords.GeminiRequest request) {
+      return null;
+    }
+
+    @Override
+    public GeminiRecords.GeminiResponse generateContent(
+        String model, String apiKey, GeminiRecords.GeminiRequest request) {
+      return null;
+    }
+
+    @Override
+    public boolean supportsContextCaching() {
+      return true;
+    }
+
+    @Override
+    public GeminiRecords.CachedContent createCachedContent(
+        String apiKey, GeminiRecords.CachedContentRequest request) {
+      attempts++;
+      if (refuse) {
+        throw new GeminiApiException(400, "INVALID_ARGUMENT", "Cached content is too small.");
+      }
+      if (interrupt) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Gemini HTTP request interrupted.");
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      if (uploadStarted != null) {
+        uploadStarted.countDown();
+        try {
+          releaseUpload.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      created.add(request);
+      return new GeminiRecords.CachedContent(
+          "cachedContents/" + created.size(), request.model(), null);
+    }
+
+    @Override
+    public void deleteCachedContent(String apiKey, String name) {
+      deleted.add(name);
+    }
+  }
+}
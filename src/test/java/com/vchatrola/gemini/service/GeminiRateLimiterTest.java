@@ -0,0 +1,66 @@
+package com.vchatrola.gemini.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.vchatrola.gemini.api.GeminiApiException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class GeminiRateLimiterTest {
+
+  private final AtomicLong now = new AtomicLong(1_000_000L);
+
+  @Test
+  void reserve_allowsBurstUpToRequestBudgetThenQueues() {
+    GeminiRateLimiter limiter = new GeminiRateLimiter(() -> 60, () -> 0, 5_000L, now::get);
+
+    for (int i = 0; i < 60; i++) {
+      assertEquals(0L, limiter.reserve("model", 10));
+    }
+    // One request per second refills; the next two callers queue behind each other.
+    assertEquals(1_000L, limiter.reserve("model", 10));
+    assertEquals(2_000L, limiter.reserve("model", 10));
+  }
+
+  @Test
+  void reserve_tracksTokenBudgetAndRefillsOverTime() {
+    GeminiRateLimiter limiter = new GeminiRateLimiter(() -> 0, () -> 6_000, 60_000L, now::get);
+
+    assertEquals(0L, limiter.reserve("model", 6_000));
+    assertEquals(10_000L, limiter.reserve("model", 1_000));
+
+    now.addAndGet(20_000L);
+    assertEquals(0L, limiter.reserve("model", 1_000));
+  }
+
+  @Test
+  void reserve_rejectsWaitsBeyondLimitWithoutConsumingCapacity() {
+    GeminiRateLimiter limiter = new GeminiRateLimiter(() -> 1, () -> 0, 1_000L, now::get);
+
+    assertEquals(0L, limiter.reserve("model", 1));
+    GeminiApiException ex =
+        assertThrows(GeminiApiException.class, () -> limiter.reserve("model", 1));
+    assertEquals(429, ex.getStatusCode());
+
+    now.addAndGet(60_000L);
+    assertEquals(0L, limiter.reserve("model", 1));
+  }
+
+  @Test
+  void reserve_keepsSeparateBucketsPerModel() {
+    GeminiRateLimiter limiter = new GeminiRateLimiter(() -> 1, () -> 0, 0L, now::get);
+
+    assertEquals(0L, limiter.reserve("model-a", 1));
+    assertEquals(0L, limiter.reserve("model-b", 1));
+  }
+
+  @Test
+  void reserve_isUnlimitedWhenBudgetsAreDisabled() {
+    GeminiRateLimiter limiter = GeminiRateLimiter.unlimited();
+
+    for (int i = 0; i < 1_000; i++) {
+      assertEquals(0L, limiter.reserve("model", 1_000_000));
+    }
+  }
+}
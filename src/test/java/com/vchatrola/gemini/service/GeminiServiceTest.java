@@ -1,12 +1,19 @@
 package com.vchatrola.gemini.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.vchatrola.gemini.api.GeminiApiException;
 import com.vchatrola.gemini.api.GeminiClient;
 import com.vchatrola.gemini.dto.GeminiRecords;
+import com.vchatrola.result.ValidationResultSchema;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
 
 class GeminiServiceTest {
@@ -15,23 +22,11 @@ class GeminiServiceTest {
   void getAvailableModels_propagatesApiExceptions() {
     GeminiService.clearCachedModels();
     GeminiClient client =
-        new GeminiClient() {
+        new StubClient() {
           @Override
           public GeminiRecords.ModelList getModels(String apiKey) {
             throw new GeminiApiException(400, "INVALID_ARGUMENT", "API key not valid");
           }
-
-          @Override
-          public GeminiRecords.GeminiCountResponse countTokens(
-              String model, String apiKey, GeminiRecords.GeminiRequest requestBody) {
-            return null;
-          }
-
-          @Override
-          public GeminiRecords.GeminiResponse generateContent(
-              String model, String apiKey, GeminiRecords.GeminiRequest requestBody) {
-            return null;
-          }
         };
 
     GeminiService service = new GeminiService(client, () -> "test-key");
@@ -86,19 +81,145 @@ class GeminiServiceTest {
     assertEquals("Gemini response candidate text is empty.", ex.getMessage());
   }
 
-  private static GeminiClient clientReturning(GeminiRecords.GeminiResponse response) {
-    return new GeminiClient() {
-      @Override
-      public GeminiRecords.ModelList getModels(String apiKey) {
-        return new GeminiRecords.ModelList(List.of());
-      }
+  @Test
+  void getCompletion_servesRepeatedPromptFromCache() {
+    AtomicInteger calls = new AtomicInteger();
+    GeminiClient client =
+        new StubClient() {
+          @Override
+          public GeminiRecords.GeminiResponse generateContent(
+              String model, String apiKey, GeminiRecords.GeminiRequest requestBody) {
+            return textResponse("result " + calls.incrementAndGet());
+          }
+        };
+    GeminiService service = new GeminiService(client, () -> "test-key");
 
-      @Override
-      public GeminiRecords.GeminiCountResponse countTokens(
-          String model, String apiKey, GeminiRecords.GeminiRequest requestBody) {
-        return null;
-      }
+    assertEquals("result 1", service.getCompletion("prompt", "gemini-test", "config-1"));
+    assertEquals("result 1", service.getCompletion("prompt", "gemini-test", "config-1"));
+    assertEquals("result 2", service.getCompletion("prompt", "gemini-test", "config-2"));
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void streamCompletion_forwardsFragmentsAndCachesFullText() {
+    AtomicInteger calls = new AtomicInteger();
+    GeminiClient client =
+        new StubClient() {
+          @Override
+          public void streamGenerateContent(
+              String model,
+              String apiKey,
+              GeminiRecords.GeminiRequest requestBody,
+              Consumer<GeminiRecords.GeminiResponse> onChunk) {
+            calls.incrementAndGet();
+            onChunk.accept(textResponse("[{\"title\":"));
+            onChunk.accept(textResponse("\"A\"}]"));
+          }
+        };
+    GeminiService service = new GeminiService(client, () -> "test-key");
+    List<String> fragments = new ArrayList<>();
 
+    String first = service.streamCompletion("prompt", "gemini-test", "config", fragments::add);
+    String second = service.streamCompletion("prompt", "gemini-test", "config", fragments::add);
+
+    assertEquals("[{\"title\":\"A\"}]", first);
+    assertEquals(first, second);
+    assertEquals(List.of("[{\"title\":", "\"A\"}]", first), fragments);
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void getCompletionAsync_coalescesIdenticalInFlightRequests() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    CompletableFuture<GeminiRecords.GeminiResponse> pending = new CompletableFuture<>();
+    GeminiClient client =
+        new StubClient() {
+          @Override
+          public CompletableFuture<GeminiRecords.GeminiResponse> generateContentAsync(
+              String model, String apiKey, GeminiRecords.GeminiRequest requestBody) {
+            calls.incrementAndGet();
+            return pending;
+          }
+        };
+    GeminiService service = new GeminiService(client, () -> "test-key");
+
+    CompletableFuture<String> first = service.getCompletionAsync("prompt", "gemini-test", "a");
+    CompletableFuture<String> second = service.getCompletionAsync("prompt", "gemini-test", "b");
+    pending.complete(textResponse("ok"));
+
+    assertEquals("ok", first.get(5, TimeUnit.SECONDS));
+    assertEquals("ok", second.get(5, TimeUnit.SECONDS));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void getCompletion_referencesCachedPrefixAndFallsBackWhenRejected() {
+    List<GeminiRecords.GeminiRequest> requests = new ArrayList<>();
+    GeminiClient client =
+        new CachingStubClient() {
+          @Override
+          public GeminiRecords.GeminiResponse generateContent(
+              String model, String apiKey, GeminiRecords.GeminiRequest requestBody) {
+            requests.add(requestBody);
+            if (requests.size() == 2) {
+              throw new GeminiApiException(404, "NOT_FOUND", "Cached content not found.");
+            }
+            return textResponse("ok " + requests.size());
+          }
+        };
+    GeminiService service = new GeminiService(client, () -> "test-key");
+
+    assertEquals("ok 1", service.getCompletion("rules ", "input 1", "gemini-test", "config"));
+    assertEquals(
+        "ok 3",
+        service.getCompletion(
+            "rules ", "input 2", "gemini-test", "config", ValidationResultSchema.SINGLE));
+
+    assertEquals("cachedContents/rules", requests.get(0).cachedContent());
+    assertEquals("input 1", firstText(requests.get(0)));
+    assertNull(requests.get(0).generationConfig());
+    assertEquals(ValidationResultSchema.SINGLE, requests.get(1).generationConfig());
+    assertNull(requests.get(2).cachedContent());
+    assertEquals("rules input 2", firstText(requests.get(2)));
+    assertEquals(ValidationResultSchema.SINGLE, requests.get(2).generationConfig());
+  }
+
+  @Test
+  void getCompletion_takesOneRateLimitTokenWhenFallingBackToFullPrompt() {
+    GeminiClient client =
+        new CachingStubClient() {
+          @Override
+          public GeminiRecords.GeminiResponse generateContent(
+              String model, String apiKey, GeminiRecords.GeminiRequest requestBody) {
+            if (requestBody.cachedContent() != null) {
+              throw new GeminiApiException(404, "NOT_FOUND", "Cached content not found.");
+            }
+            return textResponse("ok");
+          }
+        };
+    GeminiRateLimiter oneRequestPerMinute =
+        new GeminiRateLimiter(() -> 1, () -> 0, 1_000L, () -> 0L);
+    GeminiService service = new GeminiService(client, () -> "test-key", oneRequestPerMinute);
+
+    assertEquals("ok", service.getCompletion("rules ", "input", "gemini-test", "config"));
+  }
+
+  private static String firstText(GeminiRecords.GeminiRequest request) {
+    return ((GeminiRecords.TextPart) request.contents().getFirst().parts().getFirst()).text();
+  }
+
+  private static GeminiRecords.GeminiResponse textResponse(String text) {
+    GeminiRecords.GeminiResponse.Candidate.Content content =
+        new GeminiRecords.GeminiResponse.Candidate.Content(
+            List.of(new GeminiRecords.TextPart(text)), "model");
+    return new GeminiRecords.GeminiResponse(
+        List.of(new GeminiRecords.GeminiResponse.Candidate(content, "STOP", 0, List.of())),
+        null,
+        null);
+  }
+
+  private static GeminiClient clientReturning(GeminiRecords.GeminiResponse response) {
+    return new StubClient() {
       @Override
       public GeminiRecords.GeminiResponse generateContent(
           String model, String apiKey, GeminiRecords.GeminiRequest requestBody) {
@@ -106,4 +227,38 @@ class GeminiServiceTest {
       }
     };
   }
+
+  /** A client without models whose calls fail unless a test overrides them. */
+  private static class StubClient implements GeminiClient {
+    @Override
+    public GeminiRecords.ModelList getModels(String apiKey) {
+      return new GeminiRecords.ModelList(List.of());
+    }
+
+    @Override
+    public GeminiRecords.GeminiCountResponse countTokens(
+        String model, String apiKey, GeminiRecords.GeminiRequest requestBody) {
+      return null;
+    }
+
+    @Override
+    public GeminiRecords.GeminiResponse generateContent(
+        String model, String apiKey, GeminiRecords.GeminiRequest requestBody) {
+      throw new AssertionError("Unexpected generateContent call.");
+    }
+  }
+
+  /** A stub client that caches every prefix as {@code cachedContents/rules}. */
+  private static class CachingStubClient extends StubClient {
+    @Override
+    public boolean supportsContextCaching() {
+      return true;
+    }
+
+    @Override
+    public GeminiRecords.CachedContent createCachedContent(
+        String apiKey, GeminiRecords.CachedContentRequest request) {
+      return new GeminiRecords.CachedContent("cachedContents/rules", request.model(), null);
+    }
+  }
 }
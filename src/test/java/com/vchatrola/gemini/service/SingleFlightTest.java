@@ -0,0 +1,207 @@
+package com.vchatrola.gemini.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  @Test
+  void execute_sharesOneCallBetweenConcurrentCallers() throws Exception {
+    SingleFlight<String> flights = new SingleFlight<>();
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> leader =
+        CompletableFuture.supplyAsync(
+            () ->
+                flights.execute(
+                    "key",
+                    () -> {
+                      calls.incrementAndGet();
+                      started.countDown();
+                      await(release);
+                      return "result";
+                    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    AtomicReference<String> followerResult = new AtomicReference<>();
+    Thread follower =
+        new Thread(
+            () ->
+                followerResult.set(
+                    flights.execute(
+                        "key",
+                        () -> {
+                          calls.incrementAndGet();
+                          return "duplicate";
+                        })));
+    follower.start();
+    // The follower parks only while joining the leader's call.
+    while (follower.getState() != Thread.State.WAITING) {
+      Thread.onSpinWait();
+    }
+    release.countDown();
+
+    assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+    follower.join(5_000L);
+    assertEquals("result", followerResult.get());
+    assertEquals(1, calls.get());
+    assertEquals(0, flights.size());
+  }
+
+  @Test
+  void execute_startsAFreshCallOnceTheFirstHasCompleted() {
+    SingleFlight<String> flights = new SingleFlight<>();
+    AtomicInteger calls = new AtomicInteger();
+
+    flights.execute("key", () -> "first " + calls.incrementAndGet());
+    String second = flights.execute("key", () -> "second " + calls.incrementAndGet());
+
+    assertEquals("second 2", second);
+  }
+
+  @Test
+  void execute_waitersStartOverWhenTheRunningCallIsInterrupted() throws Exception {
+    SingleFlight<String> flights = new SingleFlight<>();
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread leader =
+        new Thread(
+            () -> {
+              try {
+                flights.execute(
+                    "key",
+                    () -> {
+                      calls.incrementAndGet();
+                      started.countDown();
+                      await(release);
+                      Thread.currentThread().interrupt();
+                      throw new RuntimeException("interrupted");
+                    });
+              } catch (RuntimeException ignored) {
+                // Expected: the leader was cancelled.
+              }
+            });
+    leader.start();
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    AtomicReference<String> followerResult = new AtomicReference<>();
+    Thread follower =
+        new Thread(
+            () -> {
+              String result = flights.execute("key", () -> "fresh " + calls.incrementAndGet());
+              followerResult.set(result);
+            });
+    follower.start();
+    while (follower.getState() != Thread.State.WAITING) {
+      Thread.onSpinWait();
+    }
+    release.countDown();
+
+    follower.join(5_000L);
+    leader.join(5_000L);
+    assertEquals("fresh 2", followerResult.get());
+    assertEquals(0, flights.size());
+  }
+
+  @Test
+  void execute_interruptedWaiterStopsWaiting() throws Exception {
+    SingleFlight<String> flights = new SingleFlight<>();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> leader =
+        CompletableFuture.supplyAsync(
+            () ->
+                flights.execute(
+                    "key",
+                    () -> {
+                      started.countDown();
+                      await(release);
+                      return "result";
+                    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    Thread follower =
+        new Thread(
+            () -> {
+              try {
+                flights.execute("key", () -> "duplicate");
+              } catch (RuntimeException e) {
+                failure.set(e);
+              }
+            });
+    follower.start();
+    while (follower.getState() != Thread.State.WAITING) {
+      Thread.onSpinWait();
+    }
+    follower.interrupt();
+    follower.join(5_000L);
+
+    assertTrue(failure.get().getCause() instanceof InterruptedException);
+    release.countDown();
+    assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void executeAsync_sharesPendingFutureAndFailure() {
+    SingleFlight<String> flights = new SingleFlight<>();
+    CompletableFuture<String> call = new CompletableFuture<>();
+    AtomicInteger calls = new AtomicInteger();
+
+    CompletableFuture<String> first =
+        flights.executeAsync(
+            "key",
+            () -> {
+              calls.incrementAndGet();
+              return call;
+            });
+    CompletableFuture<String> second =
+        flights.executeAsync(
+            "key",
+            () -> {
+              calls.incrementAndGet();
+              return CompletableFuture.completedFuture("duplicate");
+            });
+    IllegalStateException failure = new IllegalStateException("boom");
+    call.completeExceptionally(failure);
+
+    assertEquals(1, calls.get());
+    ExecutionException ex = assertThrows(ExecutionException.class, second::get);
+    assertSame(failure, ex.getCause());
+    assertTrue(first.isCompletedExceptionally());
+    assertEquals(0, flights.size());
+  }
+
+  @Test
+  void executeAsync_cancellingOneCallerKeepsTheSharedCall() throws Exception {
+    SingleFlight<String> flights = new SingleFlight<>();
+    CompletableFuture<String> call = new CompletableFuture<>();
+
+    CompletableFuture<String> first = flights.executeAsync("key", () -> call);
+    CompletableFuture<String> second = flights.executeAsync("key", () -> call);
+    first.cancel(true);
+    call.complete("result");
+
+    assertEquals("result", second.get(5, TimeUnit.SECONDS));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
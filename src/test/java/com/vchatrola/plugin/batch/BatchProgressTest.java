@@ -0,0 +1,89 @@
+package com.vchatrola.plugin.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.vchatrola.gherkin.ScenarioSplitter.Scenario;
+import com.vchatrola.plugin.batch.BatchValidationRunner.BatchFile;
+import com.vchatrola.plugin.batch.BatchValidationRunner.FileReport;
+import com.vchatrola.plugin.batch.BatchValidationRunner.ScenarioReport;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BatchProgressTest {
+
+  private static BatchFile file(String path, int scenarioCount) {
+    List<Scenario> scenarios = new ArrayList<>();
+    for (int i = 0; i < scenarioCount; i++) {
+      scenarios.add(new Scenario(i * 3, "Scenario: " + i, 0));
+    }
+    return new BatchFile(path, "feature", scenarios);
+  }
+
+  private static ScenarioReport passed(BatchFile file, int index) {
+    return new ScenarioReport(file.scenarios().get(index), List.of(), null);
+  }
+
+  @Test
+  void complete_reportsFileOnceAllScenariosAreDone() {
+    BatchFile file = file("a.feature", 2);
+    List<FileReport> reported = new ArrayList<>();
+    BatchProgress progress =
+        new BatchProgress(List.of(file), new EmptyProgressIndicator(), reported::add);
+
+    progress.complete(file, 1, passed(file, 1));
+    assertTrue(reported.isEmpty());
+    progress.complete(file, 0, passed(file, 0));
+    progress.complete(file, 0, passed(file, 0));
+
+    assertEquals(1, reported.size());
+    assertEquals(2, reported.get(0).reports().size());
+  }
+
+  @Test
+  void cancel_reportsPartlyValidatedFilesWithTheRestCancelled() {
+    BatchFile partial = file("partial.feature", 2);
+    BatchFile untouched = file("untouched.feature", 1);
+    List<FileReport> reported = new ArrayList<>();
+    BatchProgress progress =
+        new BatchProgress(
+            List.of(partial, untouched), new EmptyProgressIndicator(), reported::add);
+    ScenarioReport first = passed(partial, 0);
+
+    progress.complete(partial, 0, first);
+    assertTrue(reported.isEmpty());
+    progress.cancel("Cancelled.");
+
+    assertEquals(1, reported.size());
+    FileReport report = reported.get(0);
+    assertEquals(partial, report.file());
+    assertEquals(first, report.reports().get(0));
+    assertNull(report.reports().get(1).results());
+    assertEquals("Cancelled.", report.reports().get(1).error());
+
+    progress.complete(partial, 1, passed(partial, 1));
+    assertEquals(1, reported.size());
+  }
+
+  @Test
+  void complete_afterCancel_reportsTheFileWithTheRestCancelled() {
+    BatchFile file = file("late.feature", 3);
+    List<FileReport> reported = new ArrayList<>();
+    BatchProgress progress =
+        new BatchProgress(List.of(file), new EmptyProgressIndicator(), reported::add);
+
+    progress.cancel("Cancelled.");
+    assertTrue(reported.isEmpty());
+    ScenarioReport late = passed(file, 1);
+    progress.complete(file, 1, late);
+
+    assertEquals(1, reported.size());
+    List<ScenarioReport> reports = reported.get(0).reports();
+    assertEquals("Cancelled.", reports.get(0).error());
+    assertEquals(late, reports.get(1));
+    assertEquals("Cancelled.", reports.get(2).error());
+  }
+}